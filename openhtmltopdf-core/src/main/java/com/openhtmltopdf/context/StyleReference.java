@@ -27,6 +27,7 @@ import com.openhtmltopdf.css.newmatch.PageInfo;
 import com.openhtmltopdf.css.parser.CSSPrimitiveValue;
 import com.openhtmltopdf.css.sheet.FontFaceRule;
 import com.openhtmltopdf.css.sheet.PropertyDeclaration;
+import com.openhtmltopdf.css.sheet.Ruleset;
 import com.openhtmltopdf.css.sheet.Stylesheet;
 import com.openhtmltopdf.css.sheet.StylesheetInfo;
 import com.openhtmltopdf.css.style.CalculatedStyle;
@@ -43,6 +44,7 @@ import org.w3c.dom.Node;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 
 
@@ -125,6 +127,11 @@ public class StyleReference {
                 continue;
             }
 
+            if (sheet.isUsingFsNamedDestination()) {
+                // Sheets may come from a cache, so this is not left to the parser.
+                _context.setUsingFsNamedDestination(true);
+            }
+
             if (!sheet.getImportRules().isEmpty()) {
                 result.addAll(readAndParseAll(sheet.getImportRules(), medium));
             }
@@ -267,6 +274,20 @@ public class StyleReference {
         _stylesheetFactory.setUserAgentCallback(userAgentCallback);
     }
 
+    /**
+     * See {@link StylesheetFactoryImpl#setStylesheetCache(Map)}.
+     */
+    public void setStylesheetCache(Map<String, Stylesheet> cache) {
+        _stylesheetFactory.setStylesheetCache(cache);
+    }
+
+    /**
+     * See {@link StylesheetFactoryImpl#setStyleDeclarationCache(Map)}.
+     */
+    public void setStyleDeclarationCache(Map<String, Ruleset> cache) {
+        _stylesheetFactory.setStyleDeclarationCache(cache);
+    }
+
     public void setSupportCMYKColors(boolean b) {
         _stylesheetFactory.setSupportCMYKColors(b);
     }
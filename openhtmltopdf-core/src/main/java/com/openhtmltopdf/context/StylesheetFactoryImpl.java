@@ -27,12 +27,14 @@ import com.openhtmltopdf.css.sheet.StylesheetInfo;
 import com.openhtmltopdf.extend.UserAgentCallback;
 import com.openhtmltopdf.resource.CSSResource;
 import com.openhtmltopdf.util.LogMessageId;
+import com.openhtmltopdf.util.ThreadCtx;
 import com.openhtmltopdf.util.XRLog;
 
 import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.logging.Level;
 
@@ -63,6 +65,32 @@ public class StylesheetFactoryImpl implements StylesheetFactory {
 
     private final CSSParser _cssParser;
 
+    /**
+     * Optional cache of parsed sheets, keyed by uri or inline content.
+     * May be shared between renders of the same template.
+     */
+    private Map<String, Stylesheet> _stylesheetCache;
+
+    /**
+     * The maximum number of parsed style attributes kept by the default
+     * declaration cache.
+     */
+    private static final int MAX_CACHED_DECLARATIONS = 1024;
+
+    /**
+     * Parsed style attributes keyed by origin, base url and text, so identical inline
+     * styles, as on the cells of generated reports, are parsed once and share
+     * one ruleset. May be shared between renders of the same template.
+     */
+    private Map<String, Ruleset> _declarationCache = new LinkedHashMap<String, Ruleset>(64, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Ruleset> eldest) {
+            return size() > MAX_CACHED_DECLARATIONS;
+        }
+    };
+
     public StylesheetFactoryImpl(UserAgentCallback userAgentCallback) {
         _userAgentCallback = userAgentCallback;
         _cssParser = new CSSParser((uri, message) -> {
@@ -102,8 +130,25 @@ public class StylesheetFactoryImpl implements StylesheetFactory {
         }
     }
 
+    /**
+     * Returns the parsed declaration, which may be shared with other elements
+     * that have the same style text and so must not be modified.
+     */
     public Ruleset parseStyleDeclaration(int origin, String styleDeclaration) {
-        return _cssParser.parseDeclaration(origin, styleDeclaration);
+        // Urls are resolved against the base url while parsing.
+        String key = origin + ":" + ThreadCtx.get().sharedContext().getBaseURL() + ":" + styleDeclaration;
+        Ruleset cached = _declarationCache.get(key);
+
+        if (cached == null) {
+            cached = _cssParser.parseDeclaration(origin, styleDeclaration);
+            _declarationCache.put(key, cached);
+        }
+
+        if (cached.isUsingFsNamedDestination()) {
+            ThreadCtx.get().sharedContext().setUsingFsNamedDestination(true);
+        }
+
+        return cached;
     }
 
     /**
@@ -115,6 +160,16 @@ public class StylesheetFactoryImpl implements StylesheetFactory {
      */
     public Stylesheet getStylesheet(StylesheetInfo info) {
         if (info.isInline()) {
+            if (_stylesheetCache != null) {
+                String key = cacheKey(info) + ':' + info.getContent();
+                Stylesheet cached = _stylesheetCache.get(key);
+                if (cached == null) {
+                    // Not computeIfAbsent, which may hold a lock on a shared cache while parsing.
+                    cached = parse(new StringReader(info.getContent()), info);
+                    _stylesheetCache.put(key, cached);
+                }
+                return cached;
+            }
             return parse(new StringReader(info.getContent()), info);
         }
 
@@ -129,9 +184,54 @@ public class StylesheetFactoryImpl implements StylesheetFactory {
 
         _seenStylesheetUris.merge(info.getUri(), 1, (oldV, newV) -> oldV + 1);
 
+        if (_stylesheetCache != null) {
+            String key = cacheKey(info);
+            Stylesheet cached = _stylesheetCache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+
+            Stylesheet sheet = parse(info);
+            if (sheet != null) {
+                _stylesheetCache.put(key, sheet);
+            }
+            return sheet;
+        }
+
         return parse(info);
     }
 
+    /**
+     * The same uri may be linked as an author sheet and imported as a user sheet,
+     * or with other media, so those are part of the key as well.
+     */
+    private static String cacheKey(StylesheetInfo info) {
+        return (info.isInline() ? "inline:" : "") + info.getOrigin() + ':' + info.getMedia() + ':' + info.getUri();
+    }
+
+    /**
+     * Use a cache of parsed stylesheets, keyed by origin, media and stylesheet uri
+     * (and content for inline stylesheets). Stylesheets are immutable once parsed, so the cache can be
+     * kept between renders that use the same sheets. If shared between threads the
+     * map must be thread safe, such as a <code>ConcurrentHashMap</code>.
+     * Linked stylesheets are never reloaded while in the cache.
+     */
+    public void setStylesheetCache(Map<String, Stylesheet> cache) {
+        _stylesheetCache = cache;
+    }
+
+    /**
+     * Use a cache of parsed style attributes, keyed by origin, base url and style text,
+     * instead of the default one that is bounded and used only by this factory.
+     * Parsed declarations are not modified, so the cache can be kept between renders
+     * that use the same parser settings. If shared between threads the map must
+     * be thread safe, such as a <code>ConcurrentHashMap</code>, and should be
+     * bounded by the caller.
+     */
+    public void setStyleDeclarationCache(Map<String, Ruleset> cache) {
+        _declarationCache = cache;
+    }
+
     public void setUserAgentCallback(UserAgentCallback userAgent) {
         _userAgentCallback = userAgent;
     }
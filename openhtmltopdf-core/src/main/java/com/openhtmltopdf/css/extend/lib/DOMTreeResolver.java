@@ -19,12 +19,11 @@
  */
 package com.openhtmltopdf.css.extend.lib;
 
-import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
 
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
 import com.openhtmltopdf.css.extend.TreeResolver;
 
@@ -35,10 +34,17 @@ import com.openhtmltopdf.css.extend.TreeResolver;
  */
 public class DOMTreeResolver implements TreeResolver {
     /**
-     * We cache element positions for nth-child, odd and even condition matchers.
-     * To avoid scaling with the square of the number of children elements.
+     * We remember the last element position looked up under each parent for
+     * nth-child, odd and even condition matchers. As the cascade visits siblings
+     * in document order this avoids scaling with the square of the number of
+     * children elements without keeping an entry for every child.
      */
-    private final Map<Node, Map<Node, Integer>> cachedPositions = new HashMap<>();
+    private final Map<Node, ElementPosition> lastPositions = new IdentityHashMap<>();
+
+    private static class ElementPosition {
+        private Node element;
+        private int position;
+    }
     
     @Override
     public Object getParentElement(Object element) {
@@ -107,28 +113,30 @@ public class DOMTreeResolver implements TreeResolver {
 
     @Override
     public int getPositionOfElement(Object element) {
-        org.w3c.dom.Node parent = ((org.w3c.dom.Element) element).getParentNode();
-        
-        Map<Node, Integer> positions = cachedPositions.get(parent);
-        
-        if (positions == null) {
-            NodeList nl = parent.getChildNodes();
-            int len = nl.getLength();
-            
-            positions = new HashMap<>();
-            
-            int pos = 0;
-            for (int i = 0; i < len; i++) {
-                Node n = nl.item(i);
-                
-                if (n.getNodeType() == org.w3c.dom.Node.ELEMENT_NODE) {
-                    positions.put(n, pos++);
-                }
+        Node parent = ((Element) element).getParentNode();
+        ElementPosition last = lastPositions.get(parent);
+
+        int position = 0;
+        Node sibling = ((Element) element).getPreviousSibling();
+
+        while (sibling != null) {
+            if (last != null && sibling == last.element) {
+                position += last.position + 1;
+                break;
+            }
+            if (sibling.getNodeType() == Node.ELEMENT_NODE) {
+                position++;
             }
-            
-            cachedPositions.put(parent, positions);
+            sibling = sibling.getPreviousSibling();
+        }
+
+        if (last == null) {
+            last = new ElementPosition();
+            lastPositions.put(parent, last);
         }
+        last.element = (Node) element;
+        last.position = position;
 
-        return positions.get(element);
+        return position;
     }
 }
@@ -57,6 +57,12 @@ public class Matcher {
 
     private final Map<Object, Mapper> _map = new HashMap<>();
 
+    /**
+     * Elements with many different style attributes are not worth caching
+     * cascaded styles for.
+     */
+    private static final int MAX_CASCADED_STYLES_PER_MAPPER = 64;
+
     /**
      * RuleIndex per axes list (by identity). Child Mappers usually share their
      * parent's descendant selectors as their axes, so they share one index.
@@ -554,6 +560,13 @@ public class Matcher {
         /** Lazily built (and shared through Matcher._indexCache) index of axes. */
         private RuleIndex index;
 
+        /**
+         * Cascaded styles of the elements mapped here, by non CSS styling and
+         * then element styling ruleset (by identity, either may be null).
+         */
+        private Map<Ruleset, Map<Ruleset, CascadedStyle>> cascadedStyles;
+        private int cascadedStyleCount;
+
         /**
          * Deferred axes: the parent's index and the chained selectors this
          * Mapper's element activated. Merged into {@link #axes} only when
@@ -755,6 +768,30 @@ public class Matcher {
             Ruleset elementStyling = getElementStyle(e);
             Ruleset nonCssStyling = getNonCssStyle(e);
 
+            // Rulesets of identical style attributes are shared by the style factory,
+            // so elements that differ only by element get the same cascaded style.
+            Map<Ruleset, CascadedStyle> byElementStyling =
+                    cascadedStyles == null ? null : cascadedStyles.get(nonCssStyling);
+            CascadedStyle cached = byElementStyling == null ? null : byElementStyling.get(elementStyling);
+
+            if (cached != null) {
+                return cached;
+            }
+
+            CascadedStyle style = createCascadedStyle(elementStyling, nonCssStyling);
+
+            if (cascadedStyleCount < MAX_CASCADED_STYLES_PER_MAPPER) {
+                if (cascadedStyles == null) {
+                    cascadedStyles = new IdentityHashMap<>();
+                }
+                cascadedStyles.computeIfAbsent(nonCssStyling, k -> new IdentityHashMap<>()).put(elementStyling, style);
+                cascadedStyleCount++;
+            }
+
+            return style;
+        }
+
+        private CascadedStyle createCascadedStyle(Ruleset elementStyling, Ruleset nonCssStyling) {
             List<PropertyDeclaration> propList = new ArrayList<>();
 
             // Specificity 0,0,0,0
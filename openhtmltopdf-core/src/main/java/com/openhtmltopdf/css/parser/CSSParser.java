@@ -67,6 +67,7 @@ public class CSSParser {
 
     private Map<String, String> _namespaces = new HashMap<>();
     private boolean _supportCMYKColors;
+    private boolean _usingFsNamedDestination;
 
     public CSSParser(CSSErrorHandler errorHandler) {
         _lexer = new Lexer(new StringReader(""));
@@ -78,7 +79,9 @@ public class CSSParser {
         reset(reader);
 
         Stylesheet stylesheet = new Stylesheet(uri, origin);
+        _usingFsNamedDestination = false;
         stylesheet(stylesheet);
+        stylesheet.setUsingFsNamedDestination(_usingFsNamedDestination);
 
         return stylesheet;
     }
@@ -1340,7 +1343,8 @@ public class CSSParser {
 
                     if (valid) {
                         if (cssName == CSSName.FS_NAMED_DESTINATION && values.stream().anyMatch(propertyValue -> IdentValue.valueOf(propertyValue.getStringValue()) == IdentValue.CREATE)) {
-                            ThreadCtx.get().sharedContext().setUsingFsNamedDestination(true);
+                            ruleset.setUsingFsNamedDestination(true);
+                            _usingFsNamedDestination = true;
                         }
 
                         try {
@@ -34,6 +34,7 @@ public class Ruleset {
     private final List<PropertyDeclaration> _props;
     private final List<Selector> _fsSelectors;
     private List<InvalidPropertyDeclaration> _invalidProperties;
+    private boolean _usingFsNamedDestination;
 
     public Ruleset(int orig) {
         _origin = orig;
@@ -105,4 +106,15 @@ public class Ruleset {
     public List<InvalidPropertyDeclaration> getInvalidPropertyDeclarations() {
         return _invalidProperties == null ? Collections.emptyList() : _invalidProperties;
     }
+
+    /**
+     * Whether this ruleset has a <code>-fs-named-destination: create</code> declaration.
+     */
+    public boolean isUsingFsNamedDestination() {
+        return _usingFsNamedDestination;
+    }
+
+    public void setUsingFsNamedDestination(boolean usingFsNamedDestination) {
+        _usingFsNamedDestination = usingFsNamedDestination;
+    }
 }
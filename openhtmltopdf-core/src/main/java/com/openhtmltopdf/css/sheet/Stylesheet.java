@@ -51,6 +51,8 @@ public class Stylesheet implements RulesetContainer {
      */
     private final List<Object> _contents = new ArrayList<>();
 
+    private boolean _usingFsNamedDestination;
+
     /**
      * Creates a new instance of Stylesheet
      *
@@ -116,6 +118,18 @@ public class Stylesheet implements RulesetContainer {
     public List<FontFaceRule> getFontFaceRules() {
         return _fontFaceRules;
     }
+
+    /**
+     * Whether any rule of this sheet has a <code>-fs-named-destination: create</code>
+     * declaration. Kept with the sheet, as a cached sheet is not parsed again.
+     */
+    public boolean isUsingFsNamedDestination() {
+        return _usingFsNamedDestination;
+    }
+
+    public void setUsingFsNamedDestination(boolean usingFsNamedDestination) {
+        _usingFsNamedDestination = usingFsNamedDestination;
+    }
 }
 
 /*
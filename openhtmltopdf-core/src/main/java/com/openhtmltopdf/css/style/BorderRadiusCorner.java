@@ -7,6 +7,11 @@ import com.openhtmltopdf.css.style.derived.LengthValue;
 import com.openhtmltopdf.css.style.derived.ListValue;
 
 public class BorderRadiusCorner {
+	/**
+	 * A corner without radius. Corners are not changed once created, so this is
+	 * shared by the borders of every box without a border radius.
+	 */
+	public static final BorderRadiusCorner NO_RADIUS = new BorderRadiusCorner();
 	
 	private boolean _leftPercent = false;
 	private boolean _rightPercent = false;
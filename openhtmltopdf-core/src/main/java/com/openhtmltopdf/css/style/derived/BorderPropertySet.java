@@ -86,10 +86,10 @@ public class BorderPropertySet extends RectPropertySet {
         this._bottom = bottom;
         this._left = left;
 
-        this._topLeft = new BorderRadiusCorner();
-        this._topRight = new BorderRadiusCorner();
-        this._bottomLeft = new BorderRadiusCorner();
-        this._bottomRight = new BorderRadiusCorner();
+        this._topLeft = BorderRadiusCorner.NO_RADIUS;
+        this._topRight = BorderRadiusCorner.NO_RADIUS;
+        this._bottomLeft = BorderRadiusCorner.NO_RADIUS;
+        this._bottomRight = BorderRadiusCorner.NO_RADIUS;
     }
 
     public BorderPropertySet(
@@ -115,10 +115,10 @@ public class BorderPropertySet extends RectPropertySet {
         this._bottomColor = bottom.color();
         this._leftColor = left.color();
 
-        this._topLeft = new BorderRadiusCorner();
-        this._topRight = new BorderRadiusCorner();
-        this._bottomLeft = new BorderRadiusCorner();
-        this._bottomRight = new BorderRadiusCorner(); 
+        this._topLeft = BorderRadiusCorner.NO_RADIUS;
+        this._topRight = BorderRadiusCorner.NO_RADIUS;
+        this._bottomLeft = BorderRadiusCorner.NO_RADIUS;
+        this._bottomRight = BorderRadiusCorner.NO_RADIUS;
     }
 
     private BorderPropertySet(
@@ -23,15 +23,22 @@ package com.openhtmltopdf.layout;
 import java.awt.Dimension;
 import java.util.List;
 import java.util.TreeSet;
+import java.util.logging.Level;
 
 import com.openhtmltopdf.css.constants.CSSName;
 import com.openhtmltopdf.css.constants.IdentValue;
+import com.openhtmltopdf.css.style.CalculatedStyle;
 import com.openhtmltopdf.layout.LayoutContext.BlockBoxingState;
+import com.openhtmltopdf.newtable.TableBox;
 import com.openhtmltopdf.render.BlockBox;
 import com.openhtmltopdf.render.Box;
+import com.openhtmltopdf.render.FlowingColumnContainerBox;
+import com.openhtmltopdf.render.InlineLayoutBox;
 import com.openhtmltopdf.render.LineBox;
 import com.openhtmltopdf.render.PageBox;
 import com.openhtmltopdf.render.BlockBox.ContentType;
+import com.openhtmltopdf.util.LogMessageId;
+import com.openhtmltopdf.util.XRLog;
 
 /**
  * Utility class for laying block content.  It is called when a block box
@@ -42,6 +49,10 @@ import com.openhtmltopdf.render.BlockBox.ContentType;
  * of boxes will be layed out again.  If the rule still cannot be satisfied,
  * the rule will be dropped.
  * <br><br>
+ * When a run is layed out again, boxes that were layed out clear of any page break
+ * and whose content does not depend on their page position are moved rather
+ * than layed out again, see {@link #isPagePositionIndependent(LayoutContext, Box)}.
+ * <br><br>
  * IMPORTANT: This is quite hard to get right without causing an explosion of layouts
  * caused by re-attempts to satisfy page-break-inside: avoid in deeply nested content.
  * Please be careful when editing these functions.
@@ -103,7 +114,7 @@ public class BlockBoxing {
             }
 
             // Our first try at layout with no page clear beforehand.
-            layoutBlockChild(
+            int pageClearDelta = layoutBlockChild(
                     c, block, child, false, childOffset, NO_PAGE_TRIM, savedChildLayoutState);
 
             if (c.isPrint()) {
@@ -121,7 +132,7 @@ public class BlockBoxing {
 
                         c.setBlockBoxingState(BlockBoxingState.DENY);
                         // Our second attempt with page clear beforehand.
-                        layoutBlockChild(
+                        pageClearDelta = layoutBlockChild(
                                 c, block, child, true, childOffset, pageCount, savedChildLayoutState);
                         c.setBlockBoxingState(enterState);
 
@@ -133,7 +144,7 @@ public class BlockBoxing {
 
                             c.setBlockBoxingState(BlockBoxingState.ALLOW);
                             // Our second attempt failed, so reset with no page break beforehand.
-                            layoutBlockChild(
+                            pageClearDelta = layoutBlockChild(
                                     c, block, child, false, childOffset, pageCount, savedChildLayoutState);
                         }
 
@@ -144,6 +155,7 @@ public class BlockBoxing {
                     }
                 }
 
+                relayoutDataList.setPageClearDelta(offset, pageClearDelta);
                 c.getRootLayer().ensureHasPage(c, child);
             }
 
@@ -226,14 +238,12 @@ public class BlockBoxing {
                 int newChildOffset;
 
                 if ( isPageBreakBetweenChildBoxes(relayoutDataList, runStart, runEnd, c, block) ) {
-                    block.resetChildren(c, runStart, offset);
-
+                    // NOTE: relayoutRun resets the boxes it lays out again.
                     newChildOffset = relayoutRun(
                             c, localChildren, block,
                             relayoutDataList, runStart, offset, true);
 
                     if ( isPageBreakBetweenChildBoxes(relayoutDataList, runStart, runEnd, c, block) ) {
-                        block.resetChildren(c, runStart, offset);
                         newChildOffset = relayoutRun(
                                 c, localChildren, block,
                                 relayoutDataList, runStart, offset, false);
@@ -281,6 +291,11 @@ public class BlockBoxing {
     private static int relayoutRun(
             LayoutContext c, List<Box> localChildren, BlockBox block,
             AbstractRelayoutDataList relayoutDataList, int start, int end, boolean onNewPage) {
+        // The state after the last box in the run, for if it is moved
+        // rather than layed out again.
+        LayoutState endState = c.copyStateForRelayout();
+        boolean[] movable = resetRun(c, localChildren, relayoutDataList, start, end);
+
         int childOffset = relayoutDataList.getChildOffset(start);
 
         if (onNewPage) {
@@ -299,42 +314,25 @@ public class BlockBoxing {
             LayoutState restoredChildLayoutState = relayoutDataList.getLayoutState(i);
             c.restoreStateForRelayout(restoredChildLayoutState);
 
+            int previousChildOffset = relayoutDataList.getChildOffset(i);
             relayoutDataList.setChildOffset(i, childOffset);
-            boolean mayCheckKeepTogether = false;
 
-            if ((child.getStyle().isAvoidPageBreakInside() || child.getStyle().isKeepWithInline())
-                    && c.isMayCheckKeepTogether()) {
-                mayCheckKeepTogether = true;
-                c.setMayCheckKeepTogether(false);
-            }
+            if (movable[i - start] &&
+                moveBlockChild(c, child, childOffset - previousChildOffset)) {
 
-            layoutBlockChild(
-                    c, block, child, false, childOffset, NO_PAGE_TRIM, restoredChildLayoutState);
+                XRLog.log(Level.FINE, LogMessageId.LogMessageId0Param.LAYOUT_MOVED_BOX_OF_PAGE_BREAK_AVOID_RUN);
 
-            if (mayCheckKeepTogether) {
-                c.setMayCheckKeepTogether(true);
-
-                boolean tryToAvoidPageBreak =
-                    child.getStyle().isAvoidPageBreakInside() && child.crossesPageBreak(c);
-
-                boolean needPageClear = child.isNeedPageClear();
-                boolean keepWithInline = child.isNeedsKeepWithInline(c);
-
-                if (tryToAvoidPageBreak || needPageClear || keepWithInline) {
-                    c.restoreStateForRelayout(restoredChildLayoutState);
+                if (i == end) {
+                    c.restoreStateForRelayout(endState);
+                }
+            } else {
+                if (movable[i - start]) {
                     child.reset(c);
-
-                    layoutBlockChild(
-                            c, block, child, true, childOffset, pageCount, restoredChildLayoutState);
-
-                    if (tryToAvoidPageBreak && child.crossesPageBreak(c) && ! keepWithInline) {
-                        c.restoreStateForRelayout(restoredChildLayoutState);
-                        child.reset(c);
-
-                        layoutBlockChild(
-                                c, block, child, false, childOffset, pageCount, restoredChildLayoutState);
-                    }
                 }
+
+                int pageClearDelta =
+                        relayoutBlockChild(c, block, child, childOffset, pageCount, restoredChildLayoutState);
+                relayoutDataList.setPageClearDelta(i, pageClearDelta);
             }
 
             c.getRootLayer().ensureHasPage(c, child);
@@ -360,21 +358,179 @@ public class BlockBoxing {
         return childOffset;
     }
 
-    private static void layoutBlockChild(
+    /**
+     * Resets the boxes of a run that can not be moved, before any box of the run is layed out
+     * again, so that for example their floats are not in the way.
+     * @return which boxes of the run may be moved rather than layed out again.
+     */
+    private static boolean[] resetRun(
+            LayoutContext c, List<Box> localChildren,
+            AbstractRelayoutDataList relayoutDataList, int start, int end) {
+        boolean[] movable = new boolean[end - start + 1];
+
+        for (int i = start; i <= end; i++) {
+            BlockBox child = (BlockBox) localChildren.get(i);
+
+            movable[i - start] =
+                    relayoutDataList.getPageClearDelta(i) == 0 &&
+                    !child.crossesPageBreak(c) &&
+                    isPagePositionIndependent(c, child);
+
+            if (!movable[i - start]) {
+                child.reset(c);
+            }
+        }
+
+        return movable;
+    }
+
+    /**
+     * Lays out a box of a run again.
+     * @return how far the box was moved down to a new page before layout.
+     */
+    private static int relayoutBlockChild(
+            LayoutContext c, BlockBox block, BlockBox child,
+            int childOffset, int pageCount, LayoutState restoredChildLayoutState) {
+        boolean mayCheckKeepTogether = false;
+
+        if ((child.getStyle().isAvoidPageBreakInside() || child.getStyle().isKeepWithInline())
+                && c.isMayCheckKeepTogether()) {
+            mayCheckKeepTogether = true;
+            c.setMayCheckKeepTogether(false);
+        }
+
+        int pageClearDelta = layoutBlockChild(
+                c, block, child, false, childOffset, NO_PAGE_TRIM, restoredChildLayoutState);
+
+        if (mayCheckKeepTogether) {
+            c.setMayCheckKeepTogether(true);
+
+            boolean tryToAvoidPageBreak =
+                child.getStyle().isAvoidPageBreakInside() && child.crossesPageBreak(c);
+
+            boolean needPageClear = child.isNeedPageClear();
+            boolean keepWithInline = child.isNeedsKeepWithInline(c);
+
+            if (tryToAvoidPageBreak || needPageClear || keepWithInline) {
+                c.restoreStateForRelayout(restoredChildLayoutState);
+                child.reset(c);
+
+                pageClearDelta = layoutBlockChild(
+                        c, block, child, true, childOffset, pageCount, restoredChildLayoutState);
+
+                if (tryToAvoidPageBreak && child.crossesPageBreak(c) && ! keepWithInline) {
+                    c.restoreStateForRelayout(restoredChildLayoutState);
+                    child.reset(c);
+
+                    pageClearDelta = layoutBlockChild(
+                            c, block, child, false, childOffset, pageCount, restoredChildLayoutState);
+                }
+            }
+        }
+
+        return pageClearDelta;
+    }
+
+    /**
+     * Moves an already layed out box vertically, if the result is the same as laying it out
+     * again at the new position. That is the case if it still does not cross a page break
+     * and no float is beside it in either position.
+     * @return false if the box must be layed out again.
+     */
+    private static boolean moveBlockChild(LayoutContext c, BlockBox child, int delta) {
+        if (c.getPageName() != null) {
+            // A change of named page may move the box to a new page.
+            return false;
+        }
+
+        FloatManager floatManager = c.getBlockFormattingContext().getFloatManager();
+
+        if (!floatManager.getFloats(FloatManager.FloatDirection.LEFT).isEmpty() ||
+            !floatManager.getFloats(FloatManager.FloatDirection.RIGHT).isEmpty()) {
+            int bfcTop = child.getY() - c.getBlockFormattingContext().getOffset().y;
+
+            if (floatManager.getClearDelta(c, Math.min(bfcTop, bfcTop + delta)) > 0) {
+                return false;
+            }
+        }
+
+        child.setY(child.getY() + delta);
+        child.calcCanvasLocation();
+        child.calcChildLocations();
+
+        return !child.crossesPageBreak(c);
+    }
+
+    /**
+     * Whether a box and its descendants would be layed out the same anywhere on a page,
+     * as long as they do not cross a page break. This rules out boxes that are
+     * registered with their position elsewhere (floats, layers, running and footnote content),
+     * boxes that are layed out against the page (tables, columns) and boxes with
+     * page related properties.
+     */
+    private static boolean isPagePositionIndependent(LayoutContext c, Box box) {
+        if (box instanceof TableBox ||
+            box instanceof FlowingColumnContainerBox ||
+            box.getLayer() != null) {
+            return false;
+        }
+
+        CalculatedStyle style = box.getStyle();
+
+        if (style != null &&
+            (style.isRunning() ||
+             style.isPostionedOrFloated() ||
+             style.isFootnote() ||
+             style.isFootnoteBody() ||
+             style.isForcePageBreakBefore() ||
+             style.isForcePageBreakAfter() ||
+             !style.isIdent(CSSName.PAGE, IdentValue.AUTO) ||
+             style.getFSPageBreakMinHeight(c) != 0)) {
+            return false;
+        }
+
+        if (box instanceof LineBox &&
+            !((LineBox) box).getNonFlowContent().isEmpty()) {
+            return false;
+        }
+
+        if (box instanceof InlineLayoutBox) {
+            for (Object child : ((InlineLayoutBox) box).getInlineChildren()) {
+                if (child instanceof Box &&
+                    !isPagePositionIndependent(c, (Box) child)) {
+                    return false;
+                }
+            }
+        }
+
+        for (int i = 0; i < box.getChildCount(); i++) {
+            if (!isPagePositionIndependent(c, box.getChild(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @return how far the box was moved down to a new page before layout.
+     */
+    private static int layoutBlockChild(
             LayoutContext c, BlockBox parent, BlockBox child,
             boolean needPageClear, int childOffset, int trimmedPageCount, LayoutState layoutState) {
-        layoutBlockChild0(c, parent, child, needPageClear, childOffset, trimmedPageCount);
+        int pageClearDelta = layoutBlockChild0(c, parent, child, needPageClear, childOffset, trimmedPageCount);
         BreakAtLineContext bContext = child.calcBreakAtLineContext(c);
         if (bContext != null) {
             c.setBreakAtLineContext(bContext);
             c.restoreStateForRelayout(layoutState);
             child.reset(c);
-            layoutBlockChild0(c, parent, child, needPageClear, childOffset, trimmedPageCount);
+            pageClearDelta = layoutBlockChild0(c, parent, child, needPageClear, childOffset, trimmedPageCount);
             c.setBreakAtLineContext(null);
         }
+        return pageClearDelta;
     }
 
-    private static void layoutBlockChild0(LayoutContext c, BlockBox parent, BlockBox child,
+    private static int layoutBlockChild0(LayoutContext c, BlockBox parent, BlockBox child,
             boolean needPageClear, int childOffset, int trimmedPageCount) {
         child.setNeedPageClear(needPageClear);
 
@@ -384,12 +540,18 @@ public class BlockBoxing {
         child.calcCanvasLocation();
 
         c.translate(0, childOffset);
-        repositionBox(c, child, trimmedPageCount);
+        int pageClearDelta = repositionBox(c, child, trimmedPageCount);
         child.layout(c);
         c.translate(-child.getX(), -child.getY());
+
+        return pageClearDelta;
     }
 
-    private static void repositionBox(LayoutContext c, BlockBox child, int trimmedPageCount) {
+    /**
+     * @return how far the box was moved down to a new page.
+     */
+    private static int repositionBox(LayoutContext c, BlockBox child, int trimmedPageCount) {
+        int pageClearDelta = 0;
         boolean moved = false;
         if (child.getStyle().isRelative()) {
             Dimension delta = child.positionRelative(c);
@@ -413,12 +575,14 @@ public class BlockBoxing {
                         needNewPageContext);
                 c.translate(0, delta);
                 moved = true;
+                pageClearDelta = delta;
                 child.setNeedPageClear(false);
             }
         }
         if (moved) {
             child.calcCanvasLocation();
         }
+        return pageClearDelta;
     }
 
     /**
@@ -442,6 +606,13 @@ public class BlockBoxing {
         abstract void setLayoutState(int boxIndex, LayoutState state);
         abstract void setChildOffset(int boxIndex, int childOffset);
 
+        /**
+         * How far the box was moved down to a new page before it was last layed out,
+         * so that it can be moved from where the flow would have put it.
+         */
+        abstract int getPageClearDelta(int boxIndex);
+        abstract void setPageClearDelta(int boxIndex, int pageClearDelta);
+
         abstract int getRunStart(int endRunIndex);
 
         abstract boolean isEndsRun(int boxIndex);
@@ -452,6 +623,7 @@ public class BlockBoxing {
     private static class LiteRelayoutDataList extends AbstractRelayoutDataList {
         final int[] childOffsets;
         final LayoutState[] layoutStates;
+        final int[] pageClearDeltas;
 
         TreeSet<Integer> runStarts;
         TreeSet<Integer> runEnds;
@@ -459,6 +631,7 @@ public class BlockBoxing {
         LiteRelayoutDataList(int size) {
             childOffsets = new int[size];
             layoutStates = new LayoutState[size];
+            pageClearDeltas = new int[size];
         }
 
         @Override
@@ -481,6 +654,16 @@ public class BlockBoxing {
             childOffsets[boxIndex] = childOffset;
         }
 
+        @Override
+        int getPageClearDelta(int boxIndex) {
+            return pageClearDeltas[boxIndex];
+        }
+
+        @Override
+        void setPageClearDelta(int boxIndex, int pageClearDelta) {
+            pageClearDeltas[boxIndex] = pageClearDelta;
+        }
+
         @Override
         boolean isEndsRun(int boxIndex) {
             return runEnds != null && runEnds.contains(boxIndex);
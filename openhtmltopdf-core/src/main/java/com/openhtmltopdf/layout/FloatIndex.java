@@ -0,0 +1,209 @@
+package com.openhtmltopdf.layout;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.openhtmltopdf.css.style.CssContext;
+import com.openhtmltopdf.layout.FloatManager.BoxOffset;
+import com.openhtmltopdf.render.BlockBox;
+
+/**
+ * The floats of one direction in a block formatting context, in the order
+ * they were floated, indexed by their vertical extent so that a line box only has
+ * to look at the floats it may actually intersect.
+ * <p>
+ * Bounds are margin edges relative to the block formatting context, captured when
+ * the float is added. Floats are removed (on reset) and added again when they are
+ * moved during layout. Code that moves floats directly, such as column layout, must
+ * call {@link #updateBounds(CssContext)} afterwards.
+ * <p>
+ * A float may not be placed higher than an earlier float so tops are normally
+ * non-decreasing, which allows a binary search for the floats that start above
+ * the bottom of a query. A segment tree of the maximum bottom over insertion order
+ * then skips the runs of floats that end above the top of a query.
+ */
+class FloatIndex {
+    private final List<BoxOffset> _floats = new ArrayList<>();
+    private Rectangle[] _bounds = new Rectangle[8];
+
+    /**
+     * Max bottom segment tree, root at 1, leaves at [_capacity, 2 * _capacity).
+     */
+    private int[] _maxBottom = newTree(8);
+    private boolean _topsSorted = true;
+
+    List<BoxOffset> getFloats() {
+        return _floats;
+    }
+
+    void add(BoxOffset floater, Rectangle bounds) {
+        int i = _floats.size();
+
+        if (i == _bounds.length) {
+            _bounds = Arrays.copyOf(_bounds, i * 2);
+            _maxBottom = newTree(i * 2);
+            rebuildTree();
+        }
+
+        if (i > 0 && bounds.y < _bounds[i - 1].y) {
+            _topsSorted = false;
+        }
+
+        _floats.add(floater);
+        _bounds[i] = bounds;
+        setBottom(i, bounds.y + bounds.height);
+    }
+
+    /**
+     * Removes all entries for the floated box.
+     * @return whether any entry was removed.
+     */
+    boolean remove(BlockBox floater) {
+        int size = _floats.size();
+        int kept = 0;
+
+        for (int i = 0; i < size; i++) {
+            if (!_floats.get(i).getBox().equals(floater)) {
+                _floats.set(kept, _floats.get(i));
+                _bounds[kept] = _bounds[i];
+                kept++;
+            }
+        }
+
+        if (kept == size) {
+            return false;
+        }
+
+        _floats.subList(kept, size).clear();
+        Arrays.fill(_bounds, kept, size, null);
+        rebuild();
+        return true;
+    }
+
+    /**
+     * Recaptures the bounds of all floats after they have been moved.
+     */
+    void updateBounds(CssContext cssCtx) {
+        if (_floats.isEmpty()) {
+            return;
+        }
+
+        for (int i = 0; i < _floats.size(); i++) {
+            BoxOffset floater = _floats.get(i);
+            _bounds[i] = floater.getBox().getMarginEdge(cssCtx, -floater.getX(), -floater.getY());
+        }
+        rebuild();
+    }
+
+    /**
+     * The lowest margin edge bottom of all floats or zero if there are none.
+     */
+    int getLowestY() {
+        return _floats.isEmpty() ? 0 : _maxBottom[1];
+    }
+
+    boolean intersectsAny(Rectangle query) {
+        return visitIntersecting(query, (floater, bounds) -> true);
+    }
+
+    /**
+     * Visits, in the order they were floated, the floats whose bounds
+     * intersect query until the visitor returns true.
+     * @return whether the visitor returned true.
+     */
+    boolean visitIntersecting(Rectangle query, FloatVisitor visitor) {
+        if (_floats.isEmpty() || query.width <= 0 || query.height <= 0) {
+            return false;
+        }
+
+        int limit = _topsSorted ? firstTopAtOrBelow(query.y + query.height) : _floats.size();
+        int capacity = _maxBottom.length / 2;
+
+        return visit(1, 0, capacity, limit, query, visitor);
+    }
+
+    private boolean visit(int node, int lo, int hi, int limit, Rectangle query, FloatVisitor visitor) {
+        if (lo >= limit || _maxBottom[node] <= query.y) {
+            return false;
+        }
+
+        if (hi - lo == 1) {
+            Rectangle bounds = _bounds[lo];
+            return bounds.intersects(query) && visitor.visit(_floats.get(lo), bounds);
+        }
+
+        int mid = (lo + hi) >>> 1;
+
+        return visit(node * 2, lo, mid, limit, query, visitor) ||
+               visit(node * 2 + 1, mid, hi, limit, query, visitor);
+    }
+
+    /**
+     * Binary search for the first float (in sorted mode) whose top is at or below y.
+     */
+    private int firstTopAtOrBelow(int y) {
+        int lo = 0;
+        int hi = _floats.size();
+
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (_bounds[mid].y < y) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+
+        return lo;
+    }
+
+    private void rebuild() {
+        _topsSorted = true;
+        for (int i = 1; i < _floats.size(); i++) {
+            if (_bounds[i].y < _bounds[i - 1].y) {
+                _topsSorted = false;
+                break;
+            }
+        }
+
+        Arrays.fill(_maxBottom, Integer.MIN_VALUE);
+        rebuildTree();
+    }
+
+    private void rebuildTree() {
+        int capacity = _maxBottom.length / 2;
+
+        for (int i = 0; i < _floats.size(); i++) {
+            _maxBottom[capacity + i] = _bounds[i].y + _bounds[i].height;
+        }
+
+        for (int node = capacity - 1; node >= 1; node--) {
+            _maxBottom[node] = Math.max(_maxBottom[node * 2], _maxBottom[node * 2 + 1]);
+        }
+    }
+
+    private void setBottom(int index, int bottom) {
+        int node = _maxBottom.length / 2 + index;
+        _maxBottom[node] = bottom;
+
+        for (node /= 2; node >= 1; node /= 2) {
+            _maxBottom[node] = Math.max(_maxBottom[node * 2], _maxBottom[node * 2 + 1]);
+        }
+    }
+
+    private static int[] newTree(int capacity) {
+        int[] tree = new int[capacity * 2];
+        Arrays.fill(tree, Integer.MIN_VALUE);
+        return tree;
+    }
+
+    @FunctionalInterface
+    interface FloatVisitor {
+        /**
+         * @return true to stop visiting.
+         */
+        boolean visit(BoxOffset floater, Rectangle bounds);
+    }
+}
@@ -22,8 +22,6 @@ package com.openhtmltopdf.layout;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 import java.util.stream.Stream;
 
@@ -44,9 +42,14 @@ public class FloatManager {
         RIGHT;
     }
 
-    /* Lazily created for performance. */
-    private List<BoxOffset> _leftFloats = Collections.emptyList();
-    private List<BoxOffset> _rightFloats = Collections.emptyList();
+    /**
+     * Lazily created for performance, a float free block formatting context
+     * uses the shared empty index which is never added to.
+     */
+    private static final FloatIndex NO_FLOATS = new FloatIndex();
+
+    private FloatIndex _leftFloats = NO_FLOATS;
+    private FloatIndex _rightFloats = NO_FLOATS;
 
     private final Box _master;
 
@@ -54,50 +57,56 @@ public class FloatManager {
         this._master = master;
     }
 
-    private List<BoxOffset> getAddableFloats(FloatDirection direction) {
-        if (getFloats(direction).isEmpty()) {
-            setFloats(direction, new ArrayList<>());
+    private FloatIndex getAddableFloats(FloatDirection direction) {
+        if (getIndex(direction) == NO_FLOATS) {
+            if (direction == FloatDirection.LEFT) {
+                _leftFloats = new FloatIndex();
+            } else {
+                assert direction == FloatDirection.RIGHT;
+                _rightFloats = new FloatIndex();
+            }
         }
 
-        return getFloats(direction);
+        return getIndex(direction);
     }
 
-    private void setFloats(FloatDirection direction, List<BoxOffset> list) {
-        if (direction == FloatDirection.LEFT) {
-            _leftFloats = list;
-        } else {
-            assert direction == FloatDirection.RIGHT;
-            _rightFloats = list;
-        }
+    private FloatIndex getIndex(FloatDirection direction) {
+        return direction == FloatDirection.LEFT ? _leftFloats : _rightFloats;
+    }
+
+    private FloatIndex getOpposingIndex(FloatDirection direction) {
+        return direction == FloatDirection.LEFT ? _rightFloats : _leftFloats;
     }
 
     public void floatBox(LayoutContext c, Layer layer, BlockFormattingContext bfc, BlockBox box) {
         if (box.getStyle().isFloatedLeft()) {
             position(c, bfc, box, FloatDirection.LEFT);
-            save(box, layer, bfc, FloatDirection.LEFT);
+            save(c, box, layer, bfc, FloatDirection.LEFT);
         } else if (box.getStyle().isFloatedRight()) {
             position(c, bfc, box, FloatDirection.RIGHT);
-            save(box, layer, bfc, FloatDirection.RIGHT);
+            save(c, box, layer, bfc, FloatDirection.RIGHT);
         }
     }
 
     public void clear(CssContext cssCtx, BlockFormattingContext bfc, Box box) {
         if (box.getStyle().isClearLeft()) {
-            moveClear(cssCtx, bfc, box, getFloats(FloatDirection.LEFT));
+            moveClear(cssCtx, bfc, box, _leftFloats);
         }
         if (box.getStyle().isClearRight()) {
-            moveClear(cssCtx, bfc, box, getFloats(FloatDirection.RIGHT));
+            moveClear(cssCtx, bfc, box, _rightFloats);
         }
     }
 
     private void save(
+            CssContext cssCtx,
             BlockBox current,
             Layer layer,
             BlockFormattingContext bfc,
             FloatDirection direction) {
 
         Point p = bfc.getOffset();
-        getAddableFloats(direction).add(new BoxOffset(current, p.x, p.y));
+        getAddableFloats(direction).add(
+                new BoxOffset(current, p.x, p.y), current.getMarginEdge(cssCtx, -p.x, -p.y));
         layer.addFloat(current, bfc);
 
         current.getFloatedBoxData().setManager(this);
@@ -113,15 +122,15 @@ public class FloatManager {
         alignToLastFloat(cssCtx, bfc, current, direction);
 
         if (!fitsInContainingBlock(current) ||
-                overlaps(cssCtx, bfc, current, getFloats(direction))) {
+                overlaps(cssCtx, bfc, current, getIndex(direction))) {
             moveAllTheWayOver(current, direction);
-            moveFloatBelow(cssCtx, bfc, current, getFloats(direction));
+            moveFloatBelow(cssCtx, bfc, current, getIndex(direction));
         }
 
-        if (overlaps(cssCtx, bfc, current, getOpposingFloats(direction))) {
+        if (overlaps(cssCtx, bfc, current, getOpposingIndex(direction))) {
             moveAllTheWayOver(current, direction);
-            moveFloatBelow(cssCtx, bfc, current, getFloats(direction));
-            moveFloatBelow(cssCtx, bfc, current, getOpposingFloats(direction));
+            moveFloatBelow(cssCtx, bfc, current, getIndex(direction));
+            moveFloatBelow(cssCtx, bfc, current, getOpposingIndex(direction));
         }
 
         if (current.getStyle().isCleared()) {
@@ -130,12 +139,12 @@ public class FloatManager {
             } else if (current.getStyle().isClearRight() && direction == FloatDirection.RIGHT) {
                 moveAllTheWayOver(current, FloatDirection.RIGHT);
             }
-            moveFloatBelow(cssCtx, bfc, current, getFloats(direction));
+            moveFloatBelow(cssCtx, bfc, current, getIndex(direction));
         }
     }
 
     public List<BoxOffset> getFloats(FloatDirection direction) {
-        return direction == FloatDirection.LEFT ? _leftFloats : _rightFloats;
+        return getIndex(direction).getFloats();
     }
 
     public Stream<BoxOffset> getFloatStream(FloatDirection direction) {
@@ -143,7 +152,7 @@ public class FloatManager {
     }
 
     private List<BoxOffset> getOpposingFloats(FloatDirection direction) {
-        return direction == FloatDirection.LEFT ? _rightFloats : _leftFloats;
+        return getOpposingIndex(direction).getFloats();
     }
 
     private void alignToLastFloat(
@@ -225,18 +234,9 @@ public class FloatManager {
                 (current.getX() + current.getWidth()) <= current.getContainingBlock().getContentWidth();
     }
 
-    private int findLowestY(CssContext cssCtx, List<BoxOffset> floats) {
-        return floats
-               .stream()
-               .map(floater -> floater.getBox().getMarginEdge(cssCtx, -floater.getX(), -floater.getY()))
-               .mapToInt(bounds -> bounds.y + bounds.height)
-               .max()
-               .orElse(0);
-    }
-
     public int getClearDelta(CssContext cssCtx, int bfcRelativeY) {
-        int lowestLeftY = findLowestY(cssCtx, getFloats(FloatDirection.LEFT));
-        int lowestRightY = findLowestY(cssCtx, getFloats(FloatDirection.RIGHT));
+        int lowestLeftY = _leftFloats.getLowestY();
+        int lowestRightY = _rightFloats.getLowestY();
 
         int lowestY = Math.max(lowestLeftY, lowestRightY);
 
@@ -244,25 +244,22 @@ public class FloatManager {
     }
 
     private boolean overlaps(CssContext cssCtx, BlockFormattingContext bfc,
-                             BlockBox current, List<BoxOffset> floats) {
+                             BlockBox current, FloatIndex floats) {
         Point offset = bfc.getOffset();
         Rectangle bounds = current.getMarginEdge(cssCtx, -offset.x, -offset.y);
 
-        return floats
-               .stream()
-               .map(floater -> floater.getBox().getMarginEdge(cssCtx, -floater.getX(), -floater.getY()))
-               .anyMatch(floaterBounds -> floaterBounds.intersects(bounds));
+        return floats.intersectsAny(bounds);
     }
 
     private void moveFloatBelow(CssContext cssCtx, BlockFormattingContext bfc,
-                                   Box current, List<BoxOffset> floats) {
-        if (floats.isEmpty()) {
+                                   Box current, FloatIndex floats) {
+        if (floats.getFloats().isEmpty()) {
             return;
         }
 
         Point offset = bfc.getOffset();
         int boxY = current.getY() - offset.y;
-        int floatY = findLowestY(cssCtx, floats);
+        int floatY = floats.getLowestY();
 
         if (floatY - boxY > 0) {
             current.setY(current.getY() + (floatY - boxY));
@@ -270,8 +267,8 @@ public class FloatManager {
     }
 
     private void moveClear(CssContext cssCtx, BlockFormattingContext bfc,
-                           Box current, List<BoxOffset> floats) {
-        if (floats.isEmpty()) {
+                           Box current, FloatIndex floats) {
+        if (floats.getFloats().isEmpty()) {
             return;
         }
 
@@ -280,7 +277,7 @@ public class FloatManager {
         Rectangle bounds = current.getBorderEdge(
                 current.getX()-offset.x, current.getY()-offset.y, cssCtx);
 
-        int y = findLowestY(cssCtx, floats);
+        int y = floats.getLowestY();
 
         if (bounds.y < y) {
             // Translate bottom margin edge of lowest float back to box coords
@@ -294,20 +291,25 @@ public class FloatManager {
     }
 
     public void removeFloat(BlockBox floater) {
-        removeFloat(floater, getFloats(FloatDirection.LEFT));
-        removeFloat(floater, getFloats(FloatDirection.RIGHT));
+        removeFloat(floater, _leftFloats);
+        removeFloat(floater, _rightFloats);
     }
 
-    private void removeFloat(BlockBox floater, List<BoxOffset> floats) {
-        for (Iterator<BoxOffset> i = floats.iterator(); i.hasNext();) {
-            BoxOffset boxOffset = i.next();
-            if (boxOffset.getBox().equals(floater)) {
-                i.remove();
-                floater.getFloatedBoxData().setManager(null);
-            }
+    private void removeFloat(BlockBox floater, FloatIndex floats) {
+        if (floats.remove(floater)) {
+            floater.getFloatedBoxData().setManager(null);
         }
     }
 
+    /**
+     * Must be called after floats have been moved directly, rather than
+     * by being reset and floated again.
+     */
+    public void updateFloatBounds(CssContext cssCtx) {
+        _leftFloats.updateBounds(cssCtx);
+        _rightFloats.updateBounds(cssCtx);
+    }
+
     public void calcFloatLocations() {
         calcFloatLocations(getFloats(FloatDirection.LEFT));
         calcFloatLocations(getFloats(FloatDirection.RIGHT));
@@ -331,8 +333,8 @@ public class FloatManager {
 
     public int getNextLineBoxDelta(CssContext cssCtx, BlockFormattingContext bfc,
             LineBox line, int containingBlockContentWidth) {
-        BoxDistance left = getFloatDistance(cssCtx, bfc, line, containingBlockContentWidth, getFloats(FloatDirection.LEFT), FloatDirection.LEFT);
-        BoxDistance right = getFloatDistance(cssCtx, bfc, line, containingBlockContentWidth, getFloats(FloatDirection.RIGHT), FloatDirection.RIGHT);
+        BoxDistance left = getFloatDistance(cssCtx, bfc, line, containingBlockContentWidth, _leftFloats, FloatDirection.LEFT);
+        BoxDistance right = getFloatDistance(cssCtx, bfc, line, containingBlockContentWidth, _rightFloats, FloatDirection.RIGHT);
 
         int leftDelta = left.getBox() != null ? calcDelta(cssCtx, line, left) : 0;
         int rightDelta = right.getBox() != null ? calcDelta(cssCtx, line, right) : 0;
@@ -355,12 +357,12 @@ public class FloatManager {
 
     public int getLeftFloatDistance(CssContext cssCtx, BlockFormattingContext bfc,
             LineBox line, int containingBlockContentWidth) {
-        return getFloatDistance(cssCtx, bfc, line, containingBlockContentWidth, getFloats(FloatDirection.LEFT), FloatDirection.LEFT).getDistance();
+        return getFloatDistance(cssCtx, bfc, line, containingBlockContentWidth, _leftFloats, FloatDirection.LEFT).getDistance();
     }
 
     public int getRightFloatDistance(CssContext cssCtx, BlockFormattingContext bfc,
             LineBox line, int containingBlockContentWidth) {
-        return getFloatDistance(cssCtx, bfc, line, containingBlockContentWidth, getFloats(FloatDirection.RIGHT), FloatDirection.RIGHT).getDistance();
+        return getFloatDistance(cssCtx, bfc, line, containingBlockContentWidth, _rightFloats, FloatDirection.RIGHT).getDistance();
     }
 
     private BoxDistance getFloatDistance(
@@ -368,10 +370,10 @@ public class FloatManager {
             BlockFormattingContext bfc,
             LineBox line,
             int containingBlockContentWidth,
-            List<BoxOffset> floatsList,
+            FloatIndex floats,
             FloatDirection direction) {
 
-        if (floatsList.isEmpty()) {
+        if (floats.getFloats().isEmpty()) {
             return new BoxDistance(null, 0);
         }
 
@@ -379,30 +381,36 @@ public class FloatManager {
         Rectangle lineBounds = line.getMarginEdge(cssCtx, -offset.x, -offset.y);
         lineBounds.width = containingBlockContentWidth;
 
-        int farthestOver = direction == FloatDirection.LEFT ? lineBounds.x : lineBounds.x + lineBounds.width;
-
         applyLineHeightHack(cssCtx, line, lineBounds);
 
-        BlockBox farthestOverBox = null;
-
-        for (BoxOffset floater : floatsList) {
-            Rectangle fr = floater.getBox().getMarginEdge(cssCtx, -floater.getX(), -floater.getY());
-
-            if (lineBounds.intersects(fr)) {
-                if (direction == FloatDirection.LEFT && fr.x + fr.width > farthestOver) {
-                    farthestOver = fr.x + fr.width;
-                } else if (direction == FloatDirection.RIGHT && fr.x < farthestOver) {
-                    farthestOver = fr.x;
-                }
+        FarthestOver farthest = new FarthestOver(
+                direction == FloatDirection.LEFT ? lineBounds.x : lineBounds.x + lineBounds.width);
 
-                farthestOverBox = floater.getBox();
+        floats.visitIntersecting(lineBounds, (floater, fr) -> {
+            if (direction == FloatDirection.LEFT && fr.x + fr.width > farthest.over) {
+                farthest.over = fr.x + fr.width;
+            } else if (direction == FloatDirection.RIGHT && fr.x < farthest.over) {
+                farthest.over = fr.x;
             }
-        }
+
+            // The last intersecting float, in float order.
+            farthest.box = floater.getBox();
+            return false;
+        });
 
         if (direction == FloatDirection.LEFT) {
-            return new BoxDistance(farthestOverBox, farthestOver - lineBounds.x);
+            return new BoxDistance(farthest.box, farthest.over - lineBounds.x);
         } else {
-            return new BoxDistance(farthestOverBox, lineBounds.x + lineBounds.width - farthestOver);
+            return new BoxDistance(farthest.box, lineBounds.x + lineBounds.width - farthest.over);
+        }
+    }
+
+    private static class FarthestOver {
+        int over;
+        BlockBox box;
+
+        FarthestOver(int over) {
+            this.over = over;
         }
     }
 
@@ -331,15 +331,6 @@ public class Layer {
         return getParent() == null && isStackingContext();
     }
 
-    private void moveIfGreater(Dimension result, Dimension test) {
-        if (test.width > result.width) {
-            result.width = test.width;
-        }
-        if (test.height > result.height) {
-            result.height = test.height;
-        }
-    }
-
     public void positionChildren(LayoutContext c) {
         for (Layer child : getChildren()) {
             child.position(c);
@@ -355,7 +346,7 @@ public class Layer {
                 continue;
             } else if (child.getMaster().getStyle().isAbsolute()) {
                 PaintingInfo info = child.calcPaintingDimension(c);
-                moveIfGreater(result.getOuterMarginCorner(), info.getOuterMarginCorner());
+                result.moveOuterMarginCornerIfGreater(info);
             }
         }
 
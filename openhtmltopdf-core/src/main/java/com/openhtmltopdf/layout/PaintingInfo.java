@@ -28,41 +28,108 @@ import java.awt.Rectangle;
  * and its outer margin corner (which is used to calculate the size of the
  * canvas).  The aggregate bounds calculation does not take the value of the
  * overflow property into account.
+ * <br><br>
+ * Every laid out box keeps one of these, so the values are held as ints rather
+ * than as a {@link Rectangle} and a {@link Dimension}. The getters return copies,
+ * use the methods of this class to change the values.
  */
 public class PaintingInfo {
-    private Dimension _outerMarginCorner;
-    private Rectangle _aggregateBounds;
+    private int _outerMarginCornerWidth;
+    private int _outerMarginCornerHeight;
+
+    private int _aggregateX;
+    private int _aggregateY;
+    private int _aggregateWidth;
+    private int _aggregateHeight;
     
     public PaintingInfo() {
     }
     
+    /**
+     * Returns a copy of the aggregate bounds.
+     */
     public Rectangle getAggregateBounds() {
-        return _aggregateBounds;
+        return new Rectangle(_aggregateX, _aggregateY, _aggregateWidth, _aggregateHeight);
     }
     
     public void setAggregateBounds(Rectangle aggregateBounds) {
-        _aggregateBounds = aggregateBounds;
+        _aggregateX = aggregateBounds.x;
+        _aggregateY = aggregateBounds.y;
+        _aggregateWidth = aggregateBounds.width;
+        _aggregateHeight = aggregateBounds.height;
+    }
+
+    /**
+     * Whether the aggregate bounds contain the point, as {@link Rectangle#contains(int, int)}.
+     */
+    public boolean aggregateBoundsContains(int x, int y) {
+        int w = _aggregateWidth;
+        int h = _aggregateHeight;
+        if ((w | h) < 0) {
+            return false;
+        }
+        if (x < _aggregateX || y < _aggregateY) {
+            return false;
+        }
+        w += _aggregateX;
+        h += _aggregateY;
+        // Overflow as in Rectangle.
+        return ((w < _aggregateX || w > x) &&
+                (h < _aggregateY || h > y));
+    }
+
+    /**
+     * Grows the aggregate bounds to include the aggregate bounds of other,
+     * as {@link Rectangle#add(Rectangle)}.
+     */
+    public void addAggregateBounds(PaintingInfo other) {
+        Rectangle bounds = getAggregateBounds();
+        bounds.add(other.getAggregateBounds());
+        setAggregateBounds(bounds);
     }
     
+    /**
+     * Returns a copy of the outer margin corner.
+     */
     public Dimension getOuterMarginCorner() {
-        return _outerMarginCorner;
+        return new Dimension(_outerMarginCornerWidth, _outerMarginCornerHeight);
     }
     
     public void setOuterMarginCorner(Dimension outerMarginCorner) {
-        _outerMarginCorner = outerMarginCorner;
+        _outerMarginCornerWidth = outerMarginCorner.width;
+        _outerMarginCornerHeight = outerMarginCorner.height;
+    }
+
+    /**
+     * Moves the outer margin corner out to that of other, where that is further.
+     */
+    public void moveOuterMarginCornerIfGreater(PaintingInfo other) {
+        if (other._outerMarginCornerWidth > _outerMarginCornerWidth) {
+            _outerMarginCornerWidth = other._outerMarginCornerWidth;
+        }
+        if (other._outerMarginCornerHeight > _outerMarginCornerHeight) {
+            _outerMarginCornerHeight = other._outerMarginCornerHeight;
+        }
     }
     
     public PaintingInfo copyOf() {
         PaintingInfo result = new PaintingInfo();
-        result.setOuterMarginCorner(new Dimension(_outerMarginCorner));
-        result.setAggregateBounds(new Rectangle(_aggregateBounds));
+        result._outerMarginCornerWidth = _outerMarginCornerWidth;
+        result._outerMarginCornerHeight = _outerMarginCornerHeight;
+        result._aggregateX = _aggregateX;
+        result._aggregateY = _aggregateY;
+        result._aggregateWidth = _aggregateWidth;
+        result._aggregateHeight = _aggregateHeight;
         
         return result;
     }
     
     public void translate(int tx, int ty) {
-        _aggregateBounds.translate(tx, ty);
-        _outerMarginCorner.setSize(
-                _outerMarginCorner.getWidth()+tx, _outerMarginCorner.getHeight()+ty);
+        Rectangle bounds = getAggregateBounds();
+        bounds.translate(tx, ty);
+        setAggregateBounds(bounds);
+
+        _outerMarginCornerWidth += tx;
+        _outerMarginCornerHeight += ty;
     }
 }
@@ -407,6 +407,14 @@ public class TableCellBox extends BlockBox {
         c.getOutputDevice().paintCollapsedBorder(
                 c, getCollapsedPaintingBorder(), getCollapsedBorderBounds(c), side);
     }
+
+    /**
+     * Paints a side of the collapsed border with the batch, so that sides of
+     * the table painted one after another may be filled together.
+     */
+    public void paintCollapsedBorder(RenderingContext c, BorderPainter.Batch batch, int side) {
+        batch.paint(getCollapsedBorderBounds(c), side, getCollapsedPaintingBorder());
+    }
     
     private Rectangle getContentLimitedBorderEdge(RenderingContext c) {
         Rectangle result = getPaintingBorderEdge(c);
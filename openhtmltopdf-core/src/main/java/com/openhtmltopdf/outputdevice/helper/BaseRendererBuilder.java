@@ -105,6 +105,9 @@ public abstract class BaseRendererBuilder<TFinalClass extends BaseRendererBuilde
 	 * seems to work with most systems but not JBoss Wildfly and related setups. In
 	 * this case you can use null to let the container use whatever
 	 * TransformerFactory it has available.
+	 * <br><br>
+	 * NOTE: Documents are now built directly from SAX events, so this is
+	 * no longer used when loading the document.
 	 *
 	 * @param transformerFactoryClass
 	 * @return this for method chaining
@@ -398,6 +398,14 @@ public abstract class AbstractOutputDevice implements OutputDevice {
         int width = image.getWidth();
         int height = image.getHeight();
 
+        int columns = tileCount(left, right, width);
+        int rows = tileCount(top, bottom, height);
+
+        if (columns * rows > 1 &&
+            drawRepeatedImage(image, new Rectangle(left, top, columns * width, rows * height), interpolate)) {
+            return;
+        }
+
         for (int x = left; x < right; x+= width) {
             for (int y = top; y < bottom; y+= height) {
                 drawImage(image, x, y, interpolate);
@@ -407,6 +415,12 @@ public abstract class AbstractOutputDevice implements OutputDevice {
 
     private void paintVerticalBand(FSImage image, int left, int top, int bottom, boolean interpolate) {
         int height = image.getHeight();
+        int rows = tileCount(top, bottom, height);
+
+        if (rows > 1 &&
+            drawRepeatedImage(image, new Rectangle(left, top, image.getWidth(), rows * height), interpolate)) {
+            return;
+        }
 
         for (int y = top; y < bottom; y+= height) {
             drawImage(image, left, y, interpolate);
@@ -415,12 +429,39 @@ public abstract class AbstractOutputDevice implements OutputDevice {
 
     private void paintHorizontalBand(FSImage image, int left, int top, int right, boolean interpolate) {
         int width = image.getWidth();
+        int columns = tileCount(left, right, width);
+
+        if (columns > 1 &&
+            drawRepeatedImage(image, new Rectangle(left, top, columns * width, image.getHeight()), interpolate)) {
+            return;
+        }
 
         for (int x = left; x < right; x+= width) {
             drawImage(image, x, top, interpolate);
         }
     }
 
+    /**
+     * The number of tiles of the given size drawn from start while before end.
+     */
+    private static int tileCount(int start, int end, int tileSize) {
+        return end > start ? (end - start + tileSize - 1) / tileSize : 0;
+    }
+
+    /**
+     * Fills area, a whole number of image tiles with the first tile at its top left
+     * corner, with copies of the image, as for a repeated background image.
+     * Output devices that can repeat an image natively, such as with a PDF tiling
+     * pattern, override this so a background is one operation rather than one image
+     * per tile. The default returns false, the tiles are then drawn one by one with
+     * {@link #drawImage(FSImage, int, int, boolean)}.
+     *
+     * @return whether the area was filled.
+     */
+    protected boolean drawRepeatedImage(FSImage image, Rectangle area, boolean interpolate) {
+        return false;
+    }
+
     private int calcOffset(CssContext c, CalculatedStyle style, PropertyValue value, float boundsDim, float imageDim) {
         if (value.getPrimitiveType() == CSSPrimitiveValue.CSS_PERCENTAGE) {
             float percent = value.getFloatValue() / 100.0f;
@@ -110,18 +110,27 @@ public class BlockBox extends Box {
 
     protected static final int NO_BASELINE = Integer.MIN_VALUE;
 
-    private MarkerData _markerData;
+    /**
+     * Fields only used by list items, replaced, absolute, floated and
+     * first-line/first-letter boxes, see {@link Box.BoxRareData}.
+     */
+    static class BlockBoxRareData {
+        MarkerData _markerData;
+        Box _staticEquivalent;
+        ReplacedElement _replacedElement;
+        CascadedStyle _firstLineStyle;
+        CascadedStyle _firstLetterStyle;
+        FloatedBoxData _floatedBoxData;
+    }
+
+    private BlockBoxRareData _blockRareData;
 
     private int _listCounter;
 
     private PersistentBFC _persistentBFC;
 
-    private Box _staticEquivalent;
-
     private boolean _needPageClear;
 
-    private ReplacedElement _replacedElement;
-
     private ContentType _childrenContentType = ContentType.UNKNOWN;
 
     private List<Styleable> _inlineContent;
@@ -137,11 +146,6 @@ public class BlockBox extends Box {
     private boolean _dimensionsCalculated;
     private boolean _needShrinkToFitCalculation;
 
-    private CascadedStyle _firstLineStyle;
-    private CascadedStyle _firstLetterStyle;
-
-    private FloatedBoxData _floatedBoxData;
-
     private int _childrenHeight;
 
     private boolean _fromCaptionedTable;
@@ -332,16 +336,27 @@ public class BlockBox extends Box {
         }
     }
 
+    private void ensureBlockRareData() {
+        if (_blockRareData == null) {
+            _blockRareData = new BlockBoxRareData();
+        }
+    }
+
     public void paintDebugOutline(RenderingContext c) {
         c.getOutputDevice().drawDebugOutline(c, this, FSRGBColor.RED);
     }
 
     public MarkerData getMarkerData() {
-        return _markerData;
+        return _blockRareData != null ? _blockRareData._markerData : null;
     }
 
     public void setMarkerData(MarkerData markerData) {
-        _markerData = markerData;
+        if (markerData != null) {
+            ensureBlockRareData();
+        }
+        if (_blockRareData != null) {
+            _blockRareData._markerData = markerData;
+        }
     }
 
     public void createMarkerData(LayoutContext c) {
@@ -530,11 +545,16 @@ public class BlockBox extends Box {
     }
 
     public Box getStaticEquivalent() {
-        return _staticEquivalent;
+        return _blockRareData != null ? _blockRareData._staticEquivalent : null;
     }
 
     public void setStaticEquivalent(Box staticEquivalent) {
-        _staticEquivalent = staticEquivalent;
+        if (staticEquivalent != null) {
+            ensureBlockRareData();
+        }
+        if (_blockRareData != null) {
+            _blockRareData._staticEquivalent = staticEquivalent;
+        }
     }
 
     public boolean shouldBeReplaced() {
@@ -542,13 +562,13 @@ public class BlockBox extends Box {
     }
     
     public boolean isReplaced() {
-        return _replacedElement != null;
+        return getReplacedElement() != null;
     }
 
     @Override
     public void calcCanvasLocation() {
         if (isFloated()) {
-            FloatManager manager = _floatedBoxData.getManager();
+            FloatManager manager = getFloatedBoxData().getManager();
             if (manager != null) {
                 Point offset = manager.getOffset(this);
                 setAbsX(manager.getMaster().getAbsX() + getX() - offset.x);
@@ -608,9 +628,10 @@ public class BlockBox extends Box {
 
 
     private void alignToStaticEquivalent() {
-        if (_staticEquivalent.getAbsY() != getAbsY()) {
-            setY(_staticEquivalent.getAbsY() - getAbsY());
-            setAbsY(_staticEquivalent.getAbsY());
+        Box staticEquivalent = getStaticEquivalent();
+        if (staticEquivalent.getAbsY() != getAbsY()) {
+            setY(staticEquivalent.getAbsY() - getAbsY());
+            setAbsY(staticEquivalent.getAbsY());
         }
     }
 
@@ -698,11 +719,16 @@ public class BlockBox extends Box {
     }
 
     public ReplacedElement getReplacedElement() {
-        return _replacedElement;
+        return _blockRareData != null ? _blockRareData._replacedElement : null;
     }
 
     public void setReplacedElement(ReplacedElement replacedElement) {
-        _replacedElement = replacedElement;
+        if (replacedElement != null) {
+            ensureBlockRareData();
+        }
+        if (_blockRareData != null) {
+            _blockRareData._replacedElement = replacedElement;
+        }
     }
 
     @Override
@@ -722,10 +748,10 @@ public class BlockBox extends Box {
         }
 
         if (isFloated()) {
-            FloatManager manager = _floatedBoxData.getManager();
+            FloatManager manager = getFloatedBoxData().getManager();
             if (manager != null) {
                 manager.removeFloat(this);
-                _floatedBoxData.getDrawingLayer().removeFloat(this);
+                getFloatedBoxData().getDrawingLayer().removeFloat(this);
             }
         }
 
@@ -2248,9 +2274,7 @@ public class BlockBox extends Box {
                         @Override
                         public void operate(Box floater) {
                             PaintingInfo info = floater.calcPaintingInfo(c, useCache);
-                            moveIfGreater(
-                                    result.getOuterMarginCorner(),
-                                    info.getOuterMarginCorner());
+                            result.moveOuterMarginCornerIfGreater(info);
                         }
                     });
         }
@@ -2258,19 +2282,29 @@ public class BlockBox extends Box {
     }
 
     public CascadedStyle getFirstLetterStyle() {
-        return _firstLetterStyle;
+        return _blockRareData != null ? _blockRareData._firstLetterStyle : null;
     }
 
     public void setFirstLetterStyle(CascadedStyle firstLetterStyle) {
-        _firstLetterStyle = firstLetterStyle;
+        if (firstLetterStyle != null) {
+            ensureBlockRareData();
+        }
+        if (_blockRareData != null) {
+            _blockRareData._firstLetterStyle = firstLetterStyle;
+        }
     }
 
     public CascadedStyle getFirstLineStyle() {
-        return _firstLineStyle;
+        return _blockRareData != null ? _blockRareData._firstLineStyle : null;
     }
 
     public void setFirstLineStyle(CascadedStyle firstLineStyle) {
-        _firstLineStyle = firstLineStyle;
+        if (firstLineStyle != null) {
+            ensureBlockRareData();
+        }
+        if (_blockRareData != null) {
+            _blockRareData._firstLineStyle = firstLineStyle;
+        }
     }
 
     protected boolean isMinMaxCalculated() {
@@ -2479,15 +2513,20 @@ public class BlockBox extends Box {
     }
 
     public boolean isFloated() {
-        return _floatedBoxData != null;
+        return getFloatedBoxData() != null;
     }
 
     public FloatedBoxData getFloatedBoxData() {
-        return _floatedBoxData;
+        return _blockRareData != null ? _blockRareData._floatedBoxData : null;
     }
 
     public void setFloatedBoxData(FloatedBoxData floatedBoxData) {
-        _floatedBoxData = floatedBoxData;
+        if (floatedBoxData != null) {
+            ensureBlockRareData();
+        }
+        if (_blockRareData != null) {
+            _blockRareData._floatedBoxData = floatedBoxData;
+        }
     }
 
     public int getChildrenHeight() {
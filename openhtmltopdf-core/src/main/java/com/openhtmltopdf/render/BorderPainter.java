@@ -28,6 +28,9 @@ import java.awt.geom.Arc2D;
 import java.awt.geom.Area;
 import java.awt.geom.Path2D;
 import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 
 import com.openhtmltopdf.css.constants.IdentValue;
 import com.openhtmltopdf.css.parser.FSColor;
@@ -44,13 +47,15 @@ public class BorderPainter {
     public static final int RIGHT = 8;
     public static final int ALL = TOP + LEFT + BOTTOM + RIGHT;
 
+    private static final Stroke SOLID_BORDER_STROKE = new BasicStroke(1f);
+
     /**
      * Generate a simple rectangle without beveling for a solid border side.
      * Turning off beveling should disable anti-aliasing and work better with
      * table cell borders.
      * See https://github.com/danfickle/openhtmltopdf/issues/752
      */
-    private static Shape generateSimpleBorderShape(Rectangle bounds, int currentSide, BorderPropertySet border) {
+    private static Rectangle2D generateSimpleBorderShape(Rectangle bounds, int currentSide, BorderPropertySet border) {
         if (currentSide == TOP || currentSide == BOTTOM) {
             double x = bounds.getX();
             double y = currentSide == TOP ?
@@ -74,6 +79,79 @@ public class BorderPainter {
         }
     }
 
+    /**
+     * Generate the shape {@link #generateBorderShape(Rectangle, int, BorderPropertySet, boolean)}
+     * gives a solid border side without border radius: a quadrilateral mitred towards the
+     * sides next to it. Solid square borders are by far the most common, so this skips the
+     * corner arcs and transforms that are only needed for rounded corners.
+     */
+    private static Shape generateSquareBorderShape(Rectangle bounds, int currentSide, BorderPropertySet border) {
+        double x1 = bounds.getX();
+        double y1 = bounds.getY();
+        double x2 = x1 + bounds.getWidth();
+        double y2 = y1 + bounds.getHeight();
+
+        Path2D path = new Path2D.Float(Path2D.WIND_NON_ZERO, 5);
+
+        switch (currentSide) {
+        case TOP:
+            path.moveTo(x1, y1);
+            path.lineTo(x2, y1);
+            path.lineTo(x2 - border.right(), y1 + border.top());
+            path.lineTo(x1 + border.left(), y1 + border.top());
+            break;
+        case RIGHT:
+            path.moveTo(x2, y1);
+            path.lineTo(x2, y2);
+            path.lineTo(x2 - border.right(), y2 - border.bottom());
+            path.lineTo(x2 - border.right(), y1 + border.top());
+            break;
+        case BOTTOM:
+            path.moveTo(x2, y2);
+            path.lineTo(x1, y2);
+            path.lineTo(x1 + border.left(), y2 - border.bottom());
+            path.lineTo(x2 - border.right(), y2 - border.bottom());
+            break;
+        default:
+            path.moveTo(x1, y2);
+            path.lineTo(x1, y1);
+            path.lineTo(x1 + border.left(), y1 + border.top());
+            path.lineTo(x1 + border.left(), y2 - border.bottom());
+            break;
+        }
+
+        path.closePath();
+        return path;
+    }
+
+    /**
+     * Generate the shape of a solid border side, as painted by {@link #paint(Rectangle, int, BorderPropertySet, RenderingContext, int, boolean)}.
+     */
+    private static Shape generateSolidBorderShape(Rectangle bounds, int currentSide, BorderPropertySet border) {
+        if (border.hasBorderRadius()) {
+            return generateBorderShape(bounds, currentSide, border, true, 0, 1);
+        } else if (border.isBevelAllowed()) {
+            return generateSquareBorderShape(bounds, currentSide, border);
+        } else {
+            return generateSimpleBorderShape(bounds, currentSide, border);
+        }
+    }
+
+    private static FSColor sideColor(BorderPropertySet border, int currentSide) {
+        switch (currentSide) {
+        case TOP:
+            return border.topColor();
+        case RIGHT:
+            return border.rightColor();
+        case BOTTOM:
+            return border.bottomColor();
+        case LEFT:
+            return border.leftColor();
+        default:
+            return null;
+        }
+    }
+
     /**
      * Generates a full round rectangle that is made of bounds and border
      * @param bounds Dimmensions of the rect
@@ -309,6 +387,164 @@ public class BorderPainter {
         }
     }
     
+    /**
+     * Paints single border sides, such as the collapsed borders of a table, filling
+     * consecutive square solid sides of the same opaque color together. Sides in line
+     * with each other are merged into one rectangle, so a table grid is a fill per grid
+     * line rather than a fill per side of every cell. Other sides are painted as they come, after the sides collected so far, so the
+     * painting order is kept.
+     * <br><br>
+     * Call {@link #flush()} once all sides are given.
+     */
+    public static class Batch {
+        private static final Comparator<Rectangle2D> BY_ROW = Comparator
+                .comparingDouble(Rectangle2D::getY)
+                .thenComparingDouble(Rectangle2D::getHeight)
+                .thenComparingDouble(Rectangle2D::getX);
+
+        private static final Comparator<Rectangle2D> BY_COLUMN = Comparator
+                .comparingDouble(Rectangle2D::getX)
+                .thenComparingDouble(Rectangle2D::getWidth)
+                .thenComparingDouble(Rectangle2D::getY);
+
+        private final RenderingContext _ctx;
+        private final List<Rectangle2D> _sides = new ArrayList<>();
+        private FSColor _color;
+
+        public Batch(RenderingContext ctx) {
+            _ctx = ctx;
+        }
+
+        /**
+         * Paints one side of the border, as {@link BorderPainter#paint(Rectangle, int, BorderPropertySet, RenderingContext, int, boolean)} would.
+         */
+        public void paint(Rectangle bounds, int side, BorderPropertySet border) {
+            FSColor color = sideColor(border, side);
+
+            if (!isBatchable(border, side, color)) {
+                flush();
+                _ctx.getOutputDevice().paintCollapsedBorder(_ctx, border, bounds, side);
+                return;
+            }
+
+            if (!_sides.isEmpty() && !color.equals(_color)) {
+                flush();
+            }
+
+            _color = color;
+            _sides.add(generateSimpleBorderShape(bounds, side, border));
+        }
+
+        /**
+         * Fills the sides collected so far.
+         */
+        public void flush() {
+            if (!_sides.isEmpty()) {
+                OutputDevice outputDevice = _ctx.getOutputDevice();
+                outputDevice.setStroke(SOLID_BORDER_STROKE);
+                outputDevice.setColor(_color);
+
+                for (Rectangle2D run : mergeRuns(mergeRuns(_sides, BY_ROW, true), BY_COLUMN, false)) {
+                    outputDevice.fill(runShape(run));
+                }
+
+                _sides.clear();
+                _color = null;
+            }
+        }
+
+        /**
+         * Merges rectangles of the same row (or column) that touch or overlap into one.
+         * They are all filled with one color, so this fills the same area.
+         */
+        private static List<Rectangle2D> mergeRuns(List<Rectangle2D> sides, Comparator<Rectangle2D> order, boolean rows) {
+            List<Rectangle2D> sorted = new ArrayList<>(sides);
+            sorted.sort(order);
+
+            List<Rectangle2D> runs = new ArrayList<>(sorted.size());
+            Rectangle2D run = null;
+
+            for (Rectangle2D side : sorted) {
+                if (run != null && (rows ?
+                        run.getY() == side.getY() && run.getHeight() == side.getHeight() && side.getX() <= run.getMaxX() :
+                        run.getX() == side.getX() && run.getWidth() == side.getWidth() && side.getY() <= run.getMaxY())) {
+                    run.add(side);
+                } else {
+                    run = (Rectangle2D) side.clone();
+                    runs.add(run);
+                }
+            }
+
+            return runs;
+        }
+
+        /**
+         * The run as four points, like the other border side shapes. A rectangle shape
+         * repeats its first point, so renderers that draw rectangles without anti-aliasing,
+         * such as PDFBox, would no longer recognize it.
+         */
+        private static Shape runShape(Rectangle2D run) {
+            Path2D path = new Path2D.Float(Path2D.WIND_NON_ZERO, 5);
+            path.moveTo(run.getMinX(), run.getMinY());
+            path.lineTo(run.getMaxX(), run.getMinY());
+            path.lineTo(run.getMaxX(), run.getMaxY());
+            path.lineTo(run.getMinX(), run.getMaxY());
+            path.closePath();
+            return path;
+        }
+
+        /**
+         * Only square opaque solid sides are batched. Beveled sides are mitred where
+         * they meet a side of another color, so only their ends that meet a side of the
+         * same color, where the mitre is covered either way, or no side at all are
+         * square. Translucent sides painted one by one blend where they overlap.
+         */
+        private static boolean isBatchable(BorderPropertySet border, int side, FSColor color) {
+            if (border.hasBorderRadius() ||
+                color == null || color == FSRGBColor.TRANSPARENT ||
+                (color instanceof FSRGBColor && ((FSRGBColor) color).getAlpha() < 1f)) {
+                return false;
+            }
+
+            switch (side) {
+            case TOP:
+                return !border.noTop() && border.topStyle() == IdentValue.SOLID &&
+                       isSquareEnd(border, LEFT, color) && isSquareEnd(border, RIGHT, color);
+            case RIGHT:
+                return !border.noRight() && border.rightStyle() == IdentValue.SOLID &&
+                       isSquareEnd(border, TOP, color) && isSquareEnd(border, BOTTOM, color);
+            case BOTTOM:
+                return !border.noBottom() && border.bottomStyle() == IdentValue.SOLID &&
+                       isSquareEnd(border, LEFT, color) && isSquareEnd(border, RIGHT, color);
+            case LEFT:
+                return !border.noLeft() && border.leftStyle() == IdentValue.SOLID &&
+                       isSquareEnd(border, TOP, color) && isSquareEnd(border, BOTTOM, color);
+            default:
+                return false;
+            }
+        }
+
+        /**
+         * Whether a side may be square at its end next to the given side.
+         */
+        private static boolean isSquareEnd(BorderPropertySet border, int next, FSColor color) {
+            if (!border.isBevelAllowed()) {
+                return true;
+            }
+
+            switch (next) {
+            case TOP:
+                return border.top() == 0 || (border.topStyle() == IdentValue.SOLID && color.equals(border.topColor()));
+            case RIGHT:
+                return border.right() == 0 || (border.rightStyle() == IdentValue.SOLID && color.equals(border.rightColor()));
+            case BOTTOM:
+                return border.bottom() == 0 || (border.bottomStyle() == IdentValue.SOLID && color.equals(border.bottomColor()));
+            default:
+                return border.left() == 0 || (border.leftStyle() == IdentValue.SOLID && color.equals(border.leftColor()));
+            }
+        }
+    }
+
     /**
      * @param xOffset for determining starting point for patterns
      */
@@ -384,30 +620,15 @@ public class BorderPainter {
                     border,
                     0, 1, sides, currentSide, bevel);
         } else if (borderSideStyle == IdentValue.SOLID) {
-            FSColor bColor = null;
+            FSColor bColor = sideColor(border, currentSide);
 
-            switch (currentSide) {
-            case TOP:
-                bColor = border.topColor();
-                break;
-            case RIGHT:
-                bColor = border.rightColor();
-                break;
-            case BOTTOM:
-                bColor = border.bottomColor();
-                break;
-            case LEFT:
-                bColor = border.leftColor();
-                break;
-            default:
+            if (bColor == null) {
                 return;
             }
 
-            Shape s = border.isBevelAllowed() || border.hasBorderRadius() ?
-                    generateBorderShape(bounds, currentSide, border, true, 0, 1) :
-                    generateSimpleBorderShape(bounds, currentSide, border);
+            Shape s = generateSolidBorderShape(bounds, currentSide, border);
 
-            outputDevice.setStroke(new BasicStroke(1f));
+            outputDevice.setStroke(SOLID_BORDER_STROKE);
             outputDevice.setColor(bColor);
             outputDevice.fill(s);
 
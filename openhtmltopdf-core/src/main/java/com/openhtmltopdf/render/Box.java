@@ -91,24 +91,34 @@ public abstract class Box implements Styleable, DisplayListItem {
     private CalculatedStyle _style;
     private Box _containingBlock;
 
-    private Dimension _relativeOffset;
-
     private PaintingInfo _paintingInfo;
 
-    private RectPropertySet _workingMargin;
-
     private int _index;
 
-    private String _pseudoElementOrClass;
-
     private boolean _anonymous;
     
-    private Area _absoluteClipBox;
     private boolean _clipBoxCalculated = false;
-    
-    private Object _accessibilityObject;
 
-    private int _colGroupRequestedWidth = -1;
+    /**
+     * Fields that most boxes leave at their default value, kept out of
+     * line to reduce the size of each box in very large documents.
+     */
+    static class BoxRareData {
+        Dimension _relativeOffset;
+        String _pseudoElementOrClass;
+        Area _absoluteClipBox;
+        Object _accessibilityObject;
+        RectPropertySet _workingMargin;
+        int _colGroupRequestedWidth = -1;
+    }
+
+    private BoxRareData _rareData;
+
+    private void ensureRareData() {
+        if (_rareData == null) {
+            _rareData = new BoxRareData();
+        }
+    }
 
     protected Box() {
     }
@@ -180,10 +190,17 @@ public abstract class Box implements Styleable, DisplayListItem {
      */
     public Area getAbsoluteClipBox(CssContext c) {
         if (!_clipBoxCalculated) {
-            _absoluteClipBox = calcAbsoluteClipBox(c);
+            Area clip = calcAbsoluteClipBox(c);
+            if (clip != null) {
+                ensureRareData();
+            }
+            if (_rareData != null) {
+                _rareData._absoluteClipBox = clip;
+            }
             _clipBoxCalculated = true;
         }
-        return _absoluteClipBox != null ? (Area) _absoluteClipBox.clone() : null;
+        Area clip = _rareData != null ? _rareData._absoluteClipBox : null;
+        return clip != null ? (Area) clip.clone() : null;
     }
     
     private Area calcAbsoluteClipBox(CssContext c) {
@@ -237,7 +254,8 @@ public abstract class Box implements Styleable, DisplayListItem {
 
     public void addChild(Box child) {
         if (_boxes == null) {
-            _boxes = new ArrayList<>();
+            // Most boxes have one or two children, a line box or a few cells.
+            _boxes = new ArrayList<>(2);
         }
         if (child == null) {
             throw new NullPointerException("trying to add null child");
@@ -318,6 +336,20 @@ public abstract class Box implements Styleable, DisplayListItem {
         return false;
     }
 
+    /**
+     * Removes the children matching the predicate and adjusts the index of
+     * the remaining children.
+     */
+    public void removeChildrenIf(Predicate<Box> filter) {
+        if (_boxes != null && _boxes.removeIf(filter)) {
+            int size = getChildCount();
+
+            for (int i = 0; i < size; i++) {
+                getChild(i).setIndex(i);
+            }
+        }
+    }
+
     public void setParent(Box box) {
         _parent = box;
     }
@@ -610,11 +642,16 @@ public abstract class Box implements Styleable, DisplayListItem {
     }
     
     public void setAccessiblityObject(Object object) {
-        this._accessibilityObject = object;
+        if (object != null) {
+            ensureRareData();
+        }
+        if (_rareData != null) {
+            _rareData._accessibilityObject = object;
+        }
     }
     
     public Object getAccessibilityObject() {
-        return this._accessibilityObject;
+        return _rareData != null ? _rareData._accessibilityObject : null;
     }
 
     public void paintRootElementBackground(RenderingContext c) {
@@ -707,7 +744,9 @@ public abstract class Box implements Styleable, DisplayListItem {
         setPaintingInfo(null);
         setContentWidth(0);
 
-        _workingMargin = null;
+        if (_rareData != null) {
+            _rareData._workingMargin = null;
+        }
 
         String anchorName = c.getNamespaceHandler().getAnchorName(getElement());
         if (anchorName != null) {
@@ -869,16 +908,21 @@ public abstract class Box implements Styleable, DisplayListItem {
     }
 
     public Dimension getRelativeOffset() {
-        return _relativeOffset;
+        return _rareData != null ? _rareData._relativeOffset : null;
     }
 
     public void setRelativeOffset(Dimension relativeOffset) {
-        _relativeOffset = relativeOffset;
+        if (relativeOffset != null) {
+            ensureRareData();
+        }
+        if (_rareData != null) {
+            _rareData._relativeOffset = relativeOffset;
+        }
     }
 
     public Box find(CssContext cssCtx, int absX, int absY, boolean findAnonymous) {
         PaintingInfo pI = getPaintingInfo();
-        if (pI != null && ! pI.getAggregateBounds().contains(absX, absY)) {
+        if (pI != null && ! pI.aggregateBoundsContains(absX, absY)) {
             return null;
         }
 
@@ -916,51 +960,76 @@ public abstract class Box implements Styleable, DisplayListItem {
     }
 
     public void setMarginTop(CssContext cssContext, int marginTop) {
-        ensureWorkingMargin(cssContext);
-        _workingMargin.setTop(marginTop);
+        if (getWorkingMargin() == null && getStyleMargin(cssContext).top() == marginTop) {
+            return;
+        }
+        ensureWorkingMargin(cssContext).setTop(marginTop);
     }
 
     public void setMarginBottom(CssContext cssContext, int marginBottom) {
-        ensureWorkingMargin(cssContext);
-        _workingMargin.setBottom(marginBottom);
+        if (getWorkingMargin() == null && getStyleMargin(cssContext).bottom() == marginBottom) {
+            return;
+        }
+        ensureWorkingMargin(cssContext).setBottom(marginBottom);
     }
 
     public void setMarginLeft(CssContext cssContext, int marginLeft) {
-        ensureWorkingMargin(cssContext);
-        _workingMargin.setLeft(marginLeft);
+        if (getWorkingMargin() == null && getStyleMargin(cssContext).left() == marginLeft) {
+            return;
+        }
+        ensureWorkingMargin(cssContext).setLeft(marginLeft);
     }
 
     public void setMarginRight(CssContext cssContext, int marginRight) {
-        ensureWorkingMargin(cssContext);
-        _workingMargin.setRight(marginRight);
+        if (getWorkingMargin() == null && getStyleMargin(cssContext).right() == marginRight) {
+            return;
+        }
+        ensureWorkingMargin(cssContext).setRight(marginRight);
     }
 
-    private void ensureWorkingMargin(CssContext cssContext) {
-        if (_workingMargin == null) {
-            _workingMargin = getStyleMargin(cssContext).copyOf();
+    /**
+     * Copies the style margin to change it for this box. Most boxes never change
+     * their margin, or set it to what the style gives, and so share the margin
+     * of the style.
+     */
+    private RectPropertySet ensureWorkingMargin(CssContext cssContext) {
+        if (getWorkingMargin() == null) {
+            ensureRareData();
+            _rareData._workingMargin = getStyleMargin(cssContext).copyOf();
         }
+        return _rareData._workingMargin;
+    }
+
+    private RectPropertySet getWorkingMargin() {
+        return _rareData != null ? _rareData._workingMargin : null;
     }
     
     public int getColumnGroupRequestedWidth() {
-        return _colGroupRequestedWidth;
+        return _rareData != null ? _rareData._colGroupRequestedWidth : -1;
     }
 
     public void setColumnGroupRequestedWidth(int colWidth) {
-        this._colGroupRequestedWidth = colWidth;
+        if (colWidth != -1) {
+            ensureRareData();
+        }
+        if (_rareData != null) {
+            _rareData._colGroupRequestedWidth = colWidth;
+        }
     }
 
     public void setColumnGroupRequestedWidth(Length colWidth, int outerWidth) {
         if (colWidth != null) {
             if (colWidth.isFixed()) {
-                this._colGroupRequestedWidth = (int) colWidth.value();
+                setColumnGroupRequestedWidth((int) colWidth.value());
             } else if (outerWidth > -1) {
-                this._colGroupRequestedWidth = (int) colWidth.width(outerWidth);
+                setColumnGroupRequestedWidth((int) colWidth.width(outerWidth));
             }
         }
     }
 
     public RectPropertySet getMargin(CssContext cssContext) {
-        return _workingMargin != null ? _workingMargin : getStyleMargin(cssContext);
+        RectPropertySet workingMargin = getWorkingMargin();
+        return workingMargin != null ? workingMargin : getStyleMargin(cssContext);
     }
 
     protected RectPropertySet getStyleMargin(CssContext cssContext) {
@@ -984,10 +1053,11 @@ public abstract class Box implements Styleable, DisplayListItem {
     }
 
     protected void resetTopMargin(CssContext cssContext) {
-        if (_workingMargin != null) {
+        RectPropertySet workingMargin = getWorkingMargin();
+        if (workingMargin != null) {
             RectPropertySet styleMargin = getStyleMargin(cssContext);
 
-            _workingMargin.setTop(styleMargin.top());
+            workingMargin.setTop(styleMargin.top());
         }
     }
 
@@ -1019,8 +1089,8 @@ public abstract class Box implements Styleable, DisplayListItem {
         for (int i = 0; i < getChildCount(); i++) {
             Box child = getChild(i);
             PaintingInfo info = child.calcPaintingInfo(c, useCache);
-            moveIfGreater(result.getOuterMarginCorner(), info.getOuterMarginCorner());
-            result.getAggregateBounds().add(info.getAggregateBounds());
+            result.moveOuterMarginCornerIfGreater(info);
+            result.addAggregateBounds(info);
         }
     }
 
@@ -1043,15 +1113,6 @@ public abstract class Box implements Styleable, DisplayListItem {
         }
     }
 
-    protected void moveIfGreater(Dimension result, Dimension test) {
-        if (test.width > result.width) {
-            result.width = test.width;
-        }
-        if (test.height > result.height) {
-            result.height = test.height;
-        }
-    }
-
     /**
      * The zero based index of this child amongst its fellow children of its parent.
      */
@@ -1068,11 +1129,16 @@ public abstract class Box implements Styleable, DisplayListItem {
     }
 
     public String getPseudoElementOrClass() {
-        return _pseudoElementOrClass;
+        return _rareData != null ? _rareData._pseudoElementOrClass : null;
     }
 
     public void setPseudoElementOrClass(String pseudoElementOrClass) {
-        _pseudoElementOrClass = pseudoElementOrClass;
+        if (pseudoElementOrClass != null) {
+            ensureRareData();
+        }
+        if (_rareData != null) {
+            _rareData._pseudoElementOrClass = pseudoElementOrClass;
+        }
     }
 
     public void setX(int x) {
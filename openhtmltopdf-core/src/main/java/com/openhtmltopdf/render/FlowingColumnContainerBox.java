@@ -127,12 +127,16 @@ public class FlowingColumnContainerBox extends BlockBox {
         }
     }
 
-    private void layoutFloats(TreeMap<Integer, ColumnPosition> columnMap, PersistentBFC bfc, int columnCount, int colWidth, int colGap) {
-        List<BoxOffset> floatsL = this.getPersistentBFC().getFloatManager().getFloats(FloatManager.FloatDirection.LEFT);
-        List<BoxOffset> floatsR = this.getPersistentBFC().getFloatManager().getFloats(FloatManager.FloatDirection.RIGHT);
+    private void layoutFloats(LayoutContext c, TreeMap<Integer, ColumnPosition> columnMap, PersistentBFC bfc, int columnCount, int colWidth, int colGap) {
+        FloatManager manager = this.getPersistentBFC().getFloatManager();
+        List<BoxOffset> floatsL = manager.getFloats(FloatManager.FloatDirection.LEFT);
+        List<BoxOffset> floatsR = manager.getFloats(FloatManager.FloatDirection.RIGHT);
 
         layoutFloats(columnMap, floatsL, columnCount, colWidth, colGap);
         layoutFloats(columnMap, floatsR, columnCount, colWidth, colGap);
+
+        // Floats were moved directly, rather than floated again.
+        manager.updateFloatBounds(c);
     }
     
     private void reposition(Box box, int xAdjust, int yAdjust) {
@@ -270,7 +274,7 @@ public class FlowingColumnContainerBox extends BlockBox {
         }
         
         if (haveFloats) {
-            layoutFloats(columnMap, this.getPersistentBFC(), columnCount, colWidth, colGap);
+            layoutFloats(c, columnMap, this.getPersistentBFC(), columnCount, colWidth, colGap);
         }
 
         return finalHeight;
@@ -127,7 +127,8 @@ public class InlineLayoutBox extends Box implements InlinePaintable {
     
     public void addInlineChild(LayoutContext c, Object child, boolean callUnmarkPending) {
         if (_inlineChildren == null) {
-            _inlineChildren = new ArrayList<>();
+            // Usually a single text run.
+            _inlineChildren = new ArrayList<>(2);
         }
         
         _inlineChildren.add(child);
@@ -713,8 +714,8 @@ public class InlineLayoutBox extends Box implements InlinePaintable {
             Object obj = getInlineChild(i);
             if (obj instanceof Box) {
                 PaintingInfo info = ((Box)obj).calcPaintingInfo(c, useCache);
-                moveIfGreater(result.getOuterMarginCorner(), info.getOuterMarginCorner());
-                result.getAggregateBounds().add(info.getAggregateBounds());
+                result.moveOuterMarginCornerIfGreater(info);
+                result.addAggregateBounds(info);
             } 
         }
     }
@@ -782,7 +783,7 @@ public class InlineLayoutBox extends Box implements InlinePaintable {
     @Override
     public Box find(CssContext cssCtx, int absX, int absY, boolean findAnonymous) {
         PaintingInfo pI = getPaintingInfo();
-        if (pI != null && ! pI.getAggregateBounds().contains(absX, absY)) {
+        if (pI != null && ! pI.aggregateBoundsContains(absX, absY)) {
             return null;
         }
         
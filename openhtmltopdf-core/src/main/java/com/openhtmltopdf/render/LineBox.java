@@ -549,7 +549,7 @@ public class LineBox extends Box implements InlinePaintable {
     @Override
     public Box find(CssContext cssCtx, int absX, int absY, boolean findAnonymous) {
         PaintingInfo pI = getPaintingInfo();
-        if (pI !=null && ! pI.getAggregateBounds().contains(absX, absY)) {
+        if (pI !=null && ! pI.aggregateBoundsContains(absX, absY)) {
             return null;
         }
         
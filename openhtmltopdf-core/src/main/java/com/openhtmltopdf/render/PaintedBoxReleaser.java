@@ -0,0 +1,118 @@
+package com.openhtmltopdf.render;
+
+import java.awt.Rectangle;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import com.openhtmltopdf.css.style.CalculatedStyle;
+import com.openhtmltopdf.css.style.CssContext;
+
+/**
+ * Detaches the box subtrees that can not be painted on any page after a given
+ * document Y position from the box tree, so that, once the display list of the
+ * pages they were painted on has been dropped, they can be garbage collected.
+ * <br><br>
+ * Only subtrees of plain in-flow block content are released. Anything registered
+ * elsewhere by position (layers, floats, running and footnote content) or painted
+ * across pages as a unit (tables, columns) is kept along with its ancestors.
+ * Released boxes keep their position so links, bookmarks and named destinations
+ * that were resolved to them by id continue to work.
+ */
+public class PaintedBoxReleaser {
+    private PaintedBoxReleaser() {
+    }
+
+    /**
+     * Releases the subtrees under root that end above top, usually the top of
+     * the next page to be painted.
+     */
+    public static void releaseAbove(CssContext c, BlockBox root, int top) {
+        releaseChildrenAbove(c, root, top);
+    }
+
+    private static void releaseChildrenAbove(CssContext c, Box container, int top) {
+        if (!isPlainBlockContainer(container)) {
+            return;
+        }
+
+        Set<Box> released = null;
+        int count = container.getChildCount();
+
+        for (int i = 0; i < count; i++) {
+            Box child = container.getChild(i);
+
+            if (child.getAbsY() >= top) {
+                break;
+            }
+
+            if (getReleasableBottom(c, child) <= top) {
+                if (released == null) {
+                    released = Collections.newSetFromMap(new IdentityHashMap<>());
+                }
+                released.add(child);
+            } else if (isReleasable(child)) {
+                releaseChildrenAbove(c, child, top);
+            }
+        }
+
+        if (released != null) {
+            container.removeChildrenIf(released::contains);
+        }
+    }
+
+    private static boolean isPlainBlockContainer(Box box) {
+        return (box.getClass() == BlockBox.class || box.getClass() == AnonymousBlockBox.class) &&
+               ((BlockBox) box).getChildrenContentType() == BlockBox.ContentType.BLOCK;
+    }
+
+    private static boolean isReleasable(Box box) {
+        if (box.getLayer() != null) {
+            return false;
+        }
+
+        CalculatedStyle style = box.getStyle();
+
+        return style == null ||
+               !(style.isPostionedOrFloated() ||
+                 style.isRunning() ||
+                 style.isFootnote() ||
+                 style.isFootnoteBody());
+    }
+
+    /**
+     * @return the lowest painted position of the subtree or Integer.MAX_VALUE
+     * if it must be kept.
+     */
+    private static int getReleasableBottom(CssContext c, Box box) {
+        if (!isReleasable(box) ||
+            (box instanceof LineBox && !((LineBox) box).getNonFlowContent().isEmpty())) {
+            return Integer.MAX_VALUE;
+        }
+
+        Rectangle clip = box.getPaintingClipEdge(c);
+        int bottom = Math.max(box.getAbsY() + box.getHeight(), clip.y + clip.height);
+
+        if (box instanceof InlineLayoutBox) {
+            for (Object child : ((InlineLayoutBox) box).getInlineChildren()) {
+                if (child instanceof Box) {
+                    int childBottom = getReleasableBottom(c, (Box) child);
+                    if (childBottom == Integer.MAX_VALUE) {
+                        return childBottom;
+                    }
+                    bottom = Math.max(bottom, childBottom);
+                }
+            }
+        }
+
+        for (int i = 0; i < box.getChildCount(); i++) {
+            int childBottom = getReleasableBottom(c, box.getChild(i));
+            if (childBottom == Integer.MAX_VALUE) {
+                return childBottom;
+            }
+            bottom = Math.max(bottom, childBottom);
+        }
+
+        return bottom;
+    }
+}
@@ -0,0 +1,593 @@
+package com.openhtmltopdf.render;
+
+import java.awt.AlphaComposite;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Composite;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.Paint;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Area;
+import java.awt.geom.Line2D;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Path2D;
+import java.awt.geom.RectangularShape;
+import java.awt.image.BufferedImage;
+import java.awt.image.BufferedImageOp;
+import java.awt.image.ImageObserver;
+import java.awt.image.RenderedImage;
+import java.awt.image.renderable.RenderableImage;
+import java.text.AttributedCharacterIterator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A Graphics2D that records what is drawn on it, to be replayed later on the graphics
+ * of an output device with {@link #replay(Graphics2D)}, for example by an
+ * {@link com.openhtmltopdf.extend.OutputDeviceGraphicsDrawer}.
+ * <br><br>
+ * This allows expensive drawing code, such as the layout of a formula, to run once and
+ * be replayed wherever it is drawn, as recording does not need an output device.
+ * Recording is not thread safe, but once done, the recording may be replayed on any thread.
+ * <br><br>
+ * Shapes, transforms and arrays are copied when recorded, as drawing code may reuse them.
+ * Images are not. Font metrics are those of an image graphics with the same rendering hints,
+ * which start with fractional metrics on, as vector output devices measure text that way.
+ * Transforms are replayed relative to the transform of the graphics replayed on.
+ */
+public class RecordingGraphics2D extends Graphics2D {
+    private interface Command {
+        void replay(Graphics2D[] graphics, AffineTransform base);
+    }
+
+    /**
+     * What all the graphics created from one recording share.
+     */
+    private static class Recording {
+        private final List<Command> commands = new ArrayList<>();
+        private int graphicsCount;
+        // To measure text with, created when first needed.
+        private Graphics2D measure;
+
+        private Graphics2D measure() {
+            if (measure == null) {
+                measure = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+            }
+            return measure;
+        }
+    }
+
+    private interface Operation {
+        void apply(Graphics2D g);
+    }
+
+    private final Recording recording;
+    // The index of this graphics in the graphics replayed on, 0 for the one passed to replay.
+    private final int index;
+
+    private AffineTransform transform = new AffineTransform();
+    // In device space, so that it stays put when the transform changes. Null for no clip.
+    private Shape clip;
+    private Paint paint = Color.BLACK;
+    private Color color = Color.BLACK;
+    private Color background = Color.WHITE;
+    private Stroke stroke = new BasicStroke();
+    private Font font = new Font(Font.DIALOG, Font.PLAIN, 12);
+    private Composite composite = AlphaComposite.SrcOver;
+    private final RenderingHints hints = new RenderingHints(null);
+
+    public RecordingGraphics2D() {
+        this.recording = new Recording();
+        this.index = this.recording.graphicsCount++;
+        this.hints.put(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+    }
+
+    private RecordingGraphics2D(RecordingGraphics2D parent) {
+        this.recording = parent.recording;
+        this.index = this.recording.graphicsCount++;
+
+        this.transform = new AffineTransform(parent.transform);
+        this.clip = parent.clip;
+        this.paint = parent.paint;
+        this.color = parent.color;
+        this.background = parent.background;
+        this.stroke = parent.stroke;
+        this.font = parent.font;
+        this.composite = parent.composite;
+        this.hints.putAll(parent.hints);
+    }
+
+    /**
+     * Draws what was recorded on the given graphics, which should be in the state it is
+     * in when recording starts, for example fresh from an output device.
+     */
+    public void replay(Graphics2D graphics2D) {
+        Graphics2D[] graphics = new Graphics2D[recording.graphicsCount];
+        graphics[0] = graphics2D;
+        AffineTransform base = graphics2D.getTransform();
+
+        for (Command command : recording.commands) {
+            command.replay(graphics, base);
+        }
+    }
+
+    private void record(Operation operation) {
+        int target = index;
+        recording.commands.add((graphics, base) -> operation.apply(graphics[target]));
+    }
+
+    private static Shape copy(Shape s) {
+        if (s == null) {
+            return null;
+        } else if (s instanceof RectangularShape) {
+            return (Shape) ((RectangularShape) s).clone();
+        } else if (s instanceof Line2D) {
+            return (Shape) ((Line2D) s).clone();
+        } else if (s instanceof Path2D) {
+            return (Shape) ((Path2D) s).clone();
+        } else if (s instanceof Area) {
+            return (Shape) ((Area) s).clone();
+        }
+        return new Path2D.Double(s);
+    }
+
+    @Override
+    public Graphics create() {
+        RecordingGraphics2D child = new RecordingGraphics2D(this);
+        int parentIndex = index;
+        int childIndex = child.index;
+        recording.commands.add((graphics, base) -> graphics[childIndex] = (Graphics2D) graphics[parentIndex].create());
+        return child;
+    }
+
+    @Override
+    public void dispose() {
+        if (index != 0) {
+            // The graphics replayed on belongs to whoever replays.
+            record(Graphics::dispose);
+        }
+    }
+
+    @Override
+    public void draw(Shape s) {
+        Shape shape = copy(s);
+        record(g -> g.draw(shape));
+    }
+
+    @Override
+    public void fill(Shape s) {
+        Shape shape = copy(s);
+        record(g -> g.fill(shape));
+    }
+
+    @Override
+    public boolean drawImage(Image img, AffineTransform xform, ImageObserver obs) {
+        AffineTransform at = xform == null ? null : new AffineTransform(xform);
+        record(g -> g.drawImage(img, at, null));
+        return true;
+    }
+
+    @Override
+    public void drawImage(BufferedImage img, BufferedImageOp op, int x, int y) {
+        record(g -> g.drawImage(img, op, x, y));
+    }
+
+    @Override
+    public void drawRenderedImage(RenderedImage img, AffineTransform xform) {
+        AffineTransform at = new AffineTransform(xform);
+        record(g -> g.drawRenderedImage(img, at));
+    }
+
+    @Override
+    public void drawRenderableImage(RenderableImage img, AffineTransform xform) {
+        AffineTransform at = new AffineTransform(xform);
+        record(g -> g.drawRenderableImage(img, at));
+    }
+
+    @Override
+    public void drawString(String str, int x, int y) {
+        record(g -> g.drawString(str, x, y));
+    }
+
+    @Override
+    public void drawString(String str, float x, float y) {
+        record(g -> g.drawString(str, x, y));
+    }
+
+    @Override
+    public void drawString(AttributedCharacterIterator iterator, int x, int y) {
+        AttributedCharacterIterator text = (AttributedCharacterIterator) iterator.clone();
+        record(g -> g.drawString(text, x, y));
+    }
+
+    @Override
+    public void drawString(AttributedCharacterIterator iterator, float x, float y) {
+        AttributedCharacterIterator text = (AttributedCharacterIterator) iterator.clone();
+        record(g -> g.drawString(text, x, y));
+    }
+
+    @Override
+    public void drawGlyphVector(GlyphVector gv, float x, float y) {
+        record(g -> g.drawGlyphVector(gv, x, y));
+    }
+
+    @Override
+    public boolean hit(Rectangle rect, Shape s, boolean onStroke) {
+        Shape shape = onStroke ? stroke.createStrokedShape(s) : s;
+        return transform.createTransformedShape(shape).intersects(rect);
+    }
+
+    @Override
+    public GraphicsConfiguration getDeviceConfiguration() {
+        return null;
+    }
+
+    @Override
+    public void setComposite(Composite comp) {
+        this.composite = comp;
+        record(g -> g.setComposite(comp));
+    }
+
+    @Override
+    public void setPaint(Paint paint) {
+        if (paint == null) {
+            return;
+        }
+        this.paint = paint;
+        if (paint instanceof Color) {
+            this.color = (Color) paint;
+        }
+        record(g -> g.setPaint(paint));
+    }
+
+    @Override
+    public void setStroke(Stroke s) {
+        this.stroke = s;
+        record(g -> g.setStroke(s));
+    }
+
+    @Override
+    public void setRenderingHint(RenderingHints.Key hintKey, Object hintValue) {
+        hints.put(hintKey, hintValue);
+        record(g -> g.setRenderingHint(hintKey, hintValue));
+    }
+
+    @Override
+    public Object getRenderingHint(RenderingHints.Key hintKey) {
+        return hints.get(hintKey);
+    }
+
+    @Override
+    public void setRenderingHints(Map<?, ?> hints) {
+        RenderingHints copy = new RenderingHints(null);
+        copy.putAll(hints);
+        this.hints.clear();
+        this.hints.putAll(copy);
+        record(g -> g.setRenderingHints(copy));
+    }
+
+    @Override
+    public void addRenderingHints(Map<?, ?> hints) {
+        RenderingHints copy = new RenderingHints(null);
+        copy.putAll(hints);
+        this.hints.putAll(copy);
+        record(g -> g.addRenderingHints(copy));
+    }
+
+    @Override
+    public RenderingHints getRenderingHints() {
+        return (RenderingHints) hints.clone();
+    }
+
+    @Override
+    public void translate(int x, int y) {
+        transform.translate(x, y);
+        record(g -> g.translate(x, y));
+    }
+
+    @Override
+    public void translate(double tx, double ty) {
+        transform.translate(tx, ty);
+        record(g -> g.translate(tx, ty));
+    }
+
+    @Override
+    public void rotate(double theta) {
+        transform.rotate(theta);
+        record(g -> g.rotate(theta));
+    }
+
+    @Override
+    public void rotate(double theta, double x, double y) {
+        transform.rotate(theta, x, y);
+        record(g -> g.rotate(theta, x, y));
+    }
+
+    @Override
+    public void scale(double sx, double sy) {
+        transform.scale(sx, sy);
+        record(g -> g.scale(sx, sy));
+    }
+
+    @Override
+    public void shear(double shx, double shy) {
+        transform.shear(shx, shy);
+        record(g -> g.shear(shx, shy));
+    }
+
+    @Override
+    public void transform(AffineTransform tx) {
+        AffineTransform at = new AffineTransform(tx);
+        transform.concatenate(at);
+        record(g -> g.transform(at));
+    }
+
+    @Override
+    public void setTransform(AffineTransform tx) {
+        AffineTransform at = new AffineTransform(tx);
+        transform = new AffineTransform(at);
+
+        int target = index;
+        recording.commands.add((graphics, base) -> {
+            AffineTransform replayed = new AffineTransform(base);
+            replayed.concatenate(at);
+            graphics[target].setTransform(replayed);
+        });
+    }
+
+    @Override
+    public AffineTransform getTransform() {
+        return new AffineTransform(transform);
+    }
+
+    @Override
+    public Paint getPaint() {
+        return paint;
+    }
+
+    @Override
+    public Composite getComposite() {
+        return composite;
+    }
+
+    @Override
+    public void setBackground(Color color) {
+        this.background = color;
+        record(g -> g.setBackground(color));
+    }
+
+    @Override
+    public Color getBackground() {
+        return background;
+    }
+
+    @Override
+    public Stroke getStroke() {
+        return stroke;
+    }
+
+    @Override
+    public void clip(Shape s) {
+        if (s == null) {
+            setClip(null);
+            return;
+        }
+        Shape shape = copy(s);
+        Area area = new Area(transform.createTransformedShape(shape));
+        if (clip != null) {
+            area.intersect(new Area(clip));
+        }
+        clip = area;
+        record(g -> g.clip(shape));
+    }
+
+    @Override
+    public FontRenderContext getFontRenderContext() {
+        Graphics2D measure = recording.measure();
+        measure.setRenderingHints(hints);
+        measure.setTransform(transform);
+        return measure.getFontRenderContext();
+    }
+
+    @Override
+    public Color getColor() {
+        return color;
+    }
+
+    @Override
+    public void setColor(Color c) {
+        if (c == null) {
+            return;
+        }
+        this.color = c;
+        this.paint = c;
+        record(g -> g.setColor(c));
+    }
+
+    @Override
+    public void setPaintMode() {
+        record(Graphics::setPaintMode);
+    }
+
+    @Override
+    public void setXORMode(Color c1) {
+        record(g -> g.setXORMode(c1));
+    }
+
+    @Override
+    public Font getFont() {
+        return font;
+    }
+
+    @Override
+    public void setFont(Font font) {
+        if (font == null) {
+            return;
+        }
+        this.font = font;
+        record(g -> g.setFont(font));
+    }
+
+    @Override
+    public FontMetrics getFontMetrics(Font f) {
+        Graphics2D measure = recording.measure();
+        measure.setRenderingHints(hints);
+        return measure.getFontMetrics(f);
+    }
+
+    @Override
+    public Rectangle getClipBounds() {
+        Shape userClip = getClip();
+        return userClip == null ? null : userClip.getBounds();
+    }
+
+    @Override
+    public void clipRect(int x, int y, int width, int height) {
+        clip(new Rectangle(x, y, width, height));
+    }
+
+    @Override
+    public void setClip(int x, int y, int width, int height) {
+        setClip(new Rectangle(x, y, width, height));
+    }
+
+    @Override
+    public Shape getClip() {
+        if (clip == null) {
+            return null;
+        }
+        try {
+            return transform.createInverse().createTransformedShape(clip);
+        } catch (NoninvertibleTransformException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void setClip(Shape s) {
+        Shape shape = copy(s);
+        clip = shape == null ? null : transform.createTransformedShape(shape);
+        record(g -> g.setClip(shape));
+    }
+
+    @Override
+    public void copyArea(int x, int y, int width, int height, int dx, int dy) {
+        record(g -> g.copyArea(x, y, width, height, dx, dy));
+    }
+
+    @Override
+    public void drawLine(int x1, int y1, int x2, int y2) {
+        record(g -> g.drawLine(x1, y1, x2, y2));
+    }
+
+    @Override
+    public void fillRect(int x, int y, int width, int height) {
+        record(g -> g.fillRect(x, y, width, height));
+    }
+
+    @Override
+    public void clearRect(int x, int y, int width, int height) {
+        record(g -> g.clearRect(x, y, width, height));
+    }
+
+    @Override
+    public void drawRoundRect(int x, int y, int width, int height, int arcWidth, int arcHeight) {
+        record(g -> g.drawRoundRect(x, y, width, height, arcWidth, arcHeight));
+    }
+
+    @Override
+    public void fillRoundRect(int x, int y, int width, int height, int arcWidth, int arcHeight) {
+        record(g -> g.fillRoundRect(x, y, width, height, arcWidth, arcHeight));
+    }
+
+    @Override
+    public void drawOval(int x, int y, int width, int height) {
+        record(g -> g.drawOval(x, y, width, height));
+    }
+
+    @Override
+    public void fillOval(int x, int y, int width, int height) {
+        record(g -> g.fillOval(x, y, width, height));
+    }
+
+    @Override
+    public void drawArc(int x, int y, int width, int height, int startAngle, int arcAngle) {
+        record(g -> g.drawArc(x, y, width, height, startAngle, arcAngle));
+    }
+
+    @Override
+    public void fillArc(int x, int y, int width, int height, int startAngle, int arcAngle) {
+        record(g -> g.fillArc(x, y, width, height, startAngle, arcAngle));
+    }
+
+    @Override
+    public void drawPolyline(int[] xPoints, int[] yPoints, int nPoints) {
+        int[] xs = xPoints.clone();
+        int[] ys = yPoints.clone();
+        record(g -> g.drawPolyline(xs, ys, nPoints));
+    }
+
+    @Override
+    public void drawPolygon(int[] xPoints, int[] yPoints, int nPoints) {
+        int[] xs = xPoints.clone();
+        int[] ys = yPoints.clone();
+        record(g -> g.drawPolygon(xs, ys, nPoints));
+    }
+
+    @Override
+    public void fillPolygon(int[] xPoints, int[] yPoints, int nPoints) {
+        int[] xs = xPoints.clone();
+        int[] ys = yPoints.clone();
+        record(g -> g.fillPolygon(xs, ys, nPoints));
+    }
+
+    @Override
+    public boolean drawImage(Image img, int x, int y, ImageObserver observer) {
+        record(g -> g.drawImage(img, x, y, null));
+        return true;
+    }
+
+    @Override
+    public boolean drawImage(Image img, int x, int y, int width, int height, ImageObserver observer) {
+        record(g -> g.drawImage(img, x, y, width, height, null));
+        return true;
+    }
+
+    @Override
+    public boolean drawImage(Image img, int x, int y, Color bgcolor, ImageObserver observer) {
+        record(g -> g.drawImage(img, x, y, bgcolor, null));
+        return true;
+    }
+
+    @Override
+    public boolean drawImage(Image img, int x, int y, int width, int height, Color bgcolor, ImageObserver observer) {
+        record(g -> g.drawImage(img, x, y, width, height, bgcolor, null));
+        return true;
+    }
+
+    @Override
+    public boolean drawImage(Image img, int dx1, int dy1, int dx2, int dy2, int sx1, int sy1, int sx2, int sy2,
+            ImageObserver observer) {
+        record(g -> g.drawImage(img, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2, null));
+        return true;
+    }
+
+    @Override
+    public boolean drawImage(Image img, int dx1, int dy1, int dx2, int dy2, int sx1, int sy1, int sx2, int sy2,
+            Color bgcolor, ImageObserver observer) {
+        record(g -> g.drawImage(img, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2, bgcolor, null));
+        return true;
+    }
+}
@@ -59,6 +59,15 @@ public abstract class DisplayListContainer {
 		public List<DisplayListOperation> getOperations() {
 			return this.ops == null ? Collections.emptyList() : this.ops;
 		}
+
+		/**
+		 * Drops the operations of this page and its shadow pages,
+		 * for use once they have been painted.
+		 */
+		public void clear() {
+		    this.ops = null;
+		    this.shadowPages = null;
+		}
 	}
 	
 	public abstract DisplayListPageContainer getPageInstructions(int pg);
@@ -128,9 +128,13 @@ public class SimplePainter {
                         List<CollapsedBorderSide> borders = collapsedTableBorders.get(cell);
 
                         if (borders != null) {
+                            BorderPainter.Batch batch = new BorderPainter.Batch(c);
+
                             for (CollapsedBorderSide border : borders) {
-                                border.getCell().paintCollapsedBorder(c, border.getSide());
+                                border.getCell().paintCollapsedBorder(c, batch, border.getSide());
                             }
+
+                            batch.flush();
                         }
                     }
                 }
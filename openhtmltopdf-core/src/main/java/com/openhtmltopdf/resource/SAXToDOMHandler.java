@@ -0,0 +1,106 @@
+package com.openhtmltopdf.resource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.XMLConstants;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.Attributes;
+import org.xml.sax.ext.DefaultHandler2;
+
+/**
+ * Builds a DOM directly from SAX events, producing the same tree as the
+ * TrAX identity transform into a <code>DOMResult</code> that was used before:
+ * namespace declarations become <code>xmlns</code> attributes, adjacent character
+ * events are merged into one text node, comments and processing instructions
+ * are kept and the document type, CDATA boundaries and ignorable whitespace are dropped.
+ */
+class SAXToDOMHandler extends DefaultHandler2 {
+    private final Document _document;
+    private final StringBuilder _text = new StringBuilder();
+    private final List<String> _namespaceDecls = new ArrayList<>();
+    private Node _current;
+
+    SAXToDOMHandler(Document document) {
+        _document = document;
+        _current = document;
+    }
+
+    Document getDocument() {
+        return _document;
+    }
+
+    private void appendText() {
+        if (_text.length() > 0) {
+            _current.appendChild(_document.createTextNode(_text.toString()));
+            _text.setLength(0);
+        }
+    }
+
+    @Override
+    public void startPrefixMapping(String prefix, String uri) {
+        _namespaceDecls.add(prefix);
+        _namespaceDecls.add(uri);
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) {
+        appendText();
+
+        Element element = _document.createElementNS(uri, qName);
+
+        for (int i = 0; i < _namespaceDecls.size(); i += 2) {
+            String prefix = _namespaceDecls.get(i);
+            String name = prefix == null || prefix.isEmpty() ?
+                    XMLConstants.XMLNS_ATTRIBUTE : XMLConstants.XMLNS_ATTRIBUTE + ':' + prefix;
+
+            element.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, name, _namespaceDecls.get(i + 1));
+        }
+        _namespaceDecls.clear();
+
+        for (int i = 0; i < attributes.getLength(); i++) {
+            element.setAttributeNS(attributes.getURI(i), attributes.getQName(i), attributes.getValue(i));
+        }
+
+        _current.appendChild(element);
+        _current = element;
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) {
+        appendText();
+        _current = _current.getParentNode();
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        // Text can not be a child of the document node.
+        if (_current != _document) {
+            _text.append(ch, start, length);
+        }
+    }
+
+    @Override
+    public void ignorableWhitespace(char[] ch, int start, int length) {
+    }
+
+    @Override
+    public void processingInstruction(String target, String data) {
+        appendText();
+        _current.appendChild(_document.createProcessingInstruction(target, data));
+    }
+
+    @Override
+    public void comment(char[] ch, int start, int length) {
+        appendText();
+        _current.appendChild(_document.createComment(new String(ch, start, length)));
+    }
+
+    @Override
+    public void endDocument() {
+        appendText();
+    }
+}
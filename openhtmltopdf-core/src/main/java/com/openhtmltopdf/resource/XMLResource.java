@@ -22,19 +22,17 @@ package com.openhtmltopdf.resource;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 
 import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.FactoryConfigurationError;
+import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
-import javax.xml.transform.Source;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.TransformerFactoryConfigurationError;
-import javax.xml.transform.dom.DOMResult;
-import javax.xml.transform.sax.SAXSource;
 
 import com.openhtmltopdf.util.*;
 
@@ -99,15 +97,39 @@ public class XMLResource extends AbstractResource {
         this.document = document;
     }
 
+    /**
+     * The SAX parser factory, configured once as the JAXP service lookup
+     * is relatively slow. Factories are not guaranteed to be thread safe so
+     * parsers must be created while holding its lock.
+     */
+    private static class SAXParserFactoryHolder {
+        private static final SAXParserFactory FACTORY = newSaxParserFactory();
+
+        private static SAXParserFactory newSaxParserFactory() {
+            try {
+                SAXParserFactory factory = SAXParserFactory.newInstance();
+                setSaxParserRequestedFeatures(factory);
+                return factory;
+            } catch (FactoryConfigurationError e) {
+                XRLog.log(Level.INFO, LogMessageId.LogMessageId1Param.GENERAL_MESSAGE, e.getMessage());
+                return null;
+            }
+        }
+    }
+
     public static final XMLReader newXMLReader() {
         XMLReader xmlReader = null;
 
         try {
-            SAXParserFactory factory = SAXParserFactory.newInstance();
-            setSaxParserRequestedFeatures(factory);
+            SAXParserFactory factory = SAXParserFactoryHolder.FACTORY;
 
-            SAXParser parser = factory.newSAXParser();
-            xmlReader = parser.getXMLReader();
+            if (factory != null) {
+                SAXParser parser;
+                synchronized (factory) {
+                    parser = factory.newSAXParser();
+                }
+                xmlReader = parser.getXMLReader();
+            }
         } catch (Exception ex) {
             XRLog.log(Level.INFO, LogMessageId.LogMessageId1Param.GENERAL_MESSAGE, ex.getMessage());
         }
@@ -159,6 +181,8 @@ public class XMLResource extends AbstractResource {
     }
 
     private static class XMLResourceBuilder {
+        private static final String LEXICAL_HANDLER_PROPERTY = "http://xml.org/sax/properties/lexical-handler";
+
         private void setXmlReaderSecurityFeatures(XMLReader xmlReader) {
             boolean b = true;
 
@@ -191,26 +215,13 @@ public class XMLResource extends AbstractResource {
             }
         }
 
-        private void setTranformerFactorySecurityFeatures(TransformerFactory xformFactory) {
-            boolean b = true;
-
-            b &= trySetFeature(XMLConstants.ACCESS_EXTERNAL_DTD, "", xformFactory::setAttribute);
-            b &= trySetFeature(XMLConstants.ACCESS_EXTERNAL_STYLESHEET, "", xformFactory::setAttribute);
-
-            if (!b) {
-                XRLog.log(Level.SEVERE, LogMessageId.LogMessageId0Param.LOAD_UNABLE_TO_DISABLE_XML_EXTERNAL_ENTITIES);
-            }
-        }
+        /**
+         * Configured document builder factories by preferred implementation class name,
+         * with the empty string for the default implementation.
+         * As with the SAX parser factory, builders are created while holding the factory lock.
+         */
+        private final Map<String, DocumentBuilderFactory> _documentBuilderFactories = new ConcurrentHashMap<>();
 
-    	private TransformerFactory loadPreferredTransformerFactory(String preferredImpl) {
-            try {
-            	return TransformerFactory.newInstance(preferredImpl, null);
-            } catch (TransformerFactoryConfigurationError e) {
-                XRLog.log(Level.SEVERE, LogMessageId.LogMessageId1Param.LOAD_COULD_NOT_LOAD_PREFERRED_XML, "transformer");
-            	return TransformerFactory.newInstance();
-            }
-    	}
-    	
     	private DocumentBuilderFactory loadPreferredDocumentBuilderFactory(String preferredImpl) {
             try {
             	return preferredImpl == null ? DocumentBuilderFactory.newInstance() : DocumentBuilderFactory.newInstance(preferredImpl, null);
@@ -220,11 +231,31 @@ public class XMLResource extends AbstractResource {
             }
     	}
 
+        private DocumentBuilderFactory getDocumentBuilderFactory(String preferredImpl) {
+            return _documentBuilderFactories.computeIfAbsent(preferredImpl == null ? "" : preferredImpl, key -> {
+                DocumentBuilderFactory dbf = loadPreferredDocumentBuilderFactory(preferredImpl);
+
+                setDocumentBuilderSecurityFeatures(dbf);
+                dbf.setNamespaceAware(true);
+                dbf.setValidating(false); // validation is the root of all evil in xml - tobe
+
+                return dbf;
+            });
+        }
+
+        private Document newDocument(String preferredImpl) throws ParserConfigurationException {
+            DocumentBuilderFactory dbf = getDocumentBuilderFactory(preferredImpl);
+            DocumentBuilder builder;
+
+            synchronized (dbf) {
+                builder = dbf.newDocumentBuilder();
+            }
+
+            return builder.newDocument();
+        }
+
     	private XMLResource createXMLResource(XMLResource target) {
-            Source input = null;
-            DOMResult output = null;
-            TransformerFactory xformFactory = null;
-            Transformer idTransform = null;
+            SAXToDOMHandler handler;
             XMLReader xmlReader = null;
             long st = 0L;
 
@@ -236,38 +267,24 @@ public class XMLResource extends AbstractResource {
 
             st = System.currentTimeMillis();
             try {
-                input = new SAXSource(xmlReader, target.getResourceInputSource());
-                
                 String preferredDocumentBuilderFactory = ThreadCtx.get().sharedContext()._preferredDocumentBuilderFactoryImplementationClass;
-                DocumentBuilderFactory dbf = loadPreferredDocumentBuilderFactory(preferredDocumentBuilderFactory);
-                
-                setDocumentBuilderSecurityFeatures(dbf);
-                dbf.setNamespaceAware(true);
-                dbf.setValidating(false); // validation is the root of all evil in xml - tobe
-                
-                output = new DOMResult(dbf.newDocumentBuilder().newDocument());
-                
-                String preferredTransformerFactory = ThreadCtx.get().sharedContext()._preferredTransformerFactoryImplementationClass;
-                
-                if (preferredTransformerFactory == null) {
-                	xformFactory = TransformerFactory.newInstance();
-                } else {
-                	xformFactory = loadPreferredTransformerFactory(preferredTransformerFactory);
-                }
-                
-                setTranformerFactorySecurityFeatures(xformFactory);
-                idTransform = xformFactory.newTransformer();
-                
+
+                // The DOM is built directly from the SAX events, there is no need
+                // for a TrAX identity transform.
+                handler = new SAXToDOMHandler(newDocument(preferredDocumentBuilderFactory));
+
+                xmlReader.setContentHandler(handler);
+                trySetFeature(LEXICAL_HANDLER_PROPERTY, handler, xmlReader::setProperty);
             } catch (Exception ex) {
                 throw new XRRuntimeException(
-                        "Failed on configuring SAX to DOM transformer.", ex);
+                        "Failed on configuring SAX to DOM handler.", ex);
             }
 
             try {
-                idTransform.transform(input, output);
+                xmlReader.parse(target.getResourceInputSource());
             } catch (Exception ex) {
                 throw new XRRuntimeException(
-                        "Can't load the XML resource (using TRaX transformer). " + ex.getMessage(), ex);
+                        "Can't load the XML resource (using SAX to DOM handler). " + ex.getMessage(), ex);
             }
 
             long end = System.currentTimeMillis();
@@ -276,7 +293,7 @@ public class XMLResource extends AbstractResource {
 
             XRLog.log(Level.FINEST, LogMessageId.LogMessageId1Param.LOAD_LOADED_DOCUMENT_TIME, target.getElapsedLoadTime());
 
-            target.setDocument((Document) output.getNode());
+            target.setDocument(handler.getDocument());
             return target;
         }
 
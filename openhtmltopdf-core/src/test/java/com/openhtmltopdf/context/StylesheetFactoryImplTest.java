@@ -0,0 +1,146 @@
+package com.openhtmltopdf.context;
+
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+import com.openhtmltopdf.css.constants.CSSName;
+import com.openhtmltopdf.css.extend.lib.DOMTreeResolver;
+import com.openhtmltopdf.css.newmatch.CascadedStyle;
+import com.openhtmltopdf.css.newmatch.Matcher;
+import com.openhtmltopdf.css.sheet.Ruleset;
+import com.openhtmltopdf.css.sheet.Stylesheet;
+import com.openhtmltopdf.css.sheet.StylesheetInfo;
+import com.openhtmltopdf.layout.SharedContext;
+import com.openhtmltopdf.outputdevice.helper.ExternalResourceType;
+import com.openhtmltopdf.resource.CSSResource;
+import com.openhtmltopdf.resource.ImageResource;
+import com.openhtmltopdf.simple.extend.XhtmlNamespaceHandler;
+import com.openhtmltopdf.swing.NaiveUserAgent;
+import com.openhtmltopdf.util.ThreadCtx;
+
+public class StylesheetFactoryImplTest {
+    @Before
+    public void setUp() {
+        SharedContext sharedContext = new SharedContext();
+        sharedContext.setUserAgentCallback(new NaiveUserAgent() {
+            @Override
+            public ImageResource getImageResource(String uri, ExternalResourceType type) {
+                return null;
+            }
+        });
+        sharedContext.setBaseURL("http://example.com/");
+        ThreadCtx.get().setSharedContext(sharedContext);
+    }
+
+    @After
+    public void tearDown() {
+        ThreadCtx.cleanup();
+    }
+
+    @Test
+    public void testIdenticalStyleDeclarationsShareRuleset() {
+        StylesheetFactoryImpl factory = new StylesheetFactoryImpl(null);
+
+        Ruleset first = factory.parseStyleDeclaration(StylesheetInfo.AUTHOR, "text-align:right;padding:2px");
+        Ruleset second = factory.parseStyleDeclaration(StylesheetInfo.AUTHOR, "text-align:right;padding:2px");
+        Ruleset other = factory.parseStyleDeclaration(StylesheetInfo.AUTHOR, "text-align:left");
+
+        Assert.assertSame(first, second);
+        Assert.assertNotSame(first, other);
+        Assert.assertEquals(5, first.getPropertyDeclarations().size());
+    }
+
+    /**
+     * Tests that elements matched by the same selectors with the same style
+     * attribute get the same cascaded style.
+     */
+    @Test
+    public void testIdenticalInlineStylesShareCascadedStyle() throws Exception {
+        DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+        dbf.setNamespaceAware(true);
+        Document doc = dbf.newDocumentBuilder().parse(new InputSource(new StringReader(
+                "<html xmlns=\"http://www.w3.org/1999/xhtml\"><body><table><tr>" +
+                "<td style=\"text-align:right\">1</td>" +
+                "<td style=\"text-align:right\">2</td>" +
+                "<td style=\"text-align:left\">3</td>" +
+                "<td>4</td><td>5</td>" +
+                "</tr></table></body></html>")));
+
+        StylesheetFactoryImpl factory = new StylesheetFactoryImpl(null);
+        Matcher matcher = new Matcher(
+                new DOMTreeResolver(),
+                new StandardAttributeResolver(new XhtmlNamespaceHandler(), null, null),
+                factory,
+                Collections.<Stylesheet>emptyList(),
+                "print");
+
+        NodeList cells = doc.getElementsByTagName("td");
+        CascadedStyle[] styles = new CascadedStyle[cells.getLength()];
+
+        for (int i = 0; i < styles.length; i++) {
+            styles[i] = matcher.getCascadedStyle((Element) cells.item(i), false);
+        }
+
+        Assert.assertSame(styles[0], styles[1]);
+        Assert.assertNotSame(styles[0], styles[2]);
+        Assert.assertSame(styles[3], styles[4]);
+        Assert.assertEquals("right", styles[0].propertyByName(CSSName.TEXT_ALIGN).getValue().getCssText());
+        Assert.assertEquals("left", styles[2].propertyByName(CSSName.TEXT_ALIGN).getValue().getCssText());
+    }
+
+    private static StylesheetInfo linked(String uri, int origin, String media) {
+        StylesheetInfo info = new StylesheetInfo();
+        info.setUri(uri);
+        info.setOrigin(origin);
+        info.setMedia(media);
+        return info;
+    }
+
+    /**
+     * Tests that a linked sheet is loaded once for each origin and media it is
+     * linked with, and then comes from the cache.
+     */
+    @Test
+    public void testStylesheetCacheKeyedByOriginAndMedia() {
+        Map<String, Integer> loads = new HashMap<>();
+        StylesheetFactoryImpl factory = new StylesheetFactoryImpl(new NaiveUserAgent() {
+            @Override
+            public CSSResource getCSSResource(String uri, ExternalResourceType type) {
+                loads.merge(uri, 1, Integer::sum);
+                return new CSSResource(new StringReader("p { color: red; }"));
+            }
+
+            @Override
+            public ImageResource getImageResource(String uri, ExternalResourceType type) {
+                return null;
+            }
+        });
+        factory.setStylesheetCache(new HashMap<>());
+
+        String uri = "http://example.com/style.css";
+        Stylesheet author = factory.getStylesheet(linked(uri, StylesheetInfo.AUTHOR, "all"));
+        Stylesheet user = factory.getStylesheet(linked(uri, StylesheetInfo.USER, "all"));
+        Stylesheet print = factory.getStylesheet(linked(uri, StylesheetInfo.AUTHOR, "print"));
+
+        Assert.assertEquals(StylesheetInfo.AUTHOR, author.getOrigin());
+        Assert.assertEquals(StylesheetInfo.USER, user.getOrigin());
+        Assert.assertNotSame(author, print);
+
+        Assert.assertSame(author, factory.getStylesheet(linked(uri, StylesheetInfo.AUTHOR, "all")));
+        Assert.assertSame(user, factory.getStylesheet(linked(uri, StylesheetInfo.USER, "all")));
+        Assert.assertEquals(Integer.valueOf(3), loads.get(uri));
+    }
+}
@@ -0,0 +1,69 @@
+package com.openhtmltopdf.css.extend.lib;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+
+public class DOMTreeResolverTest {
+    private static Document dom(String xml) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        return factory.newDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+    }
+
+    private static List<Element> children(Element parent) {
+        List<Element> result = new ArrayList<>();
+        for (Node n = parent.getFirstChild(); n != null; n = n.getNextSibling()) {
+            if (n.getNodeType() == Node.ELEMENT_NODE) {
+                result.add((Element) n);
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void testPositionInAnyOrder() throws Exception {
+        Document doc = dom("<r> text <a/><!-- c --><b><x/><y/></b> <c/>more<d/></r>");
+        List<Element> children = children(doc.getDocumentElement());
+        DOMTreeResolver resolver = new DOMTreeResolver();
+
+        int[] order = { 0, 1, 2, 3, 3, 1, 0, 2 };
+        for (int i : order) {
+            Assert.assertEquals(i, resolver.getPositionOfElement(children.get(i)));
+        }
+
+        List<Element> nested = children(children.get(1));
+        Assert.assertEquals(1, resolver.getPositionOfElement(nested.get(1)));
+        Assert.assertEquals(2, resolver.getPositionOfElement(children.get(2)));
+    }
+
+    /**
+     * Tests that elements appended after positions were looked up,
+     * such as generated footnote markers, get a position.
+     */
+    @Test
+    public void testPositionOfAppendedElement() throws Exception {
+        Document doc = dom("<r><a/><b/></r>");
+        Element root = doc.getDocumentElement();
+        DOMTreeResolver resolver = new DOMTreeResolver();
+
+        for (Element e : children(root)) {
+            resolver.getPositionOfElement(e);
+        }
+
+        Element appended = doc.createElement("c");
+        root.appendChild(appended);
+
+        Assert.assertEquals(2, resolver.getPositionOfElement(appended));
+        Assert.assertFalse(resolver.isLastChildElement(children(root).get(1)));
+    }
+}
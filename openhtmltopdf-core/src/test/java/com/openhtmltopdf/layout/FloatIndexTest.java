@@ -0,0 +1,86 @@
+package com.openhtmltopdf.layout;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.openhtmltopdf.layout.FloatManager.BoxOffset;
+import com.openhtmltopdf.render.BlockBox;
+
+public class FloatIndexTest {
+    private static List<BoxOffset> intersecting(FloatIndex index, Rectangle query) {
+        List<BoxOffset> result = new ArrayList<>();
+        index.visitIntersecting(query, (floater, bounds) -> { result.add(floater); return false; });
+        return result;
+    }
+
+    private static List<BoxOffset> linear(List<BoxOffset> floats, List<Rectangle> bounds, Rectangle query) {
+        List<BoxOffset> result = new ArrayList<>();
+        for (int i = 0; i < floats.size(); i++) {
+            if (bounds.get(i).intersects(query)) {
+                result.add(floats.get(i));
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void testEmpty() {
+        FloatIndex index = new FloatIndex();
+        assertEquals(0, index.getLowestY());
+        assertFalse(index.intersectsAny(new Rectangle(0, 0, 100, 100)));
+    }
+
+    @Test
+    public void testMatchesLinearScan() {
+        Random rnd = new Random(42);
+
+        for (boolean sorted : new boolean[] { true, false }) {
+            FloatIndex index = new FloatIndex();
+            List<BoxOffset> floats = new ArrayList<>();
+            List<Rectangle> bounds = new ArrayList<>();
+            int y = 0;
+
+            for (int i = 0; i < 100; i++) {
+                y = sorted ? y + rnd.nextInt(20) : rnd.nextInt(1000);
+                Rectangle r = new Rectangle(rnd.nextInt(200), y, 1 + rnd.nextInt(50), 1 + rnd.nextInt(60));
+                BoxOffset bo = new BoxOffset(new BlockBox(), 0, 0);
+
+                floats.add(bo);
+                bounds.add(r);
+                index.add(bo, r);
+            }
+
+            for (int i = 0; i < 500; i++) {
+                Rectangle query = new Rectangle(rnd.nextInt(250), rnd.nextInt(1100), 1 + rnd.nextInt(100), 1 + rnd.nextInt(40));
+                assertEquals(linear(floats, bounds, query), intersecting(index, query));
+            }
+
+            int lowest = bounds.stream().mapToInt(r -> r.y + r.height).max().getAsInt();
+            assertEquals(lowest, index.getLowestY());
+        }
+    }
+
+    @Test
+    public void testRemove() {
+        FloatIndex index = new FloatIndex();
+        BlockBox first = new BlockBox();
+        BlockBox second = new BlockBox();
+
+        index.add(new BoxOffset(first, 0, 0), new Rectangle(0, 0, 10, 100));
+        index.add(new BoxOffset(second, 0, 0), new Rectangle(0, 10, 10, 20));
+
+        assertTrue(index.remove(first));
+        assertFalse(index.remove(first));
+        assertEquals(1, index.getFloats().size());
+        assertEquals(30, index.getLowestY());
+        assertFalse(index.intersectsAny(new Rectangle(0, 50, 10, 10)));
+    }
+}
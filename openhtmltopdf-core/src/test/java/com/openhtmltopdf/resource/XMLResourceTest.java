@@ -0,0 +1,78 @@
+package com.openhtmltopdf.resource;
+
+import java.io.StringReader;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMResult;
+import javax.xml.transform.sax.SAXSource;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import com.openhtmltopdf.layout.SharedContext;
+import com.openhtmltopdf.util.ThreadCtx;
+
+public class XMLResourceTest {
+    private static final String XML =
+            "<?xml version=\"1.0\"?>\n" +
+            "<!DOCTYPE html PUBLIC \"-//W3C//DTD XHTML 1.0 Strict//EN\" \"http://www.w3.org/TR/xhtml1/DTD/xhtml1-strict.dtd\">\n" +
+            "<!-- before -->\n" +
+            "<html xmlns=\"http://www.w3.org/1999/xhtml\" xmlns:svg=\"http://www.w3.org/2000/svg\" lang=\"en\">" +
+            "<head><title>T&amp;T</title><?pi data?></head>" +
+            "<body class=\"a\">Some &nbsp;text<![CDATA[ <cdata> ]]>more<!-- inner -->" +
+            "<svg:svg xml:space=\"preserve\" svg:width=\"10\"><svg:rect/></svg:svg>\n</body></html>\n" +
+            "<!-- after -->";
+
+    @Before
+    public void setUp() {
+        ThreadCtx.get().setSharedContext(new SharedContext());
+    }
+
+    @After
+    public void tearDown() {
+        ThreadCtx.cleanup();
+    }
+
+    private static Document loadWithIdentityTransform(String xml) throws Exception {
+        XMLReader xmlReader = XMLResource.newXMLReader();
+        xmlReader.setEntityResolver(FSEntityResolver.instance());
+
+        DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+        dbf.setNamespaceAware(true);
+
+        DOMResult output = new DOMResult(dbf.newDocumentBuilder().newDocument());
+        Transformer idTransform = TransformerFactory.newInstance().newTransformer();
+        idTransform.transform(new SAXSource(xmlReader, new InputSource(new StringReader(xml))), output);
+
+        return (Document) output.getNode();
+    }
+
+    /**
+     * Tests that building the DOM directly from SAX events gives the same
+     * tree as the identity transform that was used before.
+     */
+    @Test
+    public void testSameDocumentAsIdentityTransform() throws Exception {
+        Document expected = loadWithIdentityTransform(XML);
+        Document actual = XMLResource.load(new StringReader(XML)).getDocument();
+
+        Assert.assertTrue(expected.isEqualNode(actual));
+        Assert.assertEquals("en", actual.getDocumentElement().getAttributeNS(null, "lang"));
+        Assert.assertEquals("http://www.w3.org/1999/xhtml", actual.getDocumentElement().getNamespaceURI());
+    }
+
+    @Test
+    public void testRepeatedLoads() {
+        for (int i = 0; i < 3; i++) {
+            Document doc = XMLResource.load(new StringReader("<p>" + i + "</p>")).getDocument();
+            Assert.assertEquals(String.valueOf(i), doc.getDocumentElement().getTextContent());
+        }
+    }
+}
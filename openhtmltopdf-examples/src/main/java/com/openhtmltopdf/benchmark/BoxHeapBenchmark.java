@@ -0,0 +1,85 @@
+package com.openhtmltopdf.benchmark;
+
+import java.io.IOException;
+
+import com.openhtmltopdf.performance.PerformanceCaseGenerator;
+import com.openhtmltopdf.pdfboxout.PdfBoxRenderer;
+import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
+import com.openhtmltopdf.render.Box;
+import com.openhtmltopdf.render.InlineLayoutBox;
+import com.openhtmltopdf.render.InlineText;
+import com.openhtmltopdf.util.XRLog;
+
+/**
+ * Measures the heap retained by the box tree of a large document after layout,
+ * that is the memory held while the pages are written out.
+ * <p>
+ * Run with a fixed heap so that the numbers are comparable between runs, for example:
+ * <pre>
+ * java -Xms2g -Xmx2g -cp ... com.openhtmltopdf.benchmark.BoxHeapBenchmark
+ * </pre>
+ */
+public class BoxHeapBenchmark {
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime rt = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+
+        // System.gc() is only a hint, so take the minimum of a few attempts.
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(100);
+            used = Math.min(used, rt.totalMemory() - rt.freeMemory());
+        }
+
+        return used;
+    }
+
+    private static long countBoxes(Box box) {
+        long count = 1;
+
+        if (box instanceof InlineLayoutBox) {
+            for (Object child : ((InlineLayoutBox) box).getInlineChildren()) {
+                if (child instanceof Box) {
+                    count += countBoxes((Box) child);
+                } else if (child instanceof InlineText) {
+                    count++;
+                }
+            }
+        }
+
+        for (Box child : box.getChildren()) {
+            count += countBoxes(child);
+        }
+
+        return count;
+    }
+
+    private static void run(String name, String html) throws IOException, InterruptedException {
+        PdfRendererBuilder builder = new PdfRendererBuilder();
+        builder.withHtmlContent(html, null);
+        builder.testMode(true);
+
+        try (PdfBoxRenderer renderer = builder.buildPdfRenderer()) {
+            long before = usedHeap();
+            renderer.layout();
+            long after = usedHeap();
+
+            long boxes = countBoxes(renderer.getRootBox());
+            long retained = after - before;
+
+            System.out.printf("%s: %d pages, %d boxes, %d KB retained by layout, %d bytes per box%n",
+                    name, renderer.getRootBox().getLayer().getPages().size(),
+                    boxes, retained / 1024, retained / boxes);
+        }
+    }
+
+    public static void main(String... args) throws Exception {
+        XRLog.setLoggerImpl(new NoopLogger());
+
+        run("paragraphs", PerformanceCaseGenerator.paragraphs(2_000));
+        run("blocks", PerformanceCaseGenerator.blocks(20_000));
+        run("table-rows", PerformanceCaseGenerator.tableRows(20_000));
+    }
+
+}
@@ -66,9 +66,14 @@ public class RenderTextBenchmark {
         ).forEach(path -> contents.put(path, readContent(path)));
 
         contents.put("/performance/table-rows", PerformanceCaseGenerator.tableRows(1_000));
+        contents.put("/performance/inline-styled-table-rows", PerformanceCaseGenerator.inlineStyledTableRows(1_000));
         contents.put("/performance/paragraphs", PerformanceCaseGenerator.paragraphs(100));
         contents.put("/performance/page-break-blocks", PerformanceCaseGenerator.pageBreakAvoidBlocks(300));
         contents.put("/performance/blocks", PerformanceCaseGenerator.blocks(300));
+        contents.put("/performance/nested-page-break-avoid", PerformanceCaseGenerator.nestedPageBreakAvoid(100));
+        contents.put("/performance/floats", PerformanceCaseGenerator.floats(300));
+        contents.put("/performance/bordered-table-cells", PerformanceCaseGenerator.borderedTableCells(1_000, false));
+        contents.put("/performance/beveled-table-cells", PerformanceCaseGenerator.borderedTableCells(1_000, true));
     }
 
     @Benchmark
@@ -86,6 +91,11 @@ public class RenderTextBenchmark {
         runRenderer(contents.get("/performance/table-rows"));
     }
 
+    @Benchmark
+    public void renderInlineStyledTableRows() throws IOException {
+        runRenderer(contents.get("/performance/inline-styled-table-rows"));
+    }
+
     @Benchmark
     public void renderParagraphs() throws IOException {
         runRenderer(contents.get("/performance/paragraphs"));
@@ -101,6 +111,26 @@ public class RenderTextBenchmark {
         runRenderer(contents.get("/performance/blocks"));
     }
 
+    @Benchmark
+    public void renderNestedPageBreakAvoid() throws IOException {
+        runRenderer(contents.get("/performance/nested-page-break-avoid"));
+    }
+
+    @Benchmark
+    public void renderFloats() throws IOException {
+        runRenderer(contents.get("/performance/floats"));
+    }
+
+    @Benchmark
+    public void renderBorderedTableCells() throws IOException {
+        runRenderer(contents.get("/performance/bordered-table-cells"));
+    }
+
+    @Benchmark
+    public void renderBeveledTableCells() throws IOException {
+        runRenderer(contents.get("/performance/beveled-table-cells"));
+    }
+
     private void runRenderer(String html) throws IOException {
         ByteArrayOutputStream actual = new ByteArrayOutputStream();
 
@@ -0,0 +1,106 @@
+package com.openhtmltopdf.benchmark;
+
+import com.openhtmltopdf.layout.SharedContext;
+import com.openhtmltopdf.performance.PerformanceCaseGenerator;
+import com.openhtmltopdf.resource.FSEntityResolver;
+import com.openhtmltopdf.resource.XMLResource;
+import com.openhtmltopdf.util.ThreadCtx;
+import com.openhtmltopdf.util.XRLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMResult;
+import javax.xml.transform.sax.SAXSource;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link XMLResource#load(java.io.Reader)} against building the DOM with
+ * a TrAX identity transform and newly looked up document builder and transformer
+ * factories, as it was done before.
+ * <pre>
+ * mvn install -DskipTests
+ * java -jar ./openhtmltopdf-examples/target/benchmarks.jar XmlLoadBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 2, time = 3, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 2, time = 6, timeUnit = TimeUnit.SECONDS)
+@Fork(warmups = 0, value = 1)
+public class XmlLoadBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        Options opt = new OptionsBuilder()
+                .include(XmlLoadBenchmark.class.getSimpleName())
+                .build();
+
+        new Runner(opt).run();
+    }
+
+    private String small;
+    private String large;
+
+    @Setup
+    public void setUp() {
+        XRLog.setLoggerImpl(new NoopLogger());
+        ThreadCtx.get().setSharedContext(new SharedContext());
+
+        small = "<html><body><p>Dear <span id=\"name\">customer</span>,</p><p>Your order has shipped.</p></body></html>";
+        large = PerformanceCaseGenerator.paragraphs(100);
+    }
+
+    private static Document loadIdentityTransform(String xml) throws Exception {
+        XMLReader xmlReader = XMLResource.newXMLReader();
+        xmlReader.setEntityResolver(FSEntityResolver.instance());
+
+        DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+        dbf.setNamespaceAware(true);
+        dbf.setValidating(false);
+
+        DOMResult output = new DOMResult(dbf.newDocumentBuilder().newDocument());
+        Transformer idTransform = TransformerFactory.newInstance().newTransformer();
+        idTransform.transform(new SAXSource(xmlReader, new InputSource(new StringReader(xml))), output);
+
+        return (Document) output.getNode();
+    }
+
+    @Benchmark
+    public Document loadSmall() {
+        return XMLResource.load(new StringReader(small)).getDocument();
+    }
+
+    @Benchmark
+    public Document loadSmallIdentityTransform() throws Exception {
+        return loadIdentityTransform(small);
+    }
+
+    @Benchmark
+    public Document loadLarge() {
+        return XMLResource.load(new StringReader(large)).getDocument();
+    }
+
+    @Benchmark
+    public Document loadLargeIdentityTransform() throws Exception {
+        return loadIdentityTransform(large);
+    }
+
+}
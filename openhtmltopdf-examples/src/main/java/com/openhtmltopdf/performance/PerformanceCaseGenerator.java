@@ -36,6 +36,19 @@ public class PerformanceCaseGenerator {
         return join(hdr, tr, ftr, howMany);
     }
 
+    /**
+     * Table cells with repeated inline styles, as in generated reports.
+     */
+    public static String inlineStyledTableRows(int howMany) {
+        final String hdr = "<html><head><style>table { border-collapse: collapse; }</style></head><body><table>";
+        final String tr = "<tr><td style=\"text-align:left;padding:2px\">One</td>" +
+                          "<td style=\"text-align:right;padding:2px\">Two</td>" +
+                          "<td style=\"text-align:right;padding:2px;font-weight:bold\">Three</td></tr>";
+        final String ftr = "</table></body></html>";
+
+        return join(hdr, tr, ftr, howMany);
+    }
+
     /**
      * Performance of {@link BlockBoxing}
      */
@@ -50,6 +63,25 @@ public class PerformanceCaseGenerator {
         return join(hdr, block, ftr, howMany);
     }
 
+    /**
+     * Performance of {@link BlockBoxing} with runs of headings that
+     * avoid a page break after them, followed by nested keep-together clauses.
+     */
+    public static String nestedPageBreakAvoid(int howMany) {
+        final String hdr = "<html><head><style>" +
+                "body { font-family: sans-serif; }" +
+                "h2 { page-break-after: avoid; }" +
+                ".clause { page-break-inside: avoid; margin-left: 10px; }" +
+                "</style></head><body>";
+        final String section = "<h2>Clause</h2>" +
+                "<div class=\"clause\"><p>" + LOREM + "</p>" +
+                "<div class=\"clause\"><p>" + LOREM + "</p>" +
+                "<div class=\"clause\"><p>" + LOREM + "</p></div></div></div>";
+        final String ftr = "</body></html>";
+
+        return join(hdr, section, ftr, howMany);
+    }
+
     /**
      * Performance of {@link BlockBoxing}
      */
@@ -81,4 +113,36 @@ public class PerformanceCaseGenerator {
         return join(hdr, div, ftr, howMany);
     }
 
+    /**
+     * A grid of collapsed cell borders, ten cells to a row. With no beveling the
+     * borders of the table are painted as a few fills.
+     */
+    public static String borderedTableCells(int howManyRows, boolean bevel) {
+        final String hdr = "<html><head><style>table { border-collapse: collapse; -fs-border-rendering: " +
+                           (bevel ? "auto" : "no-bevel") + "; } td { border: 1px solid black; padding: 1px; }" +
+                           "</style></head><body><table>";
+        final String tr = "<tr><td>1</td><td>2</td><td>3</td><td>4</td><td>5</td>" +
+                          "<td>6</td><td>7</td><td>8</td><td>9</td><td>10</td></tr>";
+        final String ftr = "</table></body></html>";
+
+        return join(hdr, tr, ftr, howManyRows);
+    }
+
+    /**
+     * Performance of {@link com.openhtmltopdf.layout.FloatManager} with
+     * many small floats in one block formatting context, each line box
+     * having to find the floats beside it.
+     */
+    public static String floats(int howMany) {
+        final String hdr = "<html><head><style>" +
+                "body { font-family: sans-serif; }" +
+                ".l { float: left; width: 40px; height: 30px; margin: 2px; }" +
+                ".r { float: right; width: 60px; height: 50px; margin: 2px; }" +
+                "</style></head><body>";
+        final String floats = "<div class=\"l\"></div><div class=\"r\"></div><p>" + LOREM + "</p>";
+        final String ftr = "</body></html>";
+
+        return join(hdr, floats, ftr, howMany);
+    }
+
 }
@@ -0,0 +1,38 @@
+package com.openhtmltopdf.performance;
+
+import java.io.ByteArrayOutputStream;
+
+import com.openhtmltopdf.pdfboxout.PdfRenderEngine;
+import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
+
+/**
+ * Times a render straight after startup against one after
+ * {@link PdfRenderEngine#warmUp()}. Can also be used to create a class
+ * list or class data sharing archive for the renderer classes:
+ * <pre>
+ * java -XX:DumpLoadedClassList=openhtmltopdf.classlist -cp ... com.openhtmltopdf.performance.WarmUpRunner
+ * java -XX:ArchiveClassesAtExit=openhtmltopdf.jsa -cp ... com.openhtmltopdf.performance.WarmUpRunner
+ * </pre>
+ */
+public class WarmUpRunner {
+
+    private static long render(PdfRenderEngine engine, String html) throws Exception {
+        long start = System.nanoTime();
+        engine.render(html, null, new ByteArrayOutputStream());
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    public static void main(String... args) throws Exception {
+        String html = PerformanceCaseGenerator.paragraphs(10);
+
+        PdfRenderEngine engine = new PdfRenderEngine(PdfRendererBuilder::new);
+        System.out.println("First render took " + render(engine, html) + " milliseconds.");
+
+        long start = System.nanoTime();
+        engine.warmUp();
+        System.out.println("Warm up took " + (System.nanoTime() - start) / 1_000_000 + " milliseconds.");
+
+        System.out.println("Render after warm up took " + render(engine, html) + " milliseconds.");
+    }
+
+}
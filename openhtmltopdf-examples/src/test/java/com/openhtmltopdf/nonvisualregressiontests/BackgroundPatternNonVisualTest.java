@@ -0,0 +1,127 @@
+package com.openhtmltopdf.nonvisualregressiontests;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.graphics.pattern.PDTilingPattern;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
+import com.openhtmltopdf.testlistener.PrintingRunner;
+import com.openhtmltopdf.util.OpenUtil;
+import com.openhtmltopdf.visualtest.TestSupport;
+
+/**
+ * Tests that repeated background images are written as one PDF tiling pattern rather
+ * than one image per tile. The visual side is covered by the visual regression tests.
+ */
+@RunWith(PrintingRunner.class)
+public class BackgroundPatternNonVisualTest {
+    /** A 1x1 red png, laid out at its natural size of one pixel. */
+    private static final String IMAGE =
+            "data:image/png;base64,iVBORw0KGgoAAAANSUhEUgAAAAEAAAABCAIAAACQd1PeAAAADElEQVR4nGP4z8AAAAMBAQDJ/pLvAAAAAElFTkSuQmCC";
+
+    @BeforeClass
+    public static void configure() {
+        TestSupport.quietLogs();
+    }
+
+    private static PDDocument render(String body) throws IOException {
+        String html =
+                "<html><head><style>@page { size: 200px 200px; margin: 0; } body { margin: 0; }" +
+                ".tiled { width: 200px; height: 100px; background-image: url(" + IMAGE + "); background-size: 10px 10px; }" +
+                "</style></head><body>" + body + "</body></html>";
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+        PdfRendererBuilder builder = new PdfRendererBuilder();
+        builder.withHtmlContent(html, null);
+        builder.toStream(os);
+        builder.testMode(true);
+        builder.run();
+
+        return Loader.loadPDF(os.toByteArray());
+    }
+
+    private static String pageContent(PDDocument doc, int pageNo) throws IOException {
+        try (InputStream in = doc.getPage(pageNo).getContents()) {
+            return new String(OpenUtil.readAll(in), StandardCharsets.US_ASCII);
+        }
+    }
+
+    private static List<PDTilingPattern> patternsOnPage(PDDocument doc, int pageNo) throws IOException {
+        List<PDTilingPattern> patterns = new ArrayList<>();
+        PDResources resources = doc.getPage(pageNo).getResources();
+
+        for (COSName name : resources.getPatternNames()) {
+            patterns.add((PDTilingPattern) resources.getPattern(name));
+        }
+
+        return patterns;
+    }
+
+    /**
+     * A 200x100 box tiled with a 10x10 image is two hundred tiles, but one fill of a pattern.
+     */
+    @Test
+    public void testRepeatedBackgroundIsOnePattern() throws IOException {
+        try (PDDocument doc = render("<div class=\"tiled\"></div>")) {
+            List<PDTilingPattern> patterns = patternsOnPage(doc, 0);
+
+            assertEquals(1, patterns.size());
+            assertTrue(patterns.get(0).getResources().getXObjectNames().iterator().hasNext());
+
+            String content = pageContent(doc, 0);
+            assertThat(content, not(containsString(" Do")));
+            assertThat(content, containsString(" scn"));
+        }
+    }
+
+    /**
+     * The same background at the same position on two pages uses the same pattern object.
+     */
+    @Test
+    public void testPatternSharedBetweenPages() throws IOException {
+        try (PDDocument doc = render(
+                "<div class=\"tiled\"></div>" +
+                "<div class=\"tiled\" style=\"page-break-before: always;\"></div>")) {
+            List<PDTilingPattern> first = patternsOnPage(doc, 0);
+            List<PDTilingPattern> second = patternsOnPage(doc, 1);
+
+            assertEquals(1, first.size());
+            assertEquals(1, second.size());
+
+            COSBase firstObject = first.get(0).getCOSObject();
+            assertSame(firstObject, second.get(0).getCOSObject());
+        }
+    }
+
+    /**
+     * A background that is not repeated is still drawn as an image.
+     */
+    @Test
+    public void testNoRepeatDrawnAsImage() throws IOException {
+        try (PDDocument doc = render("<div class=\"tiled\" style=\"background-repeat: no-repeat;\"></div>")) {
+            assertEquals(0, patternsOnPage(doc, 0).size());
+            assertThat(pageContent(doc, 0), containsString(" Do"));
+        }
+    }
+}
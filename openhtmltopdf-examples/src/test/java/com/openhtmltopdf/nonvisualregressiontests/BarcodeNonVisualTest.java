@@ -0,0 +1,98 @@
+package com.openhtmltopdf.nonvisualregressiontests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.graphics.PDXObject;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import com.openhtmltopdf.objects.zxing.ZXingObjectDrawer;
+import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
+import com.openhtmltopdf.render.DefaultObjectDrawerFactory;
+import com.openhtmltopdf.testlistener.PrintingRunner;
+import com.openhtmltopdf.visualtest.TestSupport;
+
+/**
+ * Tests that barcodes are drawn as vector shapes and that the same barcode drawn
+ * again is the same form object. The visual side is covered by the visual regression tests.
+ */
+@RunWith(PrintingRunner.class)
+public class BarcodeNonVisualTest {
+    private static final String QR_CODE =
+            "<object type=\"image/barcode\" style=\"width: 60px; height: 60px;\" value=\"hello world\"></object>";
+
+    @BeforeClass
+    public static void configure() {
+        TestSupport.quietLogs();
+    }
+
+    private static PDDocument render(String body) throws IOException {
+        String html =
+                "<html><head><style>@page { size: 200px 400px; margin: 0; } body { margin: 0; }" +
+                "</style></head><body>" + body + "</body></html>";
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+        DefaultObjectDrawerFactory factory = new DefaultObjectDrawerFactory();
+        factory.registerDrawer("image/barcode", new ZXingObjectDrawer());
+
+        PdfRendererBuilder builder = new PdfRendererBuilder();
+        builder.withHtmlContent(html, null);
+        builder.useObjectDrawerFactory(factory);
+        builder.toStream(os);
+        builder.testMode(true);
+        builder.run();
+
+        return Loader.loadPDF(os.toByteArray());
+    }
+
+    private static int countForms(PDResources resources) throws IOException {
+        int forms = 0;
+        for (COSName name : resources.getXObjectNames()) {
+            if (resources.getXObject(name) instanceof PDFormXObject) {
+                forms++;
+            }
+        }
+        return forms;
+    }
+
+    /**
+     * A QR code is a form of filled paths, without an image in it.
+     */
+    @Test
+    public void testBarcodeIsVector() throws IOException {
+        try (PDDocument doc = render(QR_CODE)) {
+            PDResources resources = doc.getPage(0).getResources();
+            assertEquals(1, countForms(resources));
+
+            for (COSName name : resources.getXObjectNames()) {
+                PDXObject form = resources.getXObject(name);
+                PDResources formResources = ((PDFormXObject) form).getResources();
+
+                assertTrue(formResources == null || !formResources.getXObjectNames().iterator().hasNext());
+            }
+        }
+    }
+
+    /**
+     * The same barcode at the same size three times is one form, while another value is another form.
+     */
+    @Test
+    public void testSameBarcodeReused() throws IOException {
+        String other = QR_CODE.replace("hello world", "goodbye");
+
+        try (PDDocument doc = render(QR_CODE + QR_CODE + QR_CODE + other)) {
+            assertEquals(2, countForms(doc.getPage(0).getResources()));
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.openhtmltopdf.nonvisualregressiontests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.destination.PDPageDestination;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDOutlineItem;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import com.openhtmltopdf.pdfboxout.PdfBatchRenderer;
+import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
+import com.openhtmltopdf.testlistener.PrintingRunner;
+import com.openhtmltopdf.visualtest.TestSupport;
+
+@RunWith(PrintingRunner.class)
+public class BatchRendererNonVisualTest {
+    private static final String IMAGE =
+            "data:image/png;base64,iVBORw0KGgoAAAANSUhEUgAAAAEAAAABCAIAAACQd1PeAAAADElEQVR4nGP4z8AAAAMBAQDJ/pLvAAAAAElFTkSuQmCC";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void configure() {
+        TestSupport.quietLogs();
+    }
+
+    private static PdfRendererBuilder builder() {
+        return new PdfRendererBuilder()
+                .testMode(true)
+                .useFont(() -> BatchRendererNonVisualTest.class.getClassLoader().getResourceAsStream(
+                        "org/apache/pdfbox/resources/ttf/LiberationSans-Regular.ttf"), "TestFont");
+    }
+
+    private static String html(String name, int pages) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<html><head><style>")
+          .append("@page { size: 200px 200px; margin: 20px; font-family: TestFont; ")
+          .append("@bottom-center { content: 'Page ' counter(page) ' of ' counter(pages); } }")
+          .append("body { font-family: TestFont; margin: 0; }")
+          .append("</style><bookmarks><bookmark name=\"").append(name).append("\" href=\"#start\"/></bookmarks>")
+          .append("</head><body>");
+
+        for (int i = 0; i < pages; i++) {
+            sb.append("<p id=\"").append(i == 0 ? "start" : "p" + i).append("\" style=\"page-break-before: ")
+              .append(i == 0 ? "auto" : "always").append(";\">").append(name)
+              .append("<img src=\"").append(IMAGE).append("\" style=\"width: 10px; height: 10px;\"/></p>");
+        }
+
+        return sb.append("</body></html>").toString();
+    }
+
+    private static byte[] renderBatch() throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+        try (PdfBatchRenderer batch = new PdfBatchRenderer(BatchRendererNonVisualTest::builder)) {
+            batch.addDocument(html("One", 1), null)
+                 .addDocument(html("Two", 2), null)
+                 .addDocument(html("Three", 1), null);
+            batch.save(os);
+        }
+
+        return os.toByteArray();
+    }
+
+    private static String pageText(PDDocument doc, int page) throws IOException {
+        PDFTextStripper stripper = new PDFTextStripper();
+        stripper.setStartPage(page);
+        stripper.setEndPage(page);
+        return stripper.getText(doc).replaceAll("\\s+", " ").trim();
+    }
+
+    /**
+     * Tests that each document keeps its own page numbering.
+     */
+    @Test
+    public void testPageNumbering() throws IOException {
+        try (PDDocument doc = Loader.loadPDF(renderBatch())) {
+            assertEquals(4, doc.getNumberOfPages());
+            assertEquals("Page 1 of 1 One", pageText(doc, 1));
+            assertEquals("Page 1 of 2 Two", pageText(doc, 2));
+            assertEquals("Page 2 of 2 Two", pageText(doc, 3));
+            assertEquals("Page 1 of 1 Three", pageText(doc, 4));
+        }
+    }
+
+    /**
+     * Tests that the bookmarks of all documents end up in the outline,
+     * each pointing to a page of its own document.
+     */
+    @Test
+    public void testBookmarks() throws IOException {
+        try (PDDocument doc = Loader.loadPDF(renderBatch())) {
+            List<String> titles = new ArrayList<>();
+            List<Integer> pages = new ArrayList<>();
+
+            for (PDOutlineItem item : doc.getDocumentCatalog().getDocumentOutline().children()) {
+                titles.add(item.getTitle());
+                pages.add(((PDPageDestination) item.getDestination()).retrievePageNumber());
+            }
+
+            assertEquals(Arrays.asList("One", "Two", "Three"), titles);
+            assertEquals(Arrays.asList(0, 1, 3), pages);
+        }
+    }
+
+    /**
+     * Tests that the font and image used by all documents are only embedded once.
+     */
+    @Test
+    public void testResourcesEmbeddedOnce() throws IOException {
+        try (PDDocument doc = Loader.loadPDF(renderBatch())) {
+            Set<COSBase> fonts = Collections.newSetFromMap(new IdentityHashMap<>());
+            Set<COSBase> images = Collections.newSetFromMap(new IdentityHashMap<>());
+
+            for (PDPage page : doc.getPages()) {
+                PDResources resources = page.getResources();
+
+                for (COSName name : resources.getFontNames()) {
+                    PDFont font = resources.getFont(name);
+                    if (font.getName().contains("LiberationSans")) {
+                        fonts.add(font.getCOSObject());
+                    }
+                }
+
+                for (COSName name : resources.getXObjectNames()) {
+                    if (resources.isImageXObject(name)) {
+                        images.add(resources.getXObject(name).getCOSObject());
+                    }
+                }
+            }
+
+            assertEquals(1, fonts.size());
+            assertEquals(1, images.size());
+        }
+    }
+
+    private File fontFolder(String name, String font) throws IOException {
+        File dir = folder.newFolder(name);
+
+        try (InputStream in = BatchRendererNonVisualTest.class.getResourceAsStream("/visualtest/html/fonts/" + font)) {
+            Files.copy(in, new File(dir, "font.ttf").toPath());
+        }
+
+        return dir;
+    }
+
+    private static List<String> pageFontNames(PDPage page) throws IOException {
+        List<String> names = new ArrayList<>();
+        PDResources resources = page.getResources();
+
+        for (COSName name : resources.getFontNames()) {
+            names.add(resources.getFont(name).getName());
+        }
+
+        return names;
+    }
+
+    /**
+     * Tests that the same relative font face src in two documents with different
+     * base uris loads the font next to each document.
+     */
+    @Test
+    public void testFontFaceResolvedPerDocument() throws IOException {
+        String html =
+            "<html><head><style>" +
+            "@page { size: 200px 200px; margin: 20px; }" +
+            "@font-face { font-family: 'FaceFont'; src: url(font.ttf); }" +
+            "body { font-family: FaceFont; margin: 0; }" +
+            "</style></head><body>Text</body></html>";
+
+        String one = fontFolder("one", "Karla-Bold.ttf").toURI().toString();
+        String two = fontFolder("two", "SourceSansPro-Regular.ttf").toURI().toString();
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+        try (PdfBatchRenderer batch = new PdfBatchRenderer(BatchRendererNonVisualTest::builder)) {
+            batch.addDocument(html, one)
+                 .addDocument(html, two);
+            batch.save(os);
+        }
+
+        try (PDDocument doc = Loader.loadPDF(os.toByteArray())) {
+            assertEquals(2, doc.getNumberOfPages());
+
+            List<String> first = pageFontNames(doc.getPage(0));
+            List<String> second = pageFontNames(doc.getPage(1));
+
+            assertEquals(1, first.size());
+            assertEquals(1, second.size());
+            assertTrue(first.get(0), first.get(0).contains("Karla"));
+            assertTrue(second.get(0), second.get(0).contains("SourceSansPro"));
+        }
+    }
+}
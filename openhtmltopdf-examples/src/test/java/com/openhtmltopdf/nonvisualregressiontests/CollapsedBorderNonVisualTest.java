@@ -0,0 +1,119 @@
+package com.openhtmltopdf.nonvisualregressiontests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
+import com.openhtmltopdf.testlistener.PrintingRunner;
+import com.openhtmltopdf.util.OpenUtil;
+import com.openhtmltopdf.visualtest.TestSupport;
+
+/**
+ * Tests that collapsed table borders are filled a grid line at a time, rather
+ * than with a fill per side of every cell. The visual side is covered by the
+ * visual regression tests.
+ */
+@RunWith(PrintingRunner.class)
+public class CollapsedBorderNonVisualTest {
+    @BeforeClass
+    public static void configure() {
+        TestSupport.quietLogs();
+    }
+
+    private static PDDocument render(String tableStyle, String cellStyle) throws IOException {
+        StringBuilder html = new StringBuilder();
+        html.append("<html><head><style>@page { size: 200px 200px; margin: 10px; } body { margin: 0; }")
+            .append("table { border-collapse: collapse; ").append(tableStyle).append(" }")
+            .append("td { width: 20px; height: 20px; padding: 0; border: 1px solid black; }")
+            .append("</style></head><body><table>");
+
+        for (int row = 0; row < 3; row++) {
+            html.append("<tr><td></td><td style=\"").append(cellStyle).append("\"></td><td></td></tr>");
+        }
+
+        html.append("</table></body></html>");
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+        PdfRendererBuilder builder = new PdfRendererBuilder();
+        builder.withHtmlContent(html.toString(), null);
+        builder.toStream(os);
+        builder.testMode(true);
+        builder.run();
+
+        return Loader.loadPDF(os.toByteArray());
+    }
+
+    private static int countFills(PDDocument doc) throws IOException {
+        String content;
+        try (InputStream in = doc.getPage(0).getContents()) {
+            content = new String(OpenUtil.readAll(in), StandardCharsets.US_ASCII);
+        }
+
+        Matcher matcher = Pattern.compile("(^|\\s)f\\n").matcher(content);
+        int count = 0;
+        while (matcher.find()) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * A grid of three by three cells of one color without beveling is a fill for
+     * each of its four rows and four columns of sides.
+     */
+    @Test
+    public void testNoBevelGridFilledPerLine() throws IOException {
+        try (PDDocument doc = render("-fs-border-rendering: no-bevel;", "")) {
+            assertEquals(8, countFills(doc));
+        }
+    }
+
+    /**
+     * Beveled sides that meet sides of the same color are square, so a grid of one
+     * color is filled the same.
+     */
+    @Test
+    public void testBeveledGridFilledPerLine() throws IOException {
+        try (PDDocument doc = render("", "")) {
+            assertEquals(8, countFills(doc));
+        }
+    }
+
+    /**
+     * Beveled sides are mitred where they meet sides of another color, so those are
+     * filled one by one.
+     */
+    @Test
+    public void testBeveledSidesOfOtherColorFilledPerSide() throws IOException {
+        String cellStyle = "border: 2px solid red;";
+
+        try (PDDocument beveled = render("", cellStyle);
+             PDDocument square = render("-fs-border-rendering: no-bevel;", cellStyle)) {
+            assertTrue(countFills(beveled) > countFills(square));
+        }
+    }
+
+    /**
+     * Translucent sides blend where they overlap, so they are filled one by one.
+     */
+    @Test
+    public void testTranslucentSidesFilledPerSide() throws IOException {
+        try (PDDocument doc = render("-fs-border-rendering: no-bevel;", "border: 2px solid rgba(255, 0, 0, 0.5);")) {
+            assertTrue(countFills(doc) > 3);
+        }
+    }
+}
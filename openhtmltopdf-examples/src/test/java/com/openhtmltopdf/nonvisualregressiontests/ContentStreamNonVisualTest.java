@@ -0,0 +1,154 @@
+package com.openhtmltopdf.nonvisualregressiontests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
+import com.openhtmltopdf.testlistener.PrintingRunner;
+import com.openhtmltopdf.util.OpenUtil;
+import com.openhtmltopdf.visualtest.TestSupport;
+
+/**
+ * Tests that operators which would not change the page are dropped from the
+ * content stream, unless turned off with {@link PdfRendererBuilder#useOptimizedContentStreams(boolean)}.
+ */
+@RunWith(PrintingRunner.class)
+public class ContentStreamNonVisualTest {
+    @BeforeClass
+    public static void configure() {
+        TestSupport.quietLogs();
+    }
+
+    private static PDDocument render(String body, boolean optimize) throws IOException {
+        String html =
+                "<html><head><style>@page { size: 400px 400px; margin: 10px; }" +
+                "body { font-family: TestFont; font-size: 10px; margin: 0; }" +
+                "</style></head><body>" + body + "</body></html>";
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+        PdfRendererBuilder builder = new PdfRendererBuilder();
+        builder.withHtmlContent(html, null);
+        builder.useFont(() -> ContentStreamNonVisualTest.class.getClassLoader().getResourceAsStream(
+                "org/apache/pdfbox/resources/ttf/LiberationSans-Regular.ttf"), "TestFont");
+        builder.useOptimizedContentStreams(optimize);
+        builder.toStream(os);
+        builder.testMode(true);
+        builder.run();
+
+        return Loader.loadPDF(os.toByteArray());
+    }
+
+    private static int countOperator(PDDocument doc, String operator) throws IOException {
+        String content;
+        try (InputStream in = doc.getPage(0).getContents()) {
+            content = new String(OpenUtil.readAll(in), StandardCharsets.US_ASCII);
+        }
+
+        Matcher matcher = Pattern.compile("(^|\\s)" + operator + "\\n").matcher(content);
+        int count = 0;
+        while (matcher.find()) {
+            count++;
+        }
+        return count;
+    }
+
+    private static String lines(int count, String style) {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            body.append("<p style=\"margin: 0; ").append(style).append("\">Line ").append(i).append("</p>");
+        }
+        return body.toString();
+    }
+
+    /**
+     * Boxes clipping their content with nothing to paint leave no save and restore
+     * behind, so the page has the saves it would have without them.
+     */
+    @Test
+    public void testEmptyClipDropped() throws IOException {
+        String clip = "<div style=\"overflow: hidden; width: 50px; height: 50px;\"></div>";
+        String painted = "<p>Painted</p>";
+
+        int saves;
+        try (PDDocument doc = render(painted, false)) {
+            saves = countOperator(doc, "q");
+        }
+
+        try (PDDocument doc = render(clip + clip + clip + painted, false)) {
+            assertTrue(countOperator(doc, "q") > saves);
+        }
+
+        try (PDDocument doc = render(clip + clip + clip + painted, true)) {
+            assertEquals(saves, countOperator(doc, "q"));
+            assertEquals(saves, countOperator(doc, "Q"));
+        }
+    }
+
+    /**
+     * Text in one color has the color set once.
+     */
+    @Test
+    public void testColorSetOnce() throws IOException {
+        try (PDDocument doc = render(lines(10, "color: #336699;"), true)) {
+            assertEquals(1, countOperator(doc, "rg"));
+        }
+    }
+
+    /**
+     * Synthetic bold sets the rendering mode and line width once for a run of
+     * bold text, rather than setting them and back for each line.
+     */
+    @Test
+    public void testRenderingModeSetOnce() throws IOException {
+        try (PDDocument doc = render(lines(10, "font-weight: bold;"), true)) {
+            assertEquals(1, countOperator(doc, "Tr"));
+            assertEquals(1, countOperator(doc, "w"));
+            assertEquals("Line 0 Line 1 Line 2 Line 3 Line 4 Line 5 Line 6 Line 7 Line 8 Line 9",
+                    new PDFTextStripper().getText(doc).replaceAll("\\s+", " ").trim());
+        }
+    }
+
+    /**
+     * Operands are written with at most five fraction digits and no trailing zeros,
+     * as PDFBox writes them.
+     */
+    @Test
+    public void testOperandFormat() throws IOException {
+        try (PDDocument doc = render(lines(1, "color: #336699;"), true)) {
+            assertEquals(1, countOperator(doc, "0.2 0.4 0.6 rg"));
+        }
+
+        try (PDDocument doc = render("<div style=\"border: 1px dashed #010203; height: 10px;\"></div>", false)) {
+            assertTrue(countOperator(doc, "0.00392 0.00784 0.01176 RG") > 0);
+            assertTrue(countOperator(doc, "\\[\\d+(\\.\\d+)? \\d+(\\.\\d+)? \\] 0 d") > 0);
+        }
+    }
+
+    /**
+     * Without optimization every text draw has its own text object and font selection.
+     */
+    @Test
+    public void testUnoptimizedWritesEveryOperator() throws IOException {
+        try (PDDocument doc = render(lines(10, "color: #336699;"), false)) {
+            assertEquals(10, countOperator(doc, "BT"));
+            assertEquals(10, countOperator(doc, "Tf"));
+            assertEquals(10, countOperator(doc, "Tm"));
+            assertEquals(0, countOperator(doc, "Td"));
+        }
+    }
+}
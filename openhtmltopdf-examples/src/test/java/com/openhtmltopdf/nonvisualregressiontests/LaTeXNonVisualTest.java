@@ -0,0 +1,110 @@
+package com.openhtmltopdf.nonvisualregressiontests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
+
+import com.openhtmltopdf.latexsupport.LaTeXDOMMutator;
+import com.openhtmltopdf.testlistener.PrintingRunner;
+import com.openhtmltopdf.visualtest.TestSupport;
+
+/**
+ * Tests that LaTeX converted once and reused from the cache gives every document
+ * nodes of its own, also when documents are converted at the same time.
+ */
+@RunWith(PrintingRunner.class)
+public class LaTeXNonVisualTest {
+    private static final String FORMULA = "The formula $x^2 + y_1 = \\frac{a}{b}$ inline.";
+
+    @BeforeClass
+    public static void configure() {
+        TestSupport.quietLogs();
+    }
+
+    private static Document parse(String latex) throws Exception {
+        String xml = "<html><head></head><body><latex><![CDATA[" + latex + "]]></latex></body></html>";
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        return factory.newDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+    }
+
+    private static Element latex(Document doc) {
+        return (Element) doc.getElementsByTagName("latex").item(0);
+    }
+
+    private static Document convert(String latex) throws Exception {
+        Document doc = parse(latex);
+        LaTeXDOMMutator.INSTANCE.mutateDocument(doc);
+        return doc;
+    }
+
+    /**
+     * The same LaTeX converted twice gives the same nodes, owned by each document.
+     */
+    @Test
+    public void testSameLaTeXConvertedAgain() throws Exception {
+        Document first = convert(FORMULA);
+        Document second = convert(FORMULA);
+
+        assertEquals(1, first.getElementsByTagNameNS("*", "math").getLength());
+        assertTrue(latex(first).isEqualNode(latex(second)));
+        assertTrue(latex(second).getFirstChild().getOwnerDocument() == second);
+
+        // Changing one document leaves the other and the cache alone.
+        latex(first).removeChild(latex(first).getFirstChild());
+        assertNotEquals(latex(first).getChildNodes().getLength(), latex(second).getChildNodes().getLength());
+        assertTrue(latex(convert(FORMULA)).isEqualNode(latex(second)));
+
+        assertEquals(latex(first).getOwnerDocument().getElementsByTagName("style").getLength(), 1);
+    }
+
+    /**
+     * Documents converted at the same time get what they get when converted alone.
+     */
+    @Test
+    public void testConcurrentConversions() throws Exception {
+        List<String> formulas = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            formulas.add("Formula " + i + ": $\\sqrt{x_" + i + "} + \\sum_{k=0}^{" + i + "} k$");
+        }
+
+        List<Element> expected = new ArrayList<>();
+        for (String formula : formulas) {
+            expected.add(latex(convert(formula)));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Document>> results = new ArrayList<>();
+            for (int round = 0; round < 10; round++) {
+                for (String formula : formulas) {
+                    Callable<Document> task = () -> convert(formula);
+                    results.add(executor.submit(task));
+                }
+            }
+
+            for (int i = 0; i < results.size(); i++) {
+                assertTrue(expected.get(i % formulas.size()).isEqualNode(latex(results.get(i).get())));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.openhtmltopdf.nonvisualregressiontests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import com.openhtmltopdf.mathmlsupport.MathMLDrawer;
+import com.openhtmltopdf.outputdevice.helper.BaseRendererBuilder.FSFontUseCase;
+import com.openhtmltopdf.outputdevice.helper.BaseRendererBuilder.FontStyle;
+import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
+import com.openhtmltopdf.testlistener.PrintingRunner;
+import com.openhtmltopdf.util.OpenUtil;
+import com.openhtmltopdf.visualtest.TestSupport;
+
+/**
+ * Tests that a MathML expression repeated in a document is drawn once and stamped
+ * where it is repeated. The visual side is covered by the visual regression tests.
+ */
+@RunWith(PrintingRunner.class)
+public class MathMLNonVisualTest {
+    private static final String EXPRESSION =
+            "<math xmlns=\"http://www.w3.org/1998/Math/MathML\"><mrow>" +
+            "<msup><mi>x</mi><mn>2</mn></msup><mo>+</mo><mfrac><mi>a</mi><mi>b</mi></mfrac>" +
+            "</mrow></math>";
+
+    @BeforeClass
+    public static void configure() {
+        TestSupport.quietLogs();
+    }
+
+    private static PDDocument render(String body) throws IOException {
+        return render(body, "TestFont", "org/apache/pdfbox/resources/ttf/LiberationSans-Regular.ttf");
+    }
+
+    /**
+     * @param font the resource of the font for the family, or null for no font.
+     */
+    private static PDDocument render(String body, String family, String font) throws IOException {
+        String html =
+                "<html><head><style>@page { size: 300px 600px; margin: 0; } " +
+                "body { margin: 0; font-family: '" + family + "'; } math { display: block; }" +
+                "</style></head><body>" + body + "</body></html>";
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+        PdfRendererBuilder builder = new PdfRendererBuilder();
+        builder.withHtmlContent(html, null);
+        builder.useMathMLDrawer(new MathMLDrawer());
+        if (font != null) {
+            builder.useFont(() -> MathMLNonVisualTest.class.getClassLoader().getResourceAsStream(font),
+                    family, 400, FontStyle.NORMAL, true, EnumSet.of(FSFontUseCase.DOCUMENT, FSFontUseCase.MATHML));
+        }
+        builder.toStream(os);
+        builder.testMode(true);
+        builder.run();
+
+        return Loader.loadPDF(os.toByteArray());
+    }
+
+    private static int countForms(PDResources resources) throws IOException {
+        int forms = 0;
+        for (COSName name : resources.getXObjectNames()) {
+            if (resources.getXObject(name) instanceof PDFormXObject) {
+                forms++;
+            }
+        }
+        return forms;
+    }
+
+    private static String formContent(PDDocument doc) throws IOException {
+        PDResources resources = doc.getPage(0).getResources();
+        StringBuilder sb = new StringBuilder();
+        for (COSName name : resources.getXObjectNames()) {
+            PDFormXObject form = (PDFormXObject) resources.getXObject(name);
+            try (InputStream in = form.getContentStream().createInputStream()) {
+                sb.append(new String(OpenUtil.readAll(in), StandardCharsets.US_ASCII));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * The same expression three times is one form, also when its attributes are written
+     * in another order, while another expression is another form.
+     */
+    @Test
+    public void testSameExpressionReused() throws IOException {
+        String reordered = EXPRESSION.replace("<mrow>", "<mrow class=\"a\" id=\"b\">");
+        String other = EXPRESSION.replace("<mn>2</mn>", "<mn>3</mn>");
+
+        try (PDDocument doc = render(EXPRESSION + EXPRESSION + EXPRESSION + other)) {
+            assertEquals(2, countForms(doc.getPage(0).getResources()));
+        }
+
+        try (PDDocument doc = render(reordered + reordered.replace("class=\"a\" id=\"b\"", "id=\"b\" class=\"a\""))) {
+            assertEquals(1, countForms(doc.getPage(0).getResources()));
+        }
+    }
+
+    /**
+     * A document rendered again, with its expressions laid out already, is the same.
+     */
+    @Test
+    public void testRenderedAgainSame() throws IOException {
+        String body = EXPRESSION + EXPRESSION.replace("<mi>x</mi>", "<mi>y</mi>");
+
+        try (PDDocument first = render(body);
+             PDDocument second = render(body)) {
+            PDResources firstResources = first.getPage(0).getResources();
+            PDResources secondResources = second.getPage(0).getResources();
+
+            assertEquals(2, countForms(firstResources));
+            assertEquals(countForms(firstResources), countForms(secondResources));
+
+            for (COSName name : firstResources.getXObjectNames()) {
+                PDFormXObject firstForm = (PDFormXObject) firstResources.getXObject(name);
+                PDFormXObject secondForm = (PDFormXObject) secondResources.getXObject(name);
+
+                assertEquals(firstForm.getBBox().toString(), secondForm.getBBox().toString());
+                assertEquals(firstForm.getContentStream().getLength(), secondForm.getContentStream().getLength());
+            }
+        }
+    }
+
+    /**
+     * An expression laid out with fallback fonts, as its family has no fonts, is laid out
+     * again in a render that has fonts for the family, rather than reusing the fallback layout.
+     */
+    @Test
+    public void testLaidOutAgainWithOtherFonts() throws IOException {
+        String body = EXPRESSION.replace("<mi>a</mi>", "<mi>fallback</mi>");
+        String karla = "visualtest/html/fonts/Karla-Bold.ttf";
+
+        String fallback;
+        try (PDDocument doc = render(body, "Karla", null)) {
+            fallback = formContent(doc);
+        }
+
+        try (PDDocument doc = render(body, "Karla", karla)) {
+            assertNotEquals(fallback, formContent(doc));
+        }
+
+        try (PDDocument doc = render(body, "Karla", null)) {
+            assertEquals(fallback, formContent(doc));
+        }
+    }
+}
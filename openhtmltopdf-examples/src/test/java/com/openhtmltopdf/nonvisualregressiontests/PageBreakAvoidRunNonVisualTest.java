@@ -0,0 +1,178 @@
+package com.openhtmltopdf.nonvisualregressiontests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.w3c.dom.Element;
+
+import com.openhtmltopdf.pdfboxout.PdfBoxRenderer;
+import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
+import com.openhtmltopdf.render.BlockBox;
+import com.openhtmltopdf.render.Box;
+import com.openhtmltopdf.render.LineBox;
+import com.openhtmltopdf.render.PageBox;
+import com.openhtmltopdf.testlistener.PrintingRunner;
+import com.openhtmltopdf.util.LogMessageId;
+import com.openhtmltopdf.visualtest.TestSupport;
+
+/**
+ * Tests that boxes of page-break-avoid runs that are moved to a new page,
+ * rather than laid out again, end up where laying them out again puts them.
+ */
+@RunWith(PrintingRunner.class)
+public class PageBreakAvoidRunNonVisualTest {
+    private static final int PAGE_HEIGHT = 200;
+
+    @BeforeClass
+    public static void configure() {
+        TestSupport.quietLogs();
+    }
+
+    private static class Layout {
+        final List<String> boxes = new ArrayList<>();
+        int moved;
+    }
+
+    /**
+     * A run of three sections joined by page-break-after: avoid, which has
+     * runs of its own inside. Relative positioning does not change where
+     * the paragraphs go, but keeps the boxes around them from being moved.
+     */
+    private static String html(int filler, boolean relative) {
+        return "<html><head><style>" +
+               "@page { size: 300px " + PAGE_HEIGHT + "px; margin: 0; }" +
+               "body { margin: 0; font-size: 12px; line-height: 20px; }" +
+               "p { margin: 0; " + (relative ? "position: relative; " : "") + "}" +
+               ".keep { page-break-after: avoid; }" +
+               ".pad { padding-top: 3px; border-bottom: 1px solid black; }" +
+               "</style></head><body>" +
+               "<div style=\"height: " + filler + "px;\"></div>" +
+               "<div id=\"s1\" class=\"keep pad\">" +
+                 "<p id=\"s1a\" class=\"keep\">One</p>" +
+                 "<div id=\"s1b\" class=\"keep\">" +
+                   "<p id=\"s1b1\" class=\"keep\">Two</p>" +
+                   "<p id=\"s1b2\">Three three three three three three three three three three three</p>" +
+                 "</div>" +
+               "</div>" +
+               "<div id=\"s2\" class=\"keep\">" +
+                 "<p id=\"s2a\">Four</p>" +
+                 "<div id=\"s2b\" class=\"pad\"><p id=\"s2b1\" class=\"keep\">Five</p><p id=\"s2b2\">Six</p></div>" +
+               "</div>" +
+               "<div id=\"s3\"><p id=\"s3a\">Seven</p></div>" +
+               "<p id=\"after\">After</p>" +
+               "</body></html>";
+    }
+
+    private static Layout layout(int filler, boolean relative) throws IOException {
+        Layout layout = new Layout();
+
+        PdfRendererBuilder builder = new PdfRendererBuilder();
+        builder.withHtmlContent(html(filler, relative), null);
+        builder.withDiagnosticConsumer(diagnostic -> {
+            if (diagnostic.getLogMessageId() == LogMessageId.LogMessageId0Param.LAYOUT_MOVED_BOX_OF_PAGE_BREAK_AVOID_RUN) {
+                layout.moved++;
+            }
+        });
+        builder.testMode(true);
+
+        try (PdfBoxRenderer renderer = builder.buildPdfRenderer()) {
+            renderer.layout();
+            List<PageBox> pages = renderer.getRootBox().getLayer().getPages();
+            collect(renderer.getRootBox(), pages, layout.boxes);
+        }
+
+        return layout;
+    }
+
+    /**
+     * The position and page of every block and line box, in tree order.
+     */
+    private static void collect(Box box, List<PageBox> pages, List<String> result) {
+        if (box instanceof BlockBox || box instanceof LineBox) {
+            Element element = box.getElement();
+            String name = element != null && !element.getAttribute("id").isEmpty() ?
+                    element.getAttribute("id") : box.getClass().getSimpleName();
+
+            result.add(name + " y=" + box.getAbsY() + " height=" + box.getHeight() +
+                       " page=" + pageOf(box, pages));
+        }
+
+        for (int i = 0; i < box.getChildCount(); i++) {
+            collect(box.getChild(i), pages, result);
+        }
+    }
+
+    private static int pageOf(Box box, List<PageBox> pages) {
+        for (int i = 0; i < pages.size(); i++) {
+            if (box.getAbsY() >= pages.get(i).getTop() && box.getAbsY() < pages.get(i).getBottom()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Moves the run over every position on the first page. Wherever its boxes
+     * are moved, they are in the same place and on the same page as when
+     * laid out again.
+     */
+    @Test
+    public void testMovedBoxesSameAsLaidOutAgain() throws IOException {
+        int movedLayouts = 0;
+
+        for (int filler = 0; filler < PAGE_HEIGHT; filler += 3) {
+            Layout moved = layout(filler, false);
+            Layout laidOutAgain = layout(filler, true);
+
+            assertEquals("filler " + filler, 0, laidOutAgain.moved);
+            assertEquals("filler " + filler, laidOutAgain.boxes, moved.boxes);
+
+            if (moved.moved > 0) {
+                movedLayouts++;
+            }
+        }
+
+        // The run is moved to the next page whenever it does not fit below the filler.
+        assertTrue("moved in " + movedLayouts + " layouts", movedLayouts > 10);
+    }
+
+    /**
+     * Tests a run that does not fit at the bottom of the first page. Its three
+     * sections are moved to the next page, along with the runs inside them.
+     */
+    @Test
+    public void testRunMovedToNextPage() throws IOException {
+        Layout layout = layout(60, false);
+
+        assertTrue(layout.boxes.toString(), layout.boxes.contains("s1 y=" + dots(PAGE_HEIGHT) + " height=" + dots(64) + " page=1"));
+        assertTrue(layout.boxes.toString(), layout.boxes.contains("s1a y=" + dots(PAGE_HEIGHT + 3) + " height=" + dots(20) + " page=1"));
+        assertTrue(layout.boxes.toString(), layout.boxes.contains("s3a y=" + dots(PAGE_HEIGHT + 128) + " height=" + dots(20) + " page=1"));
+        assertEquals(3, layout.moved);
+    }
+
+    /**
+     * Tests a run inside a section that starts at the bottom of the first page.
+     * The section is split, while the run inside it is moved to the next page.
+     */
+    @Test
+    public void testNestedRunMovedToNextPage() throws IOException {
+        Layout layout = layout(150, false);
+
+        assertTrue(layout.boxes.toString(), layout.boxes.contains("s1 y=" + dots(150) + " height=" + dots(111) + " page=0"));
+        assertTrue(layout.boxes.toString(), layout.boxes.contains("s1a y=" + dots(PAGE_HEIGHT) + " height=" + dots(20) + " page=1"));
+        assertTrue(layout.boxes.toString(), layout.boxes.contains("s1b2 y=" + dots(PAGE_HEIGHT + 40) + " height=" + dots(20) + " page=1"));
+        assertEquals(2, layout.moved);
+    }
+
+    private static int dots(int px) {
+        // The default of the PDF renderer.
+        return px * 20;
+    }
+}
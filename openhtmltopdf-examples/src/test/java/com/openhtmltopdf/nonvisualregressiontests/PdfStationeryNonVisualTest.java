@@ -0,0 +1,147 @@
+package com.openhtmltopdf.nonvisualregressiontests;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import com.openhtmltopdf.objects.pdf.ForegroundPdfDrawer;
+import com.openhtmltopdf.objects.pdf.MergeBackgroundPdfDrawer;
+import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
+import com.openhtmltopdf.render.DefaultObjectDrawerFactory;
+import com.openhtmltopdf.testlistener.PrintingRunner;
+import com.openhtmltopdf.visualtest.TestSupport;
+
+/**
+ * Tests that pages of a source PDF merged into documents as background or foreground
+ * are the pages asked for, in every document, also after the source changed.
+ */
+@RunWith(PrintingRunner.class)
+public class PdfStationeryNonVisualTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void configure() {
+        TestSupport.quietLogs();
+    }
+
+    /**
+     * Writes a PDF with a page for each of the texts, each further down than the one before,
+     * so that pages drawn over each other do not mix up their text.
+     */
+    private static void writeSource(File file, String... texts) throws IOException {
+        try (PDDocument doc = new PDDocument()) {
+            float y = 250;
+            for (String text : texts) {
+                PDPage page = new PDPage();
+                doc.addPage(page);
+
+                try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+                    cs.beginText();
+                    cs.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 12);
+                    cs.newLineAtOffset(20, y);
+                    cs.showText(text);
+                    cs.endText();
+                }
+                y -= 100;
+            }
+            doc.save(file);
+        }
+    }
+
+    private static String render(File source, int backgroundPage, int foregroundPage) throws IOException {
+        String uri = source.toURI().toString();
+        String html =
+                "<html><head><style>@page { size: 300px 300px; margin: 0; } body { margin: 0; }" +
+                "</style></head><body>" +
+                "<object type=\"pdf/background\" pdfsrc=\"" + uri + "\" pdfpage=\"" + backgroundPage + "\" style=\"width:1px;height:1px\"></object>" +
+                "<object type=\"pdf/foreground\" pdfsrc=\"" + uri + "\" pdfpage=\"" + foregroundPage + "\" style=\"width:1px;height:1px\"></object>" +
+                "</body></html>";
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+        DefaultObjectDrawerFactory factory = new DefaultObjectDrawerFactory();
+        factory.registerDrawer("pdf/background", new MergeBackgroundPdfDrawer());
+        factory.registerDrawer("pdf/foreground", new ForegroundPdfDrawer());
+
+        PdfRendererBuilder builder = new PdfRendererBuilder();
+        builder.withHtmlContent(html, null);
+        builder.useObjectDrawerFactory(factory);
+        builder.toStream(os);
+        builder.testMode(true);
+        builder.run();
+
+        try (PDDocument doc = Loader.loadPDF(os.toByteArray())) {
+            return new PDFTextStripper().getText(doc);
+        }
+    }
+
+    /**
+     * Two pages of the same source are two different pages, in every document.
+     */
+    @Test
+    public void testPagesOfSameSource() throws IOException {
+        File source = folder.newFile("stationery.pdf");
+        writeSource(source, "Letterhead", "Watermark");
+
+        for (int i = 0; i < 2; i++) {
+            String text = render(source, 1, 2);
+            assertTrue(text.contains("Letterhead"));
+            assertTrue(text.contains("Watermark"));
+        }
+    }
+
+    /**
+     * A source with the same last modified time and length is not read again. Garbage
+     * written over it would not parse, yet the page parsed before is still imported.
+     */
+    @Test
+    public void testUnchangedSourceNotReadAgain() throws IOException {
+        File source = folder.newFile("unchanged.pdf");
+        writeSource(source, "Letterhead");
+        long lastModified = source.lastModified();
+
+        assertTrue(render(source, 1, 1).contains("Letterhead"));
+
+        byte[] garbage = new byte[(int) source.length()];
+        Arrays.fill(garbage, (byte) 'x');
+        Files.write(source.toPath(), garbage);
+        assertTrue(source.setLastModified(lastModified));
+
+        assertTrue(render(source, 1, 1).contains("Letterhead"));
+    }
+
+    /**
+     * A source changed under the same URL is read again.
+     */
+    @Test
+    public void testChangedSource() throws IOException {
+        File source = folder.newFile("changing.pdf");
+
+        writeSource(source, "Before");
+        assertTrue(render(source, 1, 1).contains("Before"));
+
+        writeSource(source, "After");
+        String text = render(source, 1, 1);
+        assertTrue(text.contains("After"));
+        assertFalse(text.contains("Before"));
+    }
+}
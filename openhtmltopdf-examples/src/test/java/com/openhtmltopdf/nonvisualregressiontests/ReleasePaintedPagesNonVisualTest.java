@@ -0,0 +1,89 @@
+package com.openhtmltopdf.nonvisualregressiontests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import com.openhtmltopdf.pdfboxout.PdfBoxRenderer;
+import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
+import com.openhtmltopdf.testlistener.PrintingRunner;
+import com.openhtmltopdf.visualtest.TestSupport;
+
+@RunWith(PrintingRunner.class)
+public class ReleasePaintedPagesNonVisualTest {
+    private static final String HTML;
+
+    static {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<html><head><style>@page { size: 200px 200px; margin: 10px; }")
+          .append(".float { float: right; width: 20px; height: 20px; }</style></head><body>");
+
+        for (int i = 0; i < 60; i++) {
+            sb.append("<div><p>Para ").append(i).append("</p>");
+
+            if (i % 10 == 0) {
+                sb.append("<div class=\"float\">F").append(i).append("</div>");
+            }
+            if (i % 15 == 0) {
+                sb.append("<table><tr><td>Cell ").append(i).append("</td></tr></table>");
+            }
+
+            sb.append("</div>");
+        }
+
+        sb.append("<a href=\"#first\">Back</a><p id=\"first\">Last</p></body></html>");
+        HTML = sb.toString();
+    }
+
+    @BeforeClass
+    public static void configure() {
+        TestSupport.quietLogs();
+    }
+
+    private static int countChildren(PdfBoxRenderer renderer) {
+        return renderer.getRootBox().getChild(0).getChildCount();
+    }
+
+    private static String render(boolean release, int[] bodyChildren) throws IOException {
+        PdfRendererBuilder builder = new PdfRendererBuilder()
+                .withHtmlContent(HTML, null)
+                .testMode(true)
+                .useReleasePaintedPages(release);
+
+        try (PdfBoxRenderer renderer = builder.buildPdfRenderer();
+             PDDocument doc = renderer.createPDFKeepOpen()) {
+            bodyChildren[0] = countChildren(renderer);
+
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            doc.save(os);
+
+            try (PDDocument loaded = Loader.loadPDF(os.toByteArray())) {
+                return new PDFTextStripper().getText(loaded);
+            }
+        }
+    }
+
+    /**
+     * Tests that releasing painted pages frees boxes without changing the output.
+     */
+    @Test
+    public void testReleasePaintedPages() throws IOException {
+        int[] keptChildren = new int[1];
+        int[] releasedChildren = new int[1];
+
+        String expected = render(false, keptChildren);
+        String actual = render(true, releasedChildren);
+
+        assertEquals(expected, actual);
+        assertTrue(releasedChildren[0] < keptChildren[0]);
+    }
+}
@@ -0,0 +1,139 @@
+package com.openhtmltopdf.nonvisualregressiontests;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDDocumentNameDictionary;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import com.openhtmltopdf.pdfboxout.PdfRenderEngine;
+import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
+import com.openhtmltopdf.testlistener.PrintingRunner;
+import com.openhtmltopdf.visualtest.TestSupport;
+
+@RunWith(PrintingRunner.class)
+public class RenderEngineNonVisualTest {
+    @BeforeClass
+    public static void configure() {
+        TestSupport.quietLogs();
+    }
+
+    private static String html(String name) {
+        return "<html><head><style>.name { font-weight: bold; }</style></head><body>" +
+               "<p style=\"margin: 0; padding: 2px\">Dear <span class=\"name\">" + name + "</span>,</p>" +
+               "</body></html>";
+    }
+
+    private static String renderText(PdfRenderEngine engine, String html) throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        engine.render(html, null, os);
+
+        try (PDDocument doc = Loader.loadPDF(os.toByteArray())) {
+            return new PDFTextStripper().getText(doc);
+        }
+    }
+
+    /**
+     * Tests that nothing of one document leaks into the next.
+     */
+    @Test
+    public void testRenderManyDocuments() throws IOException {
+        PdfRenderEngine engine = new PdfRenderEngine(() -> new PdfRendererBuilder().testMode(true));
+
+        String first = renderText(engine, html("Joe"));
+        String second = renderText(engine, html("Ann"));
+
+        assertThat(first, containsString("Joe"));
+        assertThat(second, containsString("Ann"));
+        assertThat(second, not(containsString("Joe")));
+    }
+
+    /**
+     * Tests that documents rendered at the same time by one engine are the
+     * same as when rendered one after another.
+     */
+    @Test
+    public void testRenderFromThreads() throws Exception {
+        PdfRenderEngine engine = new PdfRenderEngine(() -> new PdfRendererBuilder().testMode(true));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                String name = "Name" + i;
+                results.add(executor.submit(() -> renderText(engine, html(name))));
+            }
+
+            PdfRenderEngine single = new PdfRenderEngine(() -> new PdfRendererBuilder().testMode(true));
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(renderText(single, html("Name" + i)), results.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Tests that warming up does not affect the output of later renders.
+     */
+    @Test
+    public void testWarmUp() throws IOException {
+        PdfRenderEngine engine = new PdfRenderEngine(() -> new PdfRendererBuilder().testMode(true));
+        String cold = renderText(engine, html("Joe"));
+
+        engine.warmUp(2);
+
+        assertEquals(cold, renderText(engine, html("Joe")));
+    }
+
+    private static Set<String> namedDestinations(PdfRenderEngine engine, String html) throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        engine.render(html, null, os);
+
+        try (PDDocument doc = Loader.loadPDF(os.toByteArray())) {
+            PDDocumentNameDictionary names = doc.getDocumentCatalog().getNames();
+            assertNotNull(names);
+            assertNotNull(names.getDests());
+            return names.getDests().getNames().keySet();
+        }
+    }
+
+    /**
+     * Tests that named destinations are created on every render, although the
+     * style sheets and style attributes asking for them are parsed only once.
+     */
+    @Test
+    public void testNamedDestinationsOnEveryRender() throws IOException {
+        String sheet =
+                "<html><head><style>h1 { -fs-named-destination: create; }</style></head><body>" +
+                "<h1 id=\"dest1\">One</h1></body></html>";
+        String attribute =
+                "<html><body><h1 id=\"dest1\" style=\"-fs-named-destination: create;\">One</h1></body></html>";
+
+        for (String html : new String[] { sheet, attribute }) {
+            PdfRenderEngine engine = new PdfRenderEngine(() -> new PdfRendererBuilder().testMode(true));
+
+            for (int i = 0; i < 3; i++) {
+                assertEquals("render " + i, Collections.singleton("dest1"), namedDestinations(engine, html));
+            }
+        }
+    }
+}
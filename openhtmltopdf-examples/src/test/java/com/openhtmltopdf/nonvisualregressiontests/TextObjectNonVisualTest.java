@@ -0,0 +1,111 @@
+package com.openhtmltopdf.nonvisualregressiontests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
+import com.openhtmltopdf.testlistener.PrintingRunner;
+import com.openhtmltopdf.util.OpenUtil;
+import com.openhtmltopdf.visualtest.TestSupport;
+
+/**
+ * Tests that consecutive text draws are written into one text object.
+ */
+@RunWith(PrintingRunner.class)
+public class TextObjectNonVisualTest {
+    @BeforeClass
+    public static void configure() {
+        TestSupport.quietLogs();
+    }
+
+    private static PDDocument render(String body) throws IOException {
+        String html =
+                "<html><head><style>@page { size: 400px 400px; margin: 10px; }" +
+                "body { font-family: TestFont; font-size: 10px; margin: 0; }" +
+                "</style></head><body>" + body + "</body></html>";
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+        PdfRendererBuilder builder = new PdfRendererBuilder();
+        builder.withHtmlContent(html, null);
+        builder.useFont(() -> TextObjectNonVisualTest.class.getClassLoader().getResourceAsStream(
+                "org/apache/pdfbox/resources/ttf/LiberationSans-Regular.ttf"), "TestFont");
+        builder.toStream(os);
+        builder.testMode(true);
+        builder.run();
+
+        return Loader.loadPDF(os.toByteArray());
+    }
+
+    private static int countOperator(PDDocument doc, String operator) throws IOException {
+        String content;
+        try (InputStream in = doc.getPage(0).getContents()) {
+            content = new String(OpenUtil.readAll(in), StandardCharsets.US_ASCII);
+        }
+
+        Matcher matcher = Pattern.compile("(^|\\s)" + operator + "\\n").matcher(content);
+        int count = 0;
+        while (matcher.find()) {
+            count++;
+        }
+        return count;
+    }
+
+    private static String text(PDDocument doc) throws IOException {
+        return new PDFTextStripper().getText(doc).replaceAll("\\s+", " ").trim();
+    }
+
+    /**
+     * Ten lines of text in the same font are one text object with one font
+     * selection, lines after the first mostly moving the start of the line.
+     */
+    @Test
+    public void testLinesShareTextObject() throws IOException {
+        StringBuilder body = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+
+        for (int i = 0; i < 10; i++) {
+            body.append("<p style=\"margin: 0;\">Line ").append(i).append("</p>");
+            expected.append(i == 0 ? "" : " ").append("Line ").append(i);
+        }
+
+        try (PDDocument doc = render(body.toString())) {
+            assertEquals(1, countOperator(doc, "BT"));
+            assertEquals(1, countOperator(doc, "ET"));
+            assertEquals(1, countOperator(doc, "Tf"));
+            // A line is only moved to with Td when the offset can be written exactly.
+            assertEquals(10, countOperator(doc, "Tm") + countOperator(doc, "Td"));
+            assertTrue(countOperator(doc, "Td") > 0);
+            assertEquals(expected.toString(), text(doc));
+        }
+    }
+
+    /**
+     * Text drawn after the border of a positioned box is in a new text object,
+     * as paths may not be drawn inside one, but the font is not selected again.
+     */
+    @Test
+    public void testPathEndsTextObject() throws IOException {
+        try (PDDocument doc = render(
+                "<p>Before</p><div style=\"position: relative; border: 1px solid black;\">After</div>")) {
+            assertEquals(2, countOperator(doc, "BT"));
+            assertEquals(2, countOperator(doc, "ET"));
+            assertEquals(1, countOperator(doc, "Tf"));
+            assertEquals("Before After", text(doc));
+        }
+    }
+}
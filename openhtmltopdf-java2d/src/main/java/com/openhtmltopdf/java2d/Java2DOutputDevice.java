@@ -39,6 +39,7 @@ import java.awt.RenderingHints.Key;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Deque;
@@ -187,6 +188,37 @@ public class Java2DOutputDevice extends AbstractOutputDevice implements OutputDe
 			_graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, oldInterpolation);
     }
 
+    /**
+     * Fills the area with a texture of the image, rather than drawing each tile.
+     */
+    @Override
+    protected boolean drawRepeatedImage(FSImage image, Rectangle area, boolean interpolate) {
+        if (!(image instanceof AWTFSImage) ||
+            !(((AWTFSImage) image).getImage() instanceof BufferedImage)) {
+            return false;
+        }
+
+        BufferedImage texture = (BufferedImage) ((AWTFSImage) image).getImage();
+        if (texture.getWidth() != image.getWidth() || texture.getHeight() != image.getHeight()) {
+            return false;
+        }
+
+        Object oldInterpolation = _graphics.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+        Paint oldPaint = _graphics.getPaint();
+
+        _graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolate ?
+                RenderingHints.VALUE_INTERPOLATION_BICUBIC : RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        _graphics.setPaint(new TexturePaint(texture,
+                new Rectangle2D.Float(area.x, area.y, texture.getWidth(), texture.getHeight())));
+        _graphics.fill(area);
+
+        _graphics.setPaint(oldPaint);
+        if (oldInterpolation != null)
+            _graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, oldInterpolation);
+
+        return true;
+    }
+
     @Override
     public boolean isSupportsCMYKColors() {
         return false;
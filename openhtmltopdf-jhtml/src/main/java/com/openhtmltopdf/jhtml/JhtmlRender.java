@@ -6,11 +6,13 @@ import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
-import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -31,6 +33,7 @@ import com.openhtmltopdf.jhtml.processor.AsJsoupProcessor;
 import com.openhtmltopdf.jhtml.processor.AsProcessor;
 import com.openhtmltopdf.jhtml.processor.BufferedImagePageProcessor;
 import com.openhtmltopdf.jhtml.renderer.AsRenderer;
+import com.openhtmltopdf.jhtml.util.FontUtil;
 import com.openhtmltopdf.latexsupport.LaTeXDOMMutator;
 import com.openhtmltopdf.mathmlsupport.MathMLDrawer;
 import com.openhtmltopdf.outputdevice.helper.BaseRendererBuilder.PageSizeUnits;
@@ -40,7 +43,6 @@ import com.openhtmltopdf.svgsupport.BatikSVGDrawer;
 import com.openhtmltopdf.util.XRLog;
 
 import cn.alotus.core.io.file.FileNameUtil;
-import cn.alotus.core.util.StrUtil;
 
 /**
  * JhtmlRender
@@ -100,6 +102,9 @@ public class JhtmlRender {
 	private AsProcessor asProcessor;
 	
 	private StringBuilder logStringBuilder;
+
+	// Font file extensions registered from fontPath.
+	private static final List<String> FONT_FILE_EXTENSIONS = Arrays.asList(".otf", ".ttf");
 	
 	public JhtmlRender() {
 		super();
@@ -189,13 +194,17 @@ public class JhtmlRender {
 			logStringBuilder = AsLogBuilder.newStringBuilder();
 		}
 		
-		if(null!=asProcessor) {
-			html= asProcessor.asHtml(html);
-		}
-		
 		AsRendererBuilder builder = new AsRendererBuilder();
 
-		builder.withHtmlContent(html, baseDocumentUri);
+		org.w3c.dom.Document doc = null!=asProcessor ? asProcessor.asDocument(html) : null;
+		if(null!=doc) {
+			builder.withW3cDocument(doc, baseDocumentUri);
+		} else {
+			if(null!=asProcessor) {
+				html= asProcessor.asHtml(html);
+			}
+			builder.withHtmlContent(html, baseDocumentUri);
+		}
 
 		BufferedImagePageProcessor bufferedImagePageProcessor = new BufferedImagePageProcessor(imageType, scale);
 		if(pageHeight!=null&& pageWidth!=null) {
@@ -346,19 +355,20 @@ public class JhtmlRender {
 
 	/**
 	 * Font registration helper: if fontPath is a directory, register all .ttf and .otf files with the renderer builder. This allows using those fonts via CSS @font-family in HTML.
+	 * The directory listing is cached until the directory changes and the fonts are only opened when a document uses them.
 	 */
 	public final BaseBuilderConfig WITH_FOOTS = (builder) -> {
 		if (null != fontPath) {
 			File f = new File(fontPath);
 			if (f.isDirectory()) {
-				File[] files = f.listFiles(new FilenameFilter() {
-					public boolean accept(File dir, String name) {
-						String lower = name.toLowerCase();
-						return lower.endsWith(".otf") || lower.endsWith(".ttf");
-					}
-				});
-				for (int i = 0; i < files.length; i++) {
-					builder.useFont(files[i], FileNameUtil.mainName(files[i]));
+				List<Path> files;
+				try {
+					files = FontUtil.findFontFilesCached(f.toPath(), FONT_FILE_EXTENSIONS);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+				for (Path file : files) {
+					builder.useFont(file.toFile(), FileNameUtil.mainName(file.toFile()));
 				}
 			}
 		}
@@ -379,9 +389,7 @@ public class JhtmlRender {
 			throw new IllegalStateException("Please call toImage or toImages method first to initialize the renderer.");
 		}
 
-		return asRenderer.findElementRectangle(e -> {
-			return StrUtil.equals(id, e.getAttribute(HTML.Attribute.ID.toString()));
-		});
+		return asRenderer.findElementRectangleByAttribute(HTML.Attribute.ID.toString(), id);
 	}
 
 	/**
@@ -395,9 +403,7 @@ public class JhtmlRender {
 		if (asRenderer == null) {
 			throw new IllegalStateException("Please call toImage or toImages method first to initialize the renderer.");
 		}
-		return asRenderer.findElementRectangle(e -> {
-			return StrUtil.equals(name, e.getAttribute(HTML.Attribute.NAME.toString()));
-		});
+		return asRenderer.findElementRectangleByAttribute(HTML.Attribute.NAME.toString(), name);
 	}
 
 	/**
@@ -411,9 +417,7 @@ public class JhtmlRender {
 		if (asRenderer == null) {
 			throw new IllegalStateException("Please call toImage or toImages method first to initialize the renderer.");
 		}
-		return asRenderer.findElementRectangle(e -> {
-			return StrUtil.equals(cssClass, e.getAttribute(HTML.Attribute.CLASS.toString()));
-		});
+		return asRenderer.findElementRectangleByAttribute(HTML.Attribute.CLASS.toString(), cssClass);
 	}
 
 	/**
@@ -429,9 +433,7 @@ public class JhtmlRender {
 		if (asRenderer == null) {
 			throw new IllegalStateException("Please call toImage or toImages method first to initialize the renderer.");
 		}
-		return asRenderer.findElementRectangle(e -> {
-			return StrUtil.equals(tagName, e.getTagName());
-		});
+		return asRenderer.findElementRectangleByTagName(tagName);
 	}
 
 	/**
@@ -446,9 +448,7 @@ public class JhtmlRender {
 		if (asRenderer == null) {
 			throw new IllegalStateException("Please call toImage or toImages method first to initialize the renderer.");
 		}
-		return asRenderer.findElementRectangle(e -> {
-			return StrUtil.equals(value, e.getAttribute(name));
-		});
+		return asRenderer.findElementRectangleByAttribute(name, value);
 	}
 
 	/**
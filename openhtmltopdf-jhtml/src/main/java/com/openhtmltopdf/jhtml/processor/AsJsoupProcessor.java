@@ -7,6 +7,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import javax.swing.text.html.HTML;
 
 import org.jsoup.Jsoup;
+import org.jsoup.helper.W3CDom;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Document.OutputSettings.Syntax;
 import org.jsoup.nodes.Element;
@@ -59,6 +60,18 @@ public class AsJsoupProcessor implements AsProcessor {
 		return _doc.html();
 	}
 
+	/**
+	 * Converts the jsoup document straight into a W3C DOM, without serializing it
+	 * to a string and parsing that again. The elements keep their box ids.
+	 */
+	@Override
+	public org.w3c.dom.Document asDocument(String html) {
+
+		_doc = processHtmlWithIds(html, BlockBox.JHTML_BOX_ID);
+
+		return new W3CDom().fromJsoup(_doc);
+	}
+
 	@Override
 	public void asRenderer(AsRenderer asRenderer) {
 
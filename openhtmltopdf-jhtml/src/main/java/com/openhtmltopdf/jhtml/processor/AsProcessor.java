@@ -8,4 +8,15 @@ public interface AsProcessor {
 
 	String asHtml(String html);
 
+	/**
+	 * Processes the html into the W3C DOM the renderer consumes, saving the
+	 * renderer from parsing the html returned by {@link #asHtml(String)} again.
+	 *
+	 * @param html the HTML content to process
+	 * @return the document to render, or null to render {@link #asHtml(String)} instead
+	 */
+	default org.w3c.dom.Document asDocument(String html) {
+		return null;
+	}
+
 }
@@ -1,6 +1,8 @@
 package com.openhtmltopdf.jhtml.render;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import org.htmlunit.WebClient;
@@ -34,11 +36,20 @@ import com.openhtmltopdf.jhtml.util.JsoupUtil;
  *     .javaScriptTimeout(3, TimeUnit.SECONDS)
  *     .build();
  * Document doc = HtmlRenderEngine.renderToDocument(config, "<html>...</html>", "js1();", "js2();");
+ *
+ * // Clients shared by all threads from a bounded pool
+ * WebClientPool pool = new WebClientPool(8, 30, TimeUnit.SECONDS);
+ * String result3 = HtmlRenderEngine.render(pool, config, "<html>...</html>", "js1();");
  * }</pre>
  *
+ * <p>With many threads, such as the request threads of a servlet container, prefer the
+ * {@link WebClientPool} methods, which bound the number of clients and do not need
+ * {@link RenderConfig.Builder#recreateAfterUse(boolean)}.</p>
+ *
  * @author (original) openhtmltopdf community, enhanced by AI
  * @see WebClient
  * @see HtmlUnitDOMToJsoupConverter
+ * @see WebClientPool
  */
 public final class HtmlRenderEngine {
 
@@ -219,6 +230,51 @@ public final class HtmlRenderEngine {
         }
     }
 
+    // ---------- Public API: pooled WebClient ----------
+
+    /**
+     * Renders the given HTML content with a client leased from the pool,
+     * executes the provided JavaScript snippets, and returns the final HTML as a string.
+     *
+     * @param pool        the pool to lease the client from
+     * @param config      the rendering configuration
+     * @param htmlContent the raw HTML to load
+     * @param jsSnippets  one or more JavaScript snippets to execute
+     * @return the rendered HTML as produced by {@link HtmlPage#asXml()}
+     * @throws IOException if no client could be leased or loading the HTML fails
+     */
+    public static String render(WebClientPool pool, RenderConfig config, String htmlContent, String... jsSnippets) throws IOException {
+        try (WebClientPool.Lease lease = pool.lease(config)) {
+            try {
+                // Serialize before the lease ends, the page belongs to the client.
+                return executePage(lease.getWebClient(), config, htmlContent, jsSnippets).asXml();
+            } catch (IOException | RuntimeException e) {
+                lease.invalidate();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Renders the given HTML content with a client leased from the pool,
+     * executes the provided JavaScript snippets, and returns the result as a jsoup {@link Document}.
+     *
+     * @param pool        the pool to lease the client from
+     * @param config      the rendering configuration
+     * @param htmlContent the raw HTML to load
+     * @param jsSnippets  one or more JavaScript snippets to execute
+     * @return the rendered content as a jsoup Document
+     * @throws IOException if no client could be leased, loading the HTML or conversion to jsoup fails
+     */
+    public static Document renderToDocument(WebClientPool pool, RenderConfig config, String htmlContent, String... jsSnippets) throws IOException {
+        String xml = render(pool, config, htmlContent, jsSnippets);
+        try {
+            return JsoupUtil.parse(xml);
+        } catch (Exception e) {
+            throw new IOException("Failed to convert HtmlUnit page to jsoup Document", e);
+        }
+    }
+
     // ---------- Core execution logic (private, reused) ----------
 
     /**
@@ -239,21 +295,7 @@ public final class HtmlRenderEngine {
     private static HtmlPage executePage(RenderConfig config, String htmlContent, String... jsSnippets) throws IOException {
         WebClient webClient = getWebClient(config);
         try {
-            HtmlPage page = webClient.loadHtmlCodeIntoCurrentWindow(htmlContent);
-         // 手动触发 window.onload 事件
-            page.executeJavaScript("if (window.onload) window.onload();");
-            
-            if (jsSnippets != null) {
-                for (String snippet : jsSnippets) {
-                    if (snippet != null && !snippet.trim().isEmpty()) {
-                        page.executeJavaScript(snippet);
-                    }
-                }
-            }
-            if (config.getWaitForBackgroundJsMs() > 0) {
-                webClient.waitForBackgroundJavaScript(config.getWaitForBackgroundJsMs());
-            }
-            return page;
+            return executePage(webClient, config, htmlContent, jsSnippets);
         } finally {
             if (config.isRecreateAfterUse()) {
                 WEB_CLIENT_HOLDER.remove();
@@ -261,6 +303,36 @@ public final class HtmlRenderEngine {
         }
     }
 
+    /**
+     * Loads the given HTML content into the current window of the given, already configured,
+     * WebClient, executes all provided JavaScript snippets and optionally waits for background
+     * JavaScript tasks.
+     *
+     * @param webClient   the client to render with
+     * @param config      the rendering configuration
+     * @param htmlContent the raw HTML to load
+     * @param jsSnippets  JavaScript snippets to execute (may be {@code null} or empty)
+     * @return the fully processed HtmlPage
+     * @throws IOException if loading the HTML fails
+     */
+    private static HtmlPage executePage(WebClient webClient, RenderConfig config, String htmlContent, String... jsSnippets) throws IOException {
+        HtmlPage page = webClient.loadHtmlCodeIntoCurrentWindow(htmlContent);
+     // 手动触发 window.onload 事件
+        page.executeJavaScript("if (window.onload) window.onload();");
+        
+        if (jsSnippets != null) {
+            for (String snippet : jsSnippets) {
+                if (snippet != null && !snippet.trim().isEmpty()) {
+                    page.executeJavaScript(snippet);
+                }
+            }
+        }
+        if (config.getWaitForBackgroundJsMs() > 0) {
+            webClient.waitForBackgroundJavaScript(config.getWaitForBackgroundJsMs());
+        }
+        return page;
+    }
+
     // ---------- WebClient management ----------
 
     /**
@@ -287,7 +359,7 @@ public final class HtmlRenderEngine {
      * @param wc     the WebClient to configure
      * @param config the configuration providing the values
      */
-    private static void applyConfig(WebClient wc, RenderConfig config) {
+    static void applyConfig(WebClient wc, RenderConfig config) {
         WebClientOptions options = wc.getOptions();
         options.setCssEnabled(config.isCssEnabled());
         options.setJavaScriptEnabled(config.isJavaScriptEnabled());
@@ -304,7 +376,7 @@ public final class HtmlRenderEngine {
      *
      * @return a newly created, pre-configured WebClient
      */
-    private static WebClient createDefaultWebClient() {
+    static WebClient createDefaultWebClient() {
         WebClient wc = new WebClient();
         wc.getOptions().setCssEnabled(false);
         wc.getOptions().setUseInsecureSSL(true);
@@ -405,6 +477,15 @@ public final class HtmlRenderEngine {
         /** Whether to discard the thread-local WebClient after each render call. */
         public boolean isRecreateAfterUse() { return recreateAfterUse; }
 
+        /**
+         * The values applied to a WebClient by this configuration, so that
+         * {@link WebClientPool} can keep clients per configuration.
+         */
+        List<Object> clientOptionsKey() {
+            return Arrays.asList(cssEnabled, javaScriptEnabled, throwExceptionOnScriptError,
+                    useInsecureSSL, pageLoadTimeoutMs, javaScriptTimeoutMs);
+        }
+
         /**
          * Builder for {@link RenderConfig}.
          * <p>Allows stepwise configuration of rendering parameters.</p>
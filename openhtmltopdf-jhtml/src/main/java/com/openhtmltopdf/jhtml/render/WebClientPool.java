@@ -0,0 +1,396 @@
+package com.openhtmltopdf.jhtml.render;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.htmlunit.WebClient;
+import org.htmlunit.WebWindow;
+
+import com.openhtmltopdf.jhtml.render.HtmlRenderEngine.RenderConfig;
+
+/**
+ * A bounded pool of HtmlUnit {@link WebClient}s shared by all threads.
+ * <p>
+ * Unlike the thread-local clients of {@link HtmlRenderEngine}, the number of
+ * JavaScript engines is bounded by the pool size rather than by the number of
+ * threads, which suits servlet containers with many request threads and virtual
+ * threads. Waiting for a client only uses {@link Semaphore}, so waiting virtual
+ * threads do not pin their carrier thread.
+ * </p>
+ * <ul>
+ * <li>Clients are kept per client options of the {@link RenderConfig}, so a
+ * client is never leased with options applied for another configuration.</li>
+ * <li>A lease waits at most the lease timeout for a client, then fails with an
+ * {@link IOException}.</li>
+ * <li>A returned client has its pending background JavaScript jobs removed. A
+ * client whose render failed, whose window is gone or that has been used
+ * {@code maxUsesPerClient} times is closed instead of going back to the pool.</li>
+ * <li>Wait time, saturation and client turnover are counted, see the getters.</li>
+ * </ul>
+ *
+ * <pre>{@code
+ * WebClientPool pool = new WebClientPool(8, 30, TimeUnit.SECONDS);
+ * pool.warmUp(RenderConfig.defaultConfig(), 8);
+ *
+ * String html = HtmlRenderEngine.render(pool, RenderConfig.defaultConfig(), "<html>...</html>", "js();");
+ * }</pre>
+ */
+public final class WebClientPool implements Closeable {
+
+    /**
+     * Default number of renders a client is used for before it is recreated.
+     */
+    public static final int DEFAULT_MAX_USES_PER_CLIENT = 1000;
+
+    private final int maxClients;
+    private final long leaseTimeoutNanos;
+    private final int maxUsesPerClient;
+
+    /** One permit per client that may be leased at the same time. */
+    private final Semaphore permits;
+    /** Idle clients per client options key. */
+    private final Map<List<Object>, Deque<PooledClient>> idle = new ConcurrentHashMap<>();
+    /** Number of open clients, leased or idle. */
+    private final AtomicInteger size = new AtomicInteger();
+    private volatile boolean closed;
+
+    // ---------- Metrics ----------
+
+    private final LongAdder leaseCount = new LongAdder();
+    private final LongAdder saturatedCount = new LongAdder();
+    private final LongAdder timeoutCount = new LongAdder();
+    private final LongAdder createdCount = new LongAdder();
+    private final LongAdder discardedCount = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    /**
+     * A client with the options key it was configured for and its number of uses.
+     */
+    private static final class PooledClient {
+        final WebClient webClient;
+        final List<Object> key;
+        int uses;
+
+        PooledClient(WebClient webClient, List<Object> key) {
+            this.webClient = webClient;
+            this.key = key;
+        }
+    }
+
+    /**
+     * Creates a pool recreating clients after {@link #DEFAULT_MAX_USES_PER_CLIENT} uses.
+     *
+     * @param maxClients   the maximum number of clients, leased or idle
+     * @param leaseTimeout the maximum time to wait for a client
+     * @param unit         the unit of the lease timeout
+     */
+    public WebClientPool(int maxClients, long leaseTimeout, TimeUnit unit) {
+        this(maxClients, leaseTimeout, unit, DEFAULT_MAX_USES_PER_CLIENT);
+    }
+
+    /**
+     * @param maxClients       the maximum number of clients, leased or idle
+     * @param leaseTimeout     the maximum time to wait for a client
+     * @param unit             the unit of the lease timeout
+     * @param maxUsesPerClient the number of renders after which a client is closed
+     *                         and replaced, to bound state accumulated in its JavaScript engine
+     */
+    public WebClientPool(int maxClients, long leaseTimeout, TimeUnit unit, int maxUsesPerClient) {
+        if (maxClients < 1) {
+            throw new IllegalArgumentException("maxClients must be at least 1");
+        }
+        if (maxUsesPerClient < 1) {
+            throw new IllegalArgumentException("maxUsesPerClient must be at least 1");
+        }
+        this.maxClients = maxClients;
+        this.leaseTimeoutNanos = unit.toNanos(leaseTimeout);
+        this.maxUsesPerClient = maxUsesPerClient;
+        this.permits = new Semaphore(maxClients, true);
+    }
+
+    // ---------- Leasing ----------
+
+    /**
+     * A leased client, to be closed after use to return the client to the pool.
+     */
+    public final class Lease implements AutoCloseable {
+        private final PooledClient client;
+        private boolean valid = true;
+        private boolean released;
+
+        private Lease(PooledClient client) {
+            this.client = client;
+        }
+
+        /**
+         * Returns the leased client, configured for the config it was leased with.
+         */
+        public WebClient getWebClient() {
+            return client.webClient;
+        }
+
+        /**
+         * Marks the client as unusable, so that it is closed rather than
+         * returned to the pool, for example after a failed render.
+         */
+        public void invalidate() {
+            valid = false;
+        }
+
+        /**
+         * Returns the client to the pool, or closes it if it is no longer healthy.
+         */
+        @Override
+        public void close() {
+            if (released) {
+                return;
+            }
+            released = true;
+            release(client, valid);
+        }
+    }
+
+    /**
+     * Leases a client configured for the given config, waiting at most the
+     * lease timeout for one to become available.
+     *
+     * @param config the configuration to lease a client for
+     * @return the lease, to be closed after use
+     * @throws IOException if no client became available within the lease timeout,
+     *                     the waiting thread was interrupted or the pool is closed
+     */
+    public Lease lease(RenderConfig config) throws IOException {
+        ensureOpen();
+
+        long start = System.nanoTime();
+        boolean acquired = permits.tryAcquire();
+
+        if (!acquired) {
+            saturatedCount.increment();
+            try {
+                acquired = permits.tryAcquire(leaseTimeoutNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a WebClient");
+            }
+        }
+
+        long waited = System.nanoTime() - start;
+        totalWaitNanos.add(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+
+        if (!acquired) {
+            timeoutCount.increment();
+            throw new IOException("Timed out waiting for a WebClient after " +
+                    TimeUnit.NANOSECONDS.toMillis(waited) + " ms, all " + maxClients + " clients are leased");
+        }
+
+        try {
+            ensureOpen();
+            PooledClient client = takeIdle(config.clientOptionsKey());
+            if (client == null) {
+                client = create(config);
+            }
+            leaseCount.increment();
+            return new Lease(client);
+        } catch (RuntimeException | IOException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Creates clients for the given config until the given number of clients
+     * for it are idle in the pool, loading an empty page into each so that its
+     * JavaScript engine is initialized before the first render.
+     *
+     * @param config the configuration to create clients for
+     * @param count  the number of clients, at most the pool size
+     * @throws IOException if the pool is closed or a client fails to load the page
+     */
+    public void warmUp(RenderConfig config, int count) throws IOException {
+        List<Object> key = config.clientOptionsKey();
+        Deque<PooledClient> clients = idle.computeIfAbsent(key, k -> new ConcurrentLinkedDeque<>());
+
+        for (int i = clients.size(); i < Math.min(count, maxClients); i++) {
+            ensureOpen();
+            if (!permits.tryAcquire()) {
+                // Clients are in use, there is nothing to warm up for.
+                return;
+            }
+            try {
+                PooledClient client = create(config);
+                try {
+                    client.webClient.loadHtmlCodeIntoCurrentWindow("<html><body><script>1;</script></body></html>");
+                } catch (IOException | RuntimeException e) {
+                    discard(client);
+                    throw e;
+                }
+                clients.offerFirst(client);
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    private PooledClient takeIdle(List<Object> key) {
+        Deque<PooledClient> clients = idle.get(key);
+        if (clients == null) {
+            return null;
+        }
+
+        PooledClient client;
+        while ((client = clients.pollFirst()) != null) {
+            if (isHealthy(client)) {
+                return client;
+            }
+            discard(client);
+        }
+        return null;
+    }
+
+    private PooledClient create(RenderConfig config) {
+        // Make room by closing an idle client kept for another configuration.
+        while (size.get() >= maxClients && evictIdle()) {
+            // Keep evicting until there is room or nothing is idle.
+        }
+
+        WebClient wc = HtmlRenderEngine.createDefaultWebClient();
+        HtmlRenderEngine.applyConfig(wc, config);
+        size.incrementAndGet();
+        createdCount.increment();
+
+        return new PooledClient(wc, config.clientOptionsKey());
+    }
+
+    private boolean evictIdle() {
+        for (Deque<PooledClient> clients : idle.values()) {
+            // The least recently used client is at the tail.
+            PooledClient client = clients.pollLast();
+            if (client != null) {
+                discard(client);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void release(PooledClient client, boolean valid) {
+        try {
+            client.uses++;
+            if (valid && !closed && client.uses < maxUsesPerClient && resetClient(client)) {
+                // Most recently used first, so that clients still in the CPU cache are reused.
+                idle.computeIfAbsent(client.key, k -> new ConcurrentLinkedDeque<>()).offerFirst(client);
+            } else {
+                discard(client);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Stops background JavaScript left over from the last render, so that it
+     * does not run while the client is idle or in the next render.
+     */
+    private static boolean resetClient(PooledClient client) {
+        try {
+            WebWindow window = client.webClient.getCurrentWindow();
+            if (window == null) {
+                return false;
+            }
+            window.getJobManager().removeAllJobs();
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static boolean isHealthy(PooledClient client) {
+        try {
+            return client.webClient.getCurrentWindow() != null;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private void discard(PooledClient client) {
+        size.decrementAndGet();
+        discardedCount.increment();
+        try {
+            client.webClient.close();
+        } catch (RuntimeException e) {
+            // The client is being thrown away anyway.
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("WebClient pool is closed");
+        }
+    }
+
+    /**
+     * Closes all idle clients. Leased clients are closed when they are returned.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Deque<PooledClient> clients : idle.values()) {
+            PooledClient client;
+            while ((client = clients.pollFirst()) != null) {
+                discard(client);
+            }
+        }
+    }
+
+    // ---------- Metrics ----------
+
+    /** The maximum number of clients, leased or idle. */
+    public int getMaxClients() { return maxClients; }
+    /** The number of open clients, leased or idle. */
+    public int getSize() { return size.get(); }
+    /** The number of clients currently leased. */
+    public int getLeasedCount() { return maxClients - permits.availablePermits(); }
+    /** The number of threads waiting for a client. */
+    public int getWaitingCount() { return permits.getQueueLength(); }
+    /** The number of successful leases. */
+    public long getLeaseCount() { return leaseCount.sum(); }
+    /** The number of leases that had to wait because all clients were leased. */
+    public long getSaturatedCount() { return saturatedCount.sum(); }
+    /** The number of leases that failed because no client became available in time. */
+    public long getTimeoutCount() { return timeoutCount.sum(); }
+    /** The number of clients created. */
+    public long getCreatedCount() { return createdCount.sum(); }
+    /** The number of clients closed because they were unhealthy, worn out or evicted. */
+    public long getDiscardedCount() { return discardedCount.sum(); }
+    /** The total time spent waiting for clients, in the given unit. */
+    public long getTotalWaitTime(TimeUnit unit) { return unit.convert(totalWaitNanos.sum(), TimeUnit.NANOSECONDS); }
+    /** The longest time a lease waited for a client, in the given unit. */
+    public long getMaxWaitTime(TimeUnit unit) { return unit.convert(maxWaitNanos.get(), TimeUnit.NANOSECONDS); }
+
+    @Override
+    public String toString() {
+        return "WebClientPool[size=" + getSize() + "/" + maxClients +
+                ", leased=" + getLeasedCount() +
+                ", waiting=" + getWaitingCount() +
+                ", leases=" + getLeaseCount() +
+                ", saturated=" + getSaturatedCount() +
+                ", timeouts=" + getTimeoutCount() +
+                ", created=" + getCreatedCount() +
+                ", discarded=" + getDiscardedCount() +
+                ", maxWaitMs=" + getMaxWaitTime(TimeUnit.MILLISECONDS) + "]";
+    }
+}
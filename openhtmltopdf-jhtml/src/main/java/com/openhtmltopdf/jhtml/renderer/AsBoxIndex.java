@@ -0,0 +1,235 @@
+package com.openhtmltopdf.jhtml.renderer;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.w3c.dom.Element;
+
+import com.openhtmltopdf.css.style.CssContext;
+import com.openhtmltopdf.render.BlockBox;
+import com.openhtmltopdf.render.Box;
+import com.openhtmltopdf.render.InlineLayoutBox;
+
+/**
+ * An index over the laid out boxes of a document, built once after layout, for
+ * repeated element geometry queries: lookup by tag name or attribute value and
+ * hit testing by point or region.
+ * <p>
+ * Rectangles are content area rectangles in document coordinates, the same as
+ * returned by {@link AsRenderer#getContentAreaEdge(Box)}. Where an element has more
+ * than one box, such as an inline element broken over lines, the last box in tree
+ * order is used, as {@link AsRenderer#findElementRectangle(java.util.function.Predicate)} did.
+ * <p>
+ * Hit testing uses a uniform grid over the document, each rectangle being
+ * registered in every cell it covers, so a query only looks at the boxes near it.
+ */
+public class AsBoxIndex {
+
+	private static final int MIN_CELL_SIZE = 64;
+	private static final int COLUMNS = 16;
+
+	/**
+	 * An element with its rectangle and position in tree order.
+	 */
+	private static class Entry {
+		final Element element;
+		final Rectangle rectangle;
+		final int order;
+
+		Entry(Element element, Rectangle rectangle, int order) {
+			this.element = element;
+			this.rectangle = rectangle;
+			this.order = order;
+		}
+	}
+
+	private static final Comparator<Entry> TREE_ORDER = Comparator.comparingInt(e -> e.order);
+
+	private final List<Entry> _entries;
+	private final Map<Element, Entry> _byElement = new IdentityHashMap<>();
+	private final Map<String, List<Entry>> _byTagName = new HashMap<>();
+	// Attribute name to attribute value to entries, filled in on first use of an attribute name.
+	private final Map<String, Map<String, List<Entry>>> _byAttribute = new HashMap<>();
+	private final Map<Long, List<Entry>> _grid = new HashMap<>();
+	private final int _cellSize;
+
+	/**
+	 * Walks the box tree of root once and indexes the element of every box.
+	 */
+	public AsBoxIndex(Box root, CssContext cssCtx) {
+		Map<Element, Box> lastBoxes = new LinkedHashMap<>();
+		collect(root, lastBoxes);
+
+		_entries = new ArrayList<>(lastBoxes.size());
+		// Cells about as high as they are wide, with the page width split into a few columns.
+		_cellSize = Math.max(MIN_CELL_SIZE, root.getWidth() / COLUMNS);
+
+		for (Map.Entry<Element, Box> e : lastBoxes.entrySet()) {
+			Box box = e.getValue();
+			Rectangle rect = box.getContentAreaEdge(box.getAbsX(), box.getAbsY(), cssCtx);
+			Entry entry = new Entry(e.getKey(), rect, _entries.size());
+
+			_entries.add(entry);
+			_byElement.put(entry.element, entry);
+			_byTagName.computeIfAbsent(entry.element.getTagName(), k -> new ArrayList<>()).add(entry);
+			addToGrid(entry);
+		}
+	}
+
+	/**
+	 * Same walk as {@link AsRenderer#findBoxs(Box, List)}, keeping the last box of each element.
+	 */
+	private static void collect(Box parent, Map<Element, Box> out) {
+		if (parent.getElement() != null) {
+			out.put(parent.getElement(), parent);
+		}
+
+		for (Box child : parent.getChildren()) {
+			collect(child, out);
+		}
+
+		if (parent instanceof BlockBox && ((BlockBox) parent).getInlineContent() != null) {
+			for (Object child : ((BlockBox) parent).getInlineContent()) {
+				if (child instanceof Box) {
+					collect((Box) child, out);
+				}
+			}
+		}
+
+		if (parent instanceof InlineLayoutBox) {
+			for (Object child : ((InlineLayoutBox) parent).getInlineChildren()) {
+				if (child instanceof Box) {
+					collect((Box) child, out);
+				}
+			}
+		}
+	}
+
+	private static long cellKey(int column, int row) {
+		return ((long) column << 32) | (row & 0xffffffffL);
+	}
+
+	private void addToGrid(Entry entry) {
+		Rectangle r = entry.rectangle;
+		int firstColumn = Math.floorDiv(r.x, _cellSize);
+		int lastColumn = Math.floorDiv(r.x + Math.max(r.width - 1, 0), _cellSize);
+		int firstRow = Math.floorDiv(r.y, _cellSize);
+		int lastRow = Math.floorDiv(r.y + Math.max(r.height - 1, 0), _cellSize);
+
+		for (int row = firstRow; row <= lastRow; row++) {
+			for (int column = firstColumn; column <= lastColumn; column++) {
+				_grid.computeIfAbsent(cellKey(column, row), k -> new ArrayList<>()).add(entry);
+			}
+		}
+	}
+
+	private static Map<Element, Rectangle> toMap(List<Entry> entries) {
+		Map<Element, Rectangle> result = new HashMap<>();
+		for (Entry entry : entries) {
+			// Copy, so that callers can not change the indexed rectangle.
+			result.put(entry.element, new Rectangle(entry.rectangle));
+		}
+		return result;
+	}
+
+	private static List<Element> toElements(List<Entry> entries) {
+		List<Element> result = new ArrayList<>(entries.size());
+		for (Entry entry : entries) {
+			result.add(entry.element);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the rectangle of the element or null if it has no box.
+	 */
+	public Rectangle getRectangle(Element element) {
+		Entry entry = _byElement.get(element);
+		return entry == null ? null : new Rectangle(entry.rectangle);
+	}
+
+	/**
+	 * Returns all elements with a box and their rectangles.
+	 */
+	public Map<Element, Rectangle> getRectangles() {
+		return toMap(_entries);
+	}
+
+	/**
+	 * Returns the elements with the tag name, case sensitive, and their rectangles.
+	 */
+	public Map<Element, Rectangle> findByTagName(String tagName) {
+		return toMap(_byTagName.getOrDefault(tagName, Collections.emptyList()));
+	}
+
+	/**
+	 * Returns the elements where the attribute has exactly the value, and their rectangles.
+	 * As with {@link Element#getAttribute(String)}, an empty value matches
+	 * elements without the attribute.
+	 */
+	public Map<Element, Rectangle> findByAttribute(String name, String value) {
+		Map<String, List<Entry>> byValue = _byAttribute.computeIfAbsent(name, this::indexAttribute);
+		return toMap(byValue.getOrDefault(value, Collections.emptyList()));
+	}
+
+	private Map<String, List<Entry>> indexAttribute(String name) {
+		Map<String, List<Entry>> byValue = new HashMap<>();
+		for (Entry entry : _entries) {
+			byValue.computeIfAbsent(entry.element.getAttribute(name), k -> new ArrayList<>()).add(entry);
+		}
+		return byValue;
+	}
+
+	/**
+	 * Returns the elements whose rectangle contains the point, in tree order,
+	 * so outer elements come before the elements inside them.
+	 */
+	public List<Element> findAt(int x, int y) {
+		List<Entry> cell = _grid.getOrDefault(
+				cellKey(Math.floorDiv(x, _cellSize), Math.floorDiv(y, _cellSize)), Collections.emptyList());
+
+		List<Entry> hits = new ArrayList<>();
+		for (Entry entry : cell) {
+			if (entry.rectangle.contains(x, y)) {
+				hits.add(entry);
+			}
+		}
+
+		// Cells are filled in tree order, so hits already are.
+		return toElements(hits);
+	}
+
+	/**
+	 * Returns the elements whose rectangle intersects the region, in tree order.
+	 */
+	public List<Element> findIn(Rectangle region) {
+		int firstColumn = Math.floorDiv(region.x, _cellSize);
+		int lastColumn = Math.floorDiv(region.x + Math.max(region.width - 1, 0), _cellSize);
+		int firstRow = Math.floorDiv(region.y, _cellSize);
+		int lastRow = Math.floorDiv(region.y + Math.max(region.height - 1, 0), _cellSize);
+
+		Set<Entry> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+		List<Entry> hits = new ArrayList<>();
+
+		for (int row = firstRow; row <= lastRow; row++) {
+			for (int column = firstColumn; column <= lastColumn; column++) {
+				for (Entry entry : _grid.getOrDefault(cellKey(column, row), Collections.emptyList())) {
+					if (seen.add(entry) && entry.rectangle.intersects(region)) {
+						hits.add(entry);
+					}
+				}
+			}
+		}
+
+		hits.sort(TREE_ORDER);
+		return toElements(hits);
+	}
+}
@@ -15,7 +15,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.function.Predicate;
 import java.util.logging.Level;
-import java.util.stream.Collectors;
 
 import org.w3c.dom.Attr;
 import org.w3c.dom.Document;
@@ -298,6 +297,7 @@ public class AsRenderer implements Closeable {
         root.getLayer().trimEmptyPages(c, dim.height);
         root.getLayer().layoutPages(c);
         _root = root;
+        _boxIndex = null;
     }
     
     private Rectangle getInitialExtents(LayoutContext c) {
@@ -538,6 +538,7 @@ public class AsRenderer implements Closeable {
 
 	private static final float DEFAULT_PD = 25.4F;
 	private RenderingContext _renderingContext;
+	private AsBoxIndex _boxIndex;
 	
 	public BlockBox getRootBox() {
 		return _root;
@@ -622,35 +623,57 @@ public class AsRenderer implements Closeable {
 	 */
 	public Map<Element, Rectangle> findElementRectangle(Predicate<Element> predicate) {
 
-		Map<Element, Rectangle> result = new HashMap<Element, Rectangle>();
+		Map<Element, Rectangle> result = getBoxIndex().getRectangles();
 
-		List<Object> renderObjects = new ArrayList<>();
-		
-		findBoxs(_root, renderObjects);
+		result.keySet().removeIf(predicate.negate());
 
-		List<Object> boxs = renderObjects.stream().filter(x -> {
-			if (x instanceof Box) {
-				Box b = (Box) x;
-				if (null != b.getElement()) {
-					return predicate.test(b.getElement());
-				}
-			}
-			return false;
-		}).collect(Collectors.toList());
+		return result;
 
-		for (Object box : boxs) {
+	}
 
-			Box master = (Box) box;
-			Element ele = master.getElement();
+	/**
+	 * Find rectangles of elements with the given tag name.
+	 * @param tagName The tag name, case sensitive.
+	 * @return A map of elements to their rectangles.
+	 */
+	public Map<Element, Rectangle> findElementRectangleByTagName(String tagName) {
+		return getBoxIndex().findByTagName(tagName);
+	}
 
-			if (ele == null) {
-				continue;
-			}
-			result.put(ele, getContentAreaEdge(master));
-			
-		}
-		return result;
+	/**
+	 * Find rectangles of elements where the attribute has exactly the given value.
+	 * @param name The attribute name, such as id, class or name.
+	 * @param value The attribute value.
+	 * @return A map of elements to their rectangles.
+	 */
+	public Map<Element, Rectangle> findElementRectangleByAttribute(String name, String value) {
+		return getBoxIndex().findByAttribute(name, value);
+	}
+
+	/**
+	 * Find elements whose content area contains the point, outer elements first.
+	 */
+	public List<Element> findElementsAt(int x, int y) {
+		return getBoxIndex().findAt(x, y);
+	}
 
+	/**
+	 * Find elements whose content area intersects the region, in document order.
+	 */
+	public List<Element> findElementsIn(Rectangle region) {
+		return getBoxIndex().findIn(region);
+	}
+
+	/**
+	 * Get the index of laid out boxes, built on first use after layout.
+	 * 
+	 * @return The box index.
+	 */
+	public AsBoxIndex getBoxIndex() {
+		if (_boxIndex == null) {
+			_boxIndex = new AsBoxIndex(_root, _renderingContext);
+		}
+		return _boxIndex;
 	}
 	
 	/**
@@ -10,13 +10,18 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import com.openhtmltopdf.java2d.api.Java2DRendererBuilder;
@@ -28,9 +33,82 @@ import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
  */
 public class FontUtil {
 
+	/**
+	 * Cached results of {@link #findFontsInDirectoryCached(Path, List, boolean, boolean)}.
+	 */
+	private static final Map<List<Object>, DirectoryScan<CSSFont>> FONT_SCANS = new ConcurrentHashMap<>();
+
+	/**
+	 * Cached results of {@link #findFontFilesCached(Path, List)}.
+	 */
+	private static final Map<List<Object>, DirectoryScan<Path>> FILE_SCANS = new ConcurrentHashMap<>();
+
 	private FontUtil() {
 	}
 
+	/**
+	 * The result of walking a directory tree, with the modification times of
+	 * the directories walked. Adding, removing or renaming a file changes the
+	 * modification time of its directory, which makes the result stale.
+	 */
+	private static final class DirectoryScan<T> {
+		final Map<Path, FileTime> directories;
+		final List<T> result;
+
+		DirectoryScan(Map<Path, FileTime> directories, List<T> result) {
+			this.directories = directories;
+			this.result = Collections.unmodifiableList(result);
+		}
+
+		boolean isCurrent() {
+			for (Map.Entry<Path, FileTime> dir : directories.entrySet()) {
+				try {
+					if (!Files.getLastModifiedTime(dir.getKey()).equals(dir.getValue())) {
+						return false;
+					}
+				} catch (IOException e) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Records the modification time of each directory visited, passing everything else to the delegate.
+	 */
+	private static final class DirectoryRecorder extends SimpleFileVisitor<Path> {
+		private final SimpleFileVisitor<Path> delegate;
+		private final Map<Path, FileTime> directories = new HashMap<>();
+
+		DirectoryRecorder(SimpleFileVisitor<Path> delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+			directories.put(dir, attrs.lastModifiedTime());
+			return delegate.preVisitDirectory(dir, attrs);
+		}
+
+		@Override
+		public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+			return delegate.visitFile(file, attrs);
+		}
+	}
+
+	private static <T> DirectoryScan<T> scan(Path directory, boolean recurse, boolean followLinks,
+			SimpleFileVisitor<Path> processor, List<T> result) throws IOException {
+		DirectoryRecorder recorder = new DirectoryRecorder(processor);
+
+		int maxDepth = recurse ? Integer.MAX_VALUE : 1;
+		Set<FileVisitOption> options = followLinks ? EnumSet.of(FileVisitOption.FOLLOW_LINKS) : EnumSet.noneOf(FileVisitOption.class);
+
+		Files.walkFileTree(directory, options, maxDepth, recorder);
+
+		return new DirectoryScan<>(recorder.directories, result);
+	}
+
 	/**
 	 * Returns a list of fonts in a given directory.
 	 * NOTE: Should not be used repeatedly as each font found is parsed to get the family name.
@@ -69,6 +147,77 @@ public class FontUtil {
 	public static List<CSSFont> findFontsInDirectory(String directory) throws IOException {
 		return findFontsInDirectory(Paths.get(directory));
 	}
+
+	/**
+	 * Like {@link #findFontsInDirectory(Path, List, boolean, boolean)} but keeps the result
+	 * and only walks the directory tree and parses the fonts again after a directory in it
+	 * has been modified, so it is cheap to call on every render. Checking for modification
+	 * reads the modification time of each directory, font files are not opened.
+	 *
+	 * @return an unmodifiable list of fonts.
+	 */
+	public static List<CSSFont> findFontsInDirectoryCached(Path directory, List<String> validFileExtensions, boolean recurse, boolean followLinks) throws IOException {
+		List<Object> key = Arrays.asList(directory.toAbsolutePath().normalize(), new ArrayList<>(validFileExtensions), recurse, followLinks);
+
+		DirectoryScan<CSSFont> cached = FONT_SCANS.get(key);
+		if (cached != null && cached.isCurrent()) {
+			return cached.result;
+		}
+
+		FontFileProcessor processor = new FontFileProcessor(validFileExtensions);
+		DirectoryScan<CSSFont> scan = scan(directory, recurse, followLinks, processor, processor.getFontsAdded());
+
+		FONT_SCANS.put(key, scan);
+		return scan.result;
+	}
+
+	/**
+	 * Like {@link #findFontsInDirectory(Path)} but cached, see
+	 * {@link #findFontsInDirectoryCached(Path, List, boolean, boolean)}.
+	 */
+	public static List<CSSFont> findFontsInDirectoryCached(Path directory) throws IOException {
+		return findFontsInDirectoryCached(directory, Collections.singletonList("ttf"), true, true);
+	}
+
+	/**
+	 * Returns the font files directly in a directory, ending with one of the extensions
+	 * ignoring case, without opening them. The result is kept until the directory is modified.
+	 *
+	 * @param validFileExtensions file name endings of font files, such as ".ttf"
+	 * @return an unmodifiable list of font files.
+	 */
+	public static List<Path> findFontFilesCached(Path directory, List<String> validFileExtensions) throws IOException {
+		List<Object> key = Arrays.asList(directory.toAbsolutePath().normalize(), new ArrayList<>(validFileExtensions));
+
+		DirectoryScan<Path> cached = FILE_SCANS.get(key);
+		if (cached != null && cached.isCurrent()) {
+			return cached.result;
+		}
+
+		List<Path> files = new ArrayList<>();
+		SimpleFileVisitor<Path> lister = new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+				String lower = file.getFileName().toString().toLowerCase(Locale.US);
+				if (attrs.isRegularFile() && validFileExtensions.stream().anyMatch(ext -> lower.endsWith(ext.toLowerCase(Locale.US)))) {
+					files.add(file);
+				}
+				return FileVisitResult.CONTINUE;
+			}
+		};
+		DirectoryScan<Path> scan = scan(directory, false, true, lister, files);
+
+		FILE_SCANS.put(key, scan);
+		return scan.result;
+	}
+
+	/**
+	 * Drops the cached results of the cached font directory methods.
+	 */
+	public static void clearFontDirectoryCache() {
+		FONT_SCANS.clear();
+		FILE_SCANS.clear();
+	}
 	
 	/**
 	 * Get a string containing added font families (duplicates removed) in a format suitable
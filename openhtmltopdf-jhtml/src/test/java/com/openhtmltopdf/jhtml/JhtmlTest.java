@@ -1,16 +1,25 @@
 package com.openhtmltopdf.jhtml;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
 import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.util.HashMap;
 import java.util.Map;
 
 import javax.imageio.ImageIO;
 
+import org.junit.Test;
+import org.w3c.dom.Element;
+
 import com.openhtmltopdf.jhtml.processor.AsJsoupProcessor;
 import com.openhtmltopdf.jhtml.util.ImageCropUtil;
+import com.openhtmltopdf.render.BlockBox;
 
 import cn.alotus.core.io.resource.ResourceUtil;
 
@@ -56,4 +65,84 @@ public class JhtmlTest {
 
 	}
 
+	private static JhtmlRender newRender() {
+		JhtmlRender htmlRender = JhtmlRender.create(BufferedImage.TYPE_INT_RGB);
+		htmlRender.addFontDirectory(ResourceUtil.getResource("fonts").getPath());
+		htmlRender.setPageWidth(400f);
+		htmlRender.setPageHeight(300f);
+		htmlRender.setScale(1f);
+		return htmlRender;
+	}
+
+	/**
+	 * The content area of every element with a box, keyed on the box id the jsoup processor gave it.
+	 */
+	private static Map<String, Rectangle> rectanglesByBoxId(JhtmlRender htmlRender) {
+		Map<String, Rectangle> result = new HashMap<>();
+		for (Map.Entry<Element, Rectangle> e : htmlRender.getAsRenderer().getBoxIndex().getRectangles().entrySet()) {
+			String boxId = e.getKey().getAttribute(BlockBox.JHTML_BOX_ID);
+			if (!boxId.isEmpty()) {
+				result.put(boxId, e.getValue());
+			}
+		}
+		return result;
+	}
+
+	private static void assertSameImage(String message, BufferedImage expected, BufferedImage actual) {
+		assertEquals(message, expected.getWidth(), actual.getWidth());
+		assertEquals(message, expected.getHeight(), actual.getHeight());
+
+		for (int y = 0; y < expected.getHeight(); y++) {
+			for (int x = 0; x < expected.getWidth(); x++) {
+				if (expected.getRGB(x, y) != actual.getRGB(x, y)) {
+					throw new AssertionError(message + ": pixel " + x + "," + y + " differs");
+				}
+			}
+		}
+	}
+
+	/**
+	 * The jsoup processor hands the renderer a W3C DOM converted from the jsoup document
+	 * rather than its html serialized and parsed again. Both must render the same.
+	 */
+	@Test
+	public void testJsoupDocumentRendersAsHtml() throws IOException {
+		for (String resHtml : new String[] { "1.html", "2.html", "3.html", "4.html", "5.html" }) {
+			String html = ResourceUtil.readUtf8Str(resHtml);
+
+			// The html path, as rendered before the W3C DOM was passed on.
+			JhtmlRender fromHtml = newRender();
+			BufferedImage htmlImage = fromHtml.toImage(new AsJsoupProcessor().asHtml(html));
+
+			JhtmlRender fromDocument = newRender();
+			fromDocument.useJsoup();
+			BufferedImage documentImage = fromDocument.toImage(html);
+
+			assertSameImage(resHtml, htmlImage, documentImage);
+
+			Map<String, Rectangle> htmlRectangles = rectanglesByBoxId(fromHtml);
+			Map<String, Rectangle> documentRectangles = rectanglesByBoxId(fromDocument);
+
+			assertFalse(resHtml, htmlRectangles.isEmpty());
+			assertEquals(resHtml, htmlRectangles, documentRectangles);
+		}
+	}
+
+	/**
+	 * Elements found through the jsoup document have the rectangles of their boxes.
+	 */
+	@Test
+	public void testJsoupElementRectangles() throws IOException {
+		String html = "<html><body style=\"margin: 0; font-family: Karla-Bold;\">" +
+				"<div class=\"a\" style=\"margin: 10px; width: 50px; height: 20px;\">a</div>" +
+				"<div id=\"b\" style=\"margin-left: 30px; width: 70px; height: 40px;\">b</div></body></html>";
+
+		JhtmlRender htmlRender = newRender();
+		AsJsoupProcessor ajp = htmlRender.useJsoup();
+		htmlRender.toImage(html);
+
+		assertEquals(new Rectangle(10, 10, 50, 20), ajp.findFirst(".a"));
+		assertEquals(new Rectangle(30, 40, 70, 40), ajp.findById("b"));
+		assertTrue(ajp.select("div").values().contains(new Rectangle(10, 10, 50, 20)));
+	}
 }
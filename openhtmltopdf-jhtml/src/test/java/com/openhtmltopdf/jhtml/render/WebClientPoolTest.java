@@ -0,0 +1,286 @@
+package com.openhtmltopdf.jhtml.render;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.htmlunit.WebClient;
+import org.junit.Test;
+
+import com.openhtmltopdf.jhtml.render.HtmlRenderEngine.RenderConfig;
+
+public class WebClientPoolTest {
+
+    private static final RenderConfig DEFAULT = RenderConfig.defaultConfig();
+
+    private static void awaitWaiting(WebClientPool pool, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (pool.getWaitingCount() < count) {
+            if (System.nanoTime() > deadline) {
+                fail("No thread started waiting for a client");
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    public void testLeaseTimesOutWhenSaturated() throws IOException {
+        try (WebClientPool pool = new WebClientPool(1, 100, TimeUnit.MILLISECONDS)) {
+            try (WebClientPool.Lease lease = pool.lease(DEFAULT)) {
+                assertEquals(1, pool.getLeasedCount());
+
+                try {
+                    pool.lease(DEFAULT);
+                    fail("Leased more clients than the pool size");
+                } catch (IOException e) {
+                    assertTrue(e.getMessage(), e.getMessage().contains("Timed out"));
+                }
+
+                assertEquals(1, pool.getSaturatedCount());
+                assertEquals(1, pool.getTimeoutCount());
+                assertTrue(pool.getMaxWaitTime(TimeUnit.MILLISECONDS) >= 90);
+                // The failed lease does not hold on to a permit.
+                assertEquals(1, pool.getLeasedCount());
+            }
+
+            assertEquals(0, pool.getLeasedCount());
+
+            try (WebClientPool.Lease lease = pool.lease(DEFAULT)) {
+                assertEquals(2, pool.getLeaseCount());
+                assertEquals(1, pool.getTimeoutCount());
+            }
+        }
+    }
+
+    @Test
+    public void testWaitingLeaseGetsReturnedClient() throws Exception {
+        try (WebClientPool pool = new WebClientPool(1, 10, TimeUnit.SECONDS)) {
+            WebClientPool.Lease first = pool.lease(DEFAULT);
+            WebClient client = first.getWebClient();
+
+            CompletableFuture<WebClient> waiter = CompletableFuture.supplyAsync(() -> {
+                try (WebClientPool.Lease lease = pool.lease(DEFAULT)) {
+                    return lease.getWebClient();
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+
+            awaitWaiting(pool, 1);
+            assertFalse(waiter.isDone());
+
+            first.close();
+
+            assertSame(client, waiter.get(10, TimeUnit.SECONDS));
+            assertEquals(1, pool.getSaturatedCount());
+            assertEquals(0, pool.getTimeoutCount());
+            assertEquals(1, pool.getCreatedCount());
+        }
+    }
+
+    @Test
+    public void testIdleClientReused() throws IOException {
+        try (WebClientPool pool = new WebClientPool(2, 1, TimeUnit.SECONDS)) {
+            WebClient client;
+            try (WebClientPool.Lease lease = pool.lease(DEFAULT)) {
+                client = lease.getWebClient();
+            }
+
+            try (WebClientPool.Lease lease = pool.lease(DEFAULT)) {
+                assertSame(client, lease.getWebClient());
+            }
+
+            assertEquals(1, pool.getCreatedCount());
+            assertEquals(1, pool.getSize());
+        }
+    }
+
+    @Test
+    public void testInvalidatedClientDiscarded() throws IOException {
+        try (WebClientPool pool = new WebClientPool(1, 1, TimeUnit.SECONDS)) {
+            WebClient client;
+            try (WebClientPool.Lease lease = pool.lease(DEFAULT)) {
+                client = lease.getWebClient();
+                lease.invalidate();
+            }
+
+            assertEquals(0, pool.getSize());
+            assertEquals(1, pool.getDiscardedCount());
+
+            try (WebClientPool.Lease lease = pool.lease(DEFAULT)) {
+                assertNotSame(client, lease.getWebClient());
+            }
+
+            assertEquals(2, pool.getCreatedCount());
+        }
+    }
+
+    @Test
+    public void testUnhealthyIdleClientDiscarded() throws IOException {
+        try (WebClientPool pool = new WebClientPool(1, 1, TimeUnit.SECONDS)) {
+            WebClient client;
+            try (WebClientPool.Lease lease = pool.lease(DEFAULT)) {
+                client = lease.getWebClient();
+            }
+
+            // Closing the client closes its windows while it is idle in the pool.
+            client.close();
+
+            try (WebClientPool.Lease lease = pool.lease(DEFAULT)) {
+                assertNotSame(client, lease.getWebClient());
+                assertTrue(lease.getWebClient().getCurrentWindow() != null);
+            }
+
+            assertEquals(1, pool.getDiscardedCount());
+            assertEquals(2, pool.getCreatedCount());
+            assertEquals(1, pool.getSize());
+        }
+    }
+
+    @Test
+    public void testWornOutClientDiscarded() throws IOException {
+        try (WebClientPool pool = new WebClientPool(1, 1, TimeUnit.SECONDS, 2)) {
+            WebClient client;
+            try (WebClientPool.Lease lease = pool.lease(DEFAULT)) {
+                client = lease.getWebClient();
+            }
+            try (WebClientPool.Lease lease = pool.lease(DEFAULT)) {
+                assertSame(client, lease.getWebClient());
+            }
+
+            assertEquals(1, pool.getDiscardedCount());
+
+            try (WebClientPool.Lease lease = pool.lease(DEFAULT)) {
+                assertNotSame(client, lease.getWebClient());
+            }
+        }
+    }
+
+    @Test
+    public void testClientsKeptPerOptions() throws IOException {
+        RenderConfig css = RenderConfig.builder().cssEnabled(true).build();
+        // Only used when rendering, so it does not need a client of its own.
+        RenderConfig waiting = RenderConfig.builder().waitForBackgroundJs(1, TimeUnit.SECONDS).build();
+
+        try (WebClientPool pool = new WebClientPool(2, 1, TimeUnit.SECONDS)) {
+            WebClient plainClient;
+            WebClient cssClient;
+
+            try (WebClientPool.Lease lease = pool.lease(DEFAULT)) {
+                plainClient = lease.getWebClient();
+                assertFalse(plainClient.getOptions().isCssEnabled());
+            }
+
+            try (WebClientPool.Lease lease = pool.lease(css)) {
+                cssClient = lease.getWebClient();
+                assertNotSame(plainClient, cssClient);
+                assertTrue(cssClient.getOptions().isCssEnabled());
+            }
+
+            try (WebClientPool.Lease lease = pool.lease(DEFAULT)) {
+                assertSame(plainClient, lease.getWebClient());
+            }
+
+            try (WebClientPool.Lease lease = pool.lease(waiting)) {
+                assertSame(plainClient, lease.getWebClient());
+            }
+
+            try (WebClientPool.Lease lease = pool.lease(css)) {
+                assertSame(cssClient, lease.getWebClient());
+            }
+
+            assertEquals(2, pool.getCreatedCount());
+            assertEquals(2, pool.getSize());
+        }
+    }
+
+    @Test
+    public void testIdleClientOfOtherOptionsEvictedWhenFull() throws IOException {
+        RenderConfig css = RenderConfig.builder().cssEnabled(true).build();
+
+        try (WebClientPool pool = new WebClientPool(1, 1, TimeUnit.SECONDS)) {
+            WebClient plainClient;
+            try (WebClientPool.Lease lease = pool.lease(DEFAULT)) {
+                plainClient = lease.getWebClient();
+            }
+
+            try (WebClientPool.Lease lease = pool.lease(css)) {
+                assertNotSame(plainClient, lease.getWebClient());
+                assertTrue(lease.getWebClient().getOptions().isCssEnabled());
+            }
+
+            assertEquals(1, pool.getDiscardedCount());
+            assertEquals(1, pool.getSize());
+        }
+    }
+
+    @Test
+    public void testMetrics() throws IOException {
+        try (WebClientPool pool = new WebClientPool(3, 1, TimeUnit.SECONDS)) {
+            pool.warmUp(DEFAULT, 2);
+
+            assertEquals(3, pool.getMaxClients());
+            assertEquals(2, pool.getSize());
+            assertEquals(2, pool.getCreatedCount());
+            assertEquals(0, pool.getLeaseCount());
+
+            WebClientPool.Lease first = pool.lease(DEFAULT);
+            WebClientPool.Lease second = pool.lease(DEFAULT);
+            WebClientPool.Lease third = pool.lease(DEFAULT);
+
+            assertEquals(3, pool.getLeasedCount());
+            assertEquals(3, pool.getLeaseCount());
+            assertEquals(3, pool.getCreatedCount());
+            assertEquals(3, pool.getSize());
+            assertEquals(0, pool.getSaturatedCount());
+            assertEquals(0, pool.getWaitingCount());
+
+            first.close();
+            second.invalidate();
+            second.close();
+            third.close();
+            // Closing a lease twice returns the client once.
+            third.close();
+
+            assertEquals(0, pool.getLeasedCount());
+            assertEquals(2, pool.getSize());
+            assertEquals(1, pool.getDiscardedCount());
+            assertTrue(pool.getTotalWaitTime(TimeUnit.NANOSECONDS) >= pool.getMaxWaitTime(TimeUnit.NANOSECONDS));
+
+            String description = pool.toString();
+            assertTrue(description, description.contains("size=2/3"));
+            assertTrue(description, description.contains("leases=3"));
+            assertTrue(description, description.contains("discarded=1"));
+        }
+    }
+
+    @Test
+    public void testClosedPool() throws IOException {
+        WebClientPool pool = new WebClientPool(2, 1, TimeUnit.SECONDS);
+        pool.warmUp(DEFAULT, 2);
+        WebClientPool.Lease lease = pool.lease(DEFAULT);
+
+        pool.close();
+
+        // Idle clients are closed at once, leased ones when they are returned.
+        assertEquals(1, pool.getSize());
+        assertEquals(1, pool.getDiscardedCount());
+        lease.close();
+        assertEquals(0, pool.getSize());
+        assertEquals(2, pool.getDiscardedCount());
+
+        try {
+            pool.lease(DEFAULT);
+            fail("Leased a client from a closed pool");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("closed"));
+        }
+    }
+}
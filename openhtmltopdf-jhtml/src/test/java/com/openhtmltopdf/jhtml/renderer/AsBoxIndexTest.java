@@ -0,0 +1,264 @@
+package com.openhtmltopdf.jhtml.renderer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Rectangle;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.w3c.dom.Element;
+
+import com.openhtmltopdf.jhtml.JhtmlRender;
+import com.openhtmltopdf.render.Box;
+
+/**
+ * Compares the queries of {@link AsBoxIndex} with walking the box tree, as
+ * {@link AsRenderer#findElementRectangle(Predicate)} did before the index.
+ */
+public class AsBoxIndexTest {
+
+	private static AsRenderer renderer;
+	private static AsBoxIndex index;
+	// Element to the content area of its last box, in tree order of the first box.
+	private static Map<Element, Rectangle> walked;
+	private static int pageCount;
+
+	/**
+	 * A document over several pages, with a grid of table cells crossing the page
+	 * breaks, inline elements broken over lines and elements moved to negative coordinates.
+	 */
+	private static String html() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("<html><head><style>")
+		  .append("@page { size: 400px 300px; margin: 20px; }")
+		  .append("body { margin: 0; font-family: Karla-Bold; font-size: 12px; }")
+		  .append("table { border-collapse: collapse; width: 100%; }")
+		  .append("td { border: 1px solid black; height: 45px; padding: 0; }")
+		  .append(".tall { height: 400px; }")
+		  .append("</style></head><body>")
+		  .append("<div id=\"up\" style=\"position: relative; top: -40px; left: -30px; height: 30px;\">up</div>")
+		  .append("<div id=\"left\" class=\"moved\" style=\"margin-left: -80px; width: 60px; height: 20px;\">left</div>")
+		  .append("<p name=\"para\">");
+
+		for (int i = 0; i < 40; i++) {
+			sb.append("<span class=\"word\">word ").append(i).append("</span> ");
+		}
+
+		sb.append("</p><table>");
+
+		for (int row = 0; row < 20; row++) {
+			sb.append("<tr>");
+			for (int column = 0; column < 4; column++) {
+				boolean tall = row == 7 && column == 2;
+				sb.append("<td class=\"").append(tall ? "tall" : "cell").append("\" name=\"r").append(row).append("c").append(column).append("\"");
+				if (tall) {
+					sb.append(" id=\"tall\"");
+				}
+				sb.append(">").append(row).append('/').append(column).append("</td>");
+			}
+			sb.append("</tr>");
+		}
+
+		return sb.append("</table><p name=\"para\">end</p></body></html>").toString();
+	}
+
+	@BeforeClass
+	public static void render() throws IOException {
+		JhtmlRender render = new JhtmlRender(400f, 300f);
+		render.addFontDirectory(AsBoxIndexTest.class.getResource("/fonts").getPath());
+		pageCount = render.toImages(html()).size();
+		renderer = render.getAsRenderer();
+		index = renderer.getBoxIndex();
+		walked = walk();
+	}
+
+	/**
+	 * The tree walk of {@link AsRenderer#findBoxs(Box, List)}, keeping the last box of each element.
+	 */
+	private static Map<Element, Rectangle> walk() {
+		List<Object> boxes = new ArrayList<>();
+		renderer.findBoxs(renderer.getRootBox(), boxes);
+
+		Map<Element, Rectangle> result = new LinkedHashMap<>();
+		for (Object o : boxes) {
+			if (o instanceof Box && ((Box) o).getElement() != null) {
+				Box box = (Box) o;
+				result.put(box.getElement(), renderer.getContentAreaEdge(box));
+			}
+		}
+		return result;
+	}
+
+	private static Map<Element, Rectangle> walked(Predicate<Element> predicate) {
+		Map<Element, Rectangle> result = new LinkedHashMap<>(walked);
+		result.keySet().removeIf(predicate.negate());
+		return result;
+	}
+
+	private static List<Element> walkedAt(int x, int y) {
+		List<Element> result = new ArrayList<>();
+		walked.forEach((element, rect) -> {
+			if (rect.contains(x, y)) {
+				result.add(element);
+			}
+		});
+		return result;
+	}
+
+	private static List<Element> walkedIn(Rectangle region) {
+		List<Element> result = new ArrayList<>();
+		walked.forEach((element, rect) -> {
+			if (rect.intersects(region)) {
+				result.add(element);
+			}
+		});
+		return result;
+	}
+
+	private static Rectangle bounds() {
+		Rectangle bounds = new Rectangle();
+		for (Rectangle rect : walked.values()) {
+			bounds.add(rect);
+		}
+		return bounds;
+	}
+
+	/**
+	 * The x or y coordinates either side of the edges of the rectangles, where a
+	 * hit test is most likely to go wrong.
+	 */
+	private static List<Integer> edges(boolean x) {
+		List<Integer> result = new ArrayList<>();
+		for (Rectangle rect : walked.values()) {
+			int start = x ? rect.x : rect.y;
+			int end = start + (x ? rect.width : rect.height);
+			result.add(start - 1);
+			result.add(start);
+			result.add(end - 1);
+			result.add(end);
+		}
+		return result;
+	}
+
+	@Test
+	public void testDocumentCoversNegativeCoordinatesAndPages() {
+		assertTrue(pageCount >= 3);
+
+		Rectangle up = walked(e -> "up".equals(e.getAttribute("id"))).values().iterator().next();
+		Rectangle left = walked(e -> "left".equals(e.getAttribute("id"))).values().iterator().next();
+		Rectangle tall = walked(e -> "tall".equals(e.getAttribute("id"))).values().iterator().next();
+
+		assertTrue(up.toString(), up.x < 0 && up.y < 0);
+		// Entirely left of the page, so not in the grid cells at zero.
+		assertTrue(left.toString(), left.x + left.width < 0);
+		// The tall cell is higher than a page, so it crosses a page break.
+		assertTrue(tall.toString(), tall.height > 300);
+	}
+
+	@Test
+	public void testRectangles() {
+		assertEquals(walked, index.getRectangles());
+
+		for (Map.Entry<Element, Rectangle> e : walked.entrySet()) {
+			assertEquals(e.getValue(), index.getRectangle(e.getKey()));
+		}
+	}
+
+	@Test
+	public void testFindByTagName() {
+		for (String tagName : new String[] { "html", "body", "div", "p", "span", "table", "tr", "td", "TD", "none" }) {
+			assertEquals(tagName, walked(e -> tagName.equals(e.getTagName())), index.findByTagName(tagName));
+		}
+	}
+
+	@Test
+	public void testFindByAttribute() {
+		String[][] queries = {
+				{ "id", "up" }, { "id", "tall" }, { "id", "none" }, { "id", "" },
+				{ "class", "cell" }, { "class", "word" }, { "class", "tall" }, { "class", "moved" },
+				{ "name", "para" }, { "name", "r7c2" }, { "name", "r19c3" }, { "style", "" } };
+
+		for (String[] query : queries) {
+			assertEquals(query[0] + "=" + query[1],
+					walked(e -> Objects.equals(query[1], e.getAttribute(query[0]))),
+					index.findByAttribute(query[0], query[1]));
+		}
+	}
+
+	@Test
+	public void testFindAt() {
+		Rectangle bounds = bounds();
+		int checked = 0;
+
+		// A lattice over the whole document, past its edges.
+		for (int y = bounds.y - 10; y <= bounds.y + bounds.height + 10; y += 7) {
+			for (int x = bounds.x - 10; x <= bounds.x + bounds.width + 10; x += 13) {
+				assertEquals(x + "," + y, walkedAt(x, y), index.findAt(x, y));
+				checked++;
+			}
+		}
+
+		// The edges of every rectangle, including those on page breaks.
+		List<Integer> xs = edges(true);
+		List<Integer> ys = edges(false);
+		for (int i = 0; i < xs.size(); i++) {
+			int x = xs.get(i);
+			int y = ys.get(i);
+			assertEquals(x + "," + y, walkedAt(x, y), index.findAt(x, y));
+			checked++;
+		}
+
+		assertTrue(checked > 1000);
+	}
+
+	@Test
+	public void testFindAtPageBreaks() {
+		Rectangle bounds = bounds();
+		Rectangle tall = walked(e -> "tall".equals(e.getAttribute("id"))).values().iterator().next();
+		int x = tall.x + tall.width / 2;
+
+		// Every row through the tall cell, which crosses page breaks and so cells of the grid.
+		for (int y = tall.y - 2; y <= tall.y + tall.height + 2; y++) {
+			List<Element> hits = index.findAt(x, y);
+			assertEquals(x + "," + y, walkedAt(x, y), hits);
+		}
+
+		assertTrue(index.findAt(bounds.x - 1, bounds.y - 1).isEmpty());
+	}
+
+	@Test
+	public void testFindIn() {
+		Rectangle bounds = bounds();
+
+		for (int y = bounds.y - 20; y <= bounds.y + bounds.height; y += 37) {
+			for (int x = bounds.x - 20; x <= bounds.x + bounds.width; x += 53) {
+				for (int size : new int[] { 0, 1, 30, 150, 700 }) {
+					Rectangle region = new Rectangle(x, y, size, size / 2 + 1);
+					assertEquals(region.toString(), walkedIn(region), index.findIn(region));
+				}
+			}
+		}
+
+		assertEquals(new ArrayList<>(walked.keySet()), index.findIn(bounds));
+	}
+
+	@Test
+	public void testRectanglesAreCopies() {
+		Element body = index.findByTagName("body").keySet().iterator().next();
+
+		index.getRectangle(body).translate(1000, 1000);
+		index.findByTagName("body").get(body).translate(1000, 1000);
+
+		assertEquals(walked.get(body), index.getRectangle(body));
+		assertNull(index.getRectangle(null));
+	}
+}
@@ -0,0 +1,112 @@
+package com.openhtmltopdf.jhtml.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.openhtmltopdf.jhtml.util.FontUtil.CSSFont;
+
+public class FontUtilTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@After
+	public void clearCache() {
+		FontUtil.clearFontDirectoryCache();
+	}
+
+	private static Path copyFont(Path dir, String name) throws IOException {
+		Path target = dir.resolve(name);
+		try (InputStream in = FontUtilTest.class.getResourceAsStream("/fonts/Karla-Bold.ttf")) {
+			Files.copy(in, target);
+		}
+		return target;
+	}
+
+	/**
+	 * Sets the modification time of the directory well in the past, so that adding
+	 * a file changes it even on file systems with coarse timestamps.
+	 */
+	private static void age(Path dir) throws IOException {
+		Files.setLastModifiedTime(dir, FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+	}
+
+	private static List<Path> fileNames(List<Path> files) {
+		return files.stream().map(Path::getFileName).sorted().collect(Collectors.toList());
+	}
+
+	@Test
+	public void testFontFilesCacheHit() throws IOException {
+		Path dir = folder.newFolder().toPath();
+		copyFont(dir, "Karla-Bold.ttf");
+		Files.write(dir.resolve("readme.txt"), Collections.singletonList("Not a font"));
+
+		List<Path> first = FontUtil.findFontFilesCached(dir, Collections.singletonList(".ttf"));
+		List<Path> second = FontUtil.findFontFilesCached(dir, Collections.singletonList(".ttf"));
+
+		assertEquals(Collections.singletonList(dir.resolve("Karla-Bold.ttf")), first);
+		assertSame(first, second);
+	}
+
+	@Test
+	public void testFontFilesInvalidatedWhenFileAdded() throws IOException {
+		Path dir = folder.newFolder().toPath();
+		copyFont(dir, "Karla-Bold.ttf");
+		age(dir);
+
+		List<Path> first = FontUtil.findFontFilesCached(dir, Collections.singletonList(".ttf"));
+		assertEquals(1, first.size());
+
+		// Extensions are matched ignoring case.
+		copyFont(dir, "Other.TTF");
+
+		List<Path> second = FontUtil.findFontFilesCached(dir, Collections.singletonList(".ttf"));
+		assertNotSame(first, second);
+		assertEquals(Arrays.asList(dir.resolve("Karla-Bold.ttf").getFileName(), dir.resolve("Other.TTF").getFileName()), fileNames(second));
+		assertSame(second, FontUtil.findFontFilesCached(dir, Collections.singletonList(".ttf")));
+	}
+
+	@Test
+	public void testFontsInDirectoryRecursive() throws IOException {
+		Path root = folder.newFolder().toPath();
+		Path nested = Files.createDirectories(root.resolve("a").resolve("b"));
+		Path font = copyFont(nested, "Karla-Bold.ttf");
+		age(nested);
+
+		List<CSSFont> first = FontUtil.findFontsInDirectoryCached(root);
+		assertEquals(1, first.size());
+		assertEquals(font, first.get(0).path);
+		assertEquals("Karla", first.get(0).family);
+		assertEquals(700, first.get(0).weight);
+
+		assertSame(first, FontUtil.findFontsInDirectoryCached(root));
+
+		// Not walking sub-directories is a separate scan that finds nothing.
+		assertTrue(FontUtil.findFontsInDirectoryCached(root, Collections.singletonList("ttf"), false, true).isEmpty());
+
+		// Adding a font deep in the tree only changes the modification time of its own directory.
+		copyFont(nested, "Karla-Copy.ttf");
+
+		List<CSSFont> second = FontUtil.findFontsInDirectoryCached(root);
+		assertNotSame(first, second);
+		assertEquals(2, second.size());
+		assertSame(second, FontUtil.findFontsInDirectoryCached(root));
+	}
+}
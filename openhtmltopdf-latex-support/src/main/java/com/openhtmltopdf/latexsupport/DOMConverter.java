@@ -1,8 +1,16 @@
 package com.openhtmltopdf.latexsupport;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
+import org.w3c.dom.Document;
 import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
 
 import uk.ac.ed.ph.snuggletex.DOMOutputOptions;
 import uk.ac.ed.ph.snuggletex.SnuggleEngine;
@@ -10,13 +18,54 @@ import uk.ac.ed.ph.snuggletex.SnuggleInput;
 import uk.ac.ed.ph.snuggletex.SnuggleSession;
 import uk.ac.ed.ph.snuggletex.utilities.StylesheetManager;
 
+/**
+ * Converts the LaTeX in an element to XHTML and MathML. This is thread safe.
+ * <br><br>
+ * Conversions are cached by their LaTeX, as the output options are the same for all
+ * of them. Cached nodes belong to a document of their own which is never changed,
+ * and are imported into the document of each element converted.
+ */
 class DOMConverter {
-	private StylesheetManager stylesheetManager = new StylesheetManager();
+	private static final int MAX_CACHED_CONVERSIONS = 512;
+
+	private final StylesheetManager stylesheetManager = new StylesheetManager();
+	private final Map<String, List<Node>> conversions = Collections.synchronizedMap(
+			new LinkedHashMap<String, List<Node>>(64, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, List<Node>> eldest) {
+					return size() > MAX_CACHED_CONVERSIONS;
+				}
+			});
 
 	void convert(Element latexElement) throws IOException {
 		String rawInputLaTeX = latexElement.getTextContent();
 		String inputLaTeX = rawInputLaTeX.replaceAll("(\r\n|\r|\n)", "\n");
 
+		List<Node> converted = conversions.get(inputLaTeX);
+		if (converted == null) {
+			converted = convert(inputLaTeX, rawInputLaTeX);
+			conversions.put(inputLaTeX, converted);
+		}
+
+		while (latexElement.getChildNodes().getLength() != 0)
+			latexElement.removeChild(latexElement.getFirstChild());
+
+		Document document = latexElement.getOwnerDocument();
+		/*
+		 * Reading a DOM is not guaranteed to be thread safe, as implementations may
+		 * cache node lists, so one import at a time.
+		 */
+		synchronized (converted) {
+			for (Node node : converted) {
+				latexElement.appendChild(document.importNode(node, true));
+			}
+		}
+	}
+
+	private List<Node> convert(String inputLaTeX, String rawInputLaTeX) throws IOException {
+		// Sessions are not thread safe, so each conversion has its own.
 		SnuggleEngine engine = createSnuggleEngine();
 		SnuggleSession session = engine.createSession();
 		SnuggleInput input = new SnuggleInput(inputLaTeX, "LaTeX Element");
@@ -27,13 +76,15 @@ class DOMConverter {
 			throw new IOException("Error while parsing: " + rawInputLaTeX + ": " + e.getMessage(), e);
 		}
 
-		while (latexElement.getChildNodes().getLength() != 0)
-			latexElement.removeChild(latexElement.getFirstChild());
-
 		DOMOutputOptions options = new DOMOutputOptions();
 		options.setErrorOutputOptions(DOMOutputOptions.ErrorOutputOptions.XHTML);
 		try {
-			session.buildDOMSubtree(latexElement, options);
+			NodeList nodes = session.buildDOMSubtree(options);
+			List<Node> converted = new ArrayList<>(nodes.getLength());
+			for (int i = 0; i < nodes.getLength(); i++) {
+				converted.add(nodes.item(i));
+			}
+			return Collections.unmodifiableList(converted);
 		} catch (Exception e) {
 			throw new IOException("Error while building DOM for: " + rawInputLaTeX + ": " + e.getMessage(), e);
 		}
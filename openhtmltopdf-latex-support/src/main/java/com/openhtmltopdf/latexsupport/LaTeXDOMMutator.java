@@ -17,6 +17,10 @@ public class LaTeXDOMMutator implements FSDOMMutator {
 	 * The singleton instance to use.
 	 */
 	public final static LaTeXDOMMutator INSTANCE = new LaTeXDOMMutator();
+	/**
+	 * The default style sheet is the same for every document, so is written once.
+	 */
+	private final static String DEFAULT_CSS = CSSUtilities.writeDefaultStylesheet();
 	private final DOMConverter converter = new DOMConverter();
 
 	private LaTeXDOMMutator() {
@@ -34,13 +38,12 @@ public class LaTeXDOMMutator implements FSDOMMutator {
 				 * We must append the style sheet, otherwise we wont get everything rendered
 				 * correctly
 				 */
-				String defaultCSS = CSSUtilities.writeDefaultStylesheet();
 				NodeList list = document.getElementsByTagName("head");
 				if (list.getLength() == 0)
 					list = document.getElementsByTagName("body");
 				if (list.getLength() > 0) {
 					Element style = document.createElement("style");
-					style.setTextContent(defaultCSS);
+					style.setTextContent(DEFAULT_CSS);
 					style.setAttribute("type", "text/css");
 					/*
 					 * We add the style as the first element, so that it can be overwritten
@@ -6,20 +6,28 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.logging.Level;
 
 import com.openhtmltopdf.util.LogMessageId;
 import net.sourceforge.jeuclid.font.DefaultFontFactory;
 import net.sourceforge.jeuclid.font.FontFactory;
 
+import org.w3c.dom.Attr;
 import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
 
 import com.openhtmltopdf.css.constants.CSSName;
 import com.openhtmltopdf.css.constants.IdentValue;
@@ -32,13 +40,35 @@ import com.openhtmltopdf.extend.SVGDrawer;
 import com.openhtmltopdf.layout.SharedContext;
 import com.openhtmltopdf.outputdevice.helper.BaseRendererBuilder.FontStyle;
 import com.openhtmltopdf.outputdevice.helper.ExternalResourceType;
+import com.openhtmltopdf.outputdevice.helper.FontCache;
 import com.openhtmltopdf.render.Box;
+import com.openhtmltopdf.util.OpenUtil;
 import com.openhtmltopdf.util.XRLog;
 
 public class MathMLDrawer implements SVGDrawer {
+	private static final int MAX_CACHED_LAYOUTS = 256;
+
+	/**
+	 * Laid out expressions, shared by all renders, as textbooks and exam papers repeat
+	 * the same expressions many times. Keyed on the content of the fonts registered with
+	 * the drawer, as well as the family names, so renders that name other fonts, or no
+	 * fonts, with the same family do not share layouts.
+	 */
+	private static final Map<LayoutKey, MathMLLayout> LAYOUTS = Collections.synchronizedMap(
+			new LinkedHashMap<LayoutKey, MathMLLayout>(64, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<LayoutKey, MathMLLayout> eldest) {
+					return size() > MAX_CACHED_LAYOUTS;
+				}
+			});
+
 	private final FontFactory _fontFactory;
 	private SharedContext _sharedCtx;
 	private final Set<String> _loadedFontFamilies = new HashSet<>();
+	// The content keys of the fonts registered with the font factory, in order.
+	private List<String> _registeredFonts = Collections.emptyList();
     private final Map<String, List<FontEntry>> _availabelFontFamilies = new HashMap<>();
 
     private static class FontEntry {
@@ -47,6 +77,43 @@ public class MathMLDrawer implements SVGDrawer {
         FSSupplier<InputStream> supplier;
     }
 
+    /**
+     * Everything the layout of an expression depends on.
+     */
+    private static final class LayoutKey {
+        private final String source;
+        private final List<String> fonts;
+        private final List<String> registeredFonts;
+        private final float mathSize;
+
+        private LayoutKey(String source, List<String> fonts, List<String> registeredFonts, float mathSize) {
+            this.source = source;
+            this.fonts = fonts;
+            this.registeredFonts = registeredFonts;
+            this.mathSize = mathSize;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof LayoutKey)) {
+                return false;
+            }
+            LayoutKey other = (LayoutKey) o;
+            return source.equals(other.source) &&
+                   fonts.equals(other.fonts) &&
+                   registeredFonts.equals(other.registeredFonts) &&
+                   Float.compare(mathSize, other.mathSize) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(source, fonts, registeredFonts, mathSize);
+        }
+    }
+
 	public MathMLDrawer() {
 		this._fontFactory = new DefaultFontFactory();
 		FontFactory.setThreadFontFactory(this._fontFactory);
@@ -96,55 +163,125 @@ public class MathMLDrawer implements SVGDrawer {
 		}
 
         for (FontEntry entry : _availabelFontFamilies.get(family)) {
-            if (entry.src != null) {
-                byte[] font1 = _sharedCtx.getUserAgentCallback().getBinaryResource(entry.src, ExternalResourceType.FONT);
-                if (font1 == null) {
-                    XRLog.log(Level.WARNING, LogMessageId.LogMessageId1Param.EXCEPTION_COULD_NOT_LOAD_FONT, entry.src);
-                    continue;
-                }
-
-                try {
-                    _fontFactory.registerFont(Font.TRUETYPE_FONT, new ByteArrayInputStream(font1));
-                } catch (IOException | FontFormatException e) {
-                    XRLog.log(Level.WARNING, LogMessageId.LogMessageId0Param.EXCEPTION_MATHML_COULD_NOT_REGISTER_FONT, e);
-                }
-            } else if (entry.file != null) {
-                try {
-                    _fontFactory.registerFont(Font.TRUETYPE_FONT, entry.file);
-                } catch (IOException | FontFormatException e) {
-                    XRLog.log(Level.WARNING, LogMessageId.LogMessageId0Param.EXCEPTION_MATHML_COULD_NOT_REGISTER_FONT, e);
-                }
-            } else if (entry.supplier != null) {
-                try (InputStream is = entry.supplier.supply()) {
-                    if (is == null) {
-                        // The supplier has already logged why.
-                        continue;
-                    }
-                    _fontFactory.registerFont(Font.TRUETYPE_FONT, is);
-                } catch (IOException | FontFormatException e) {
-                    XRLog.log(Level.WARNING, LogMessageId.LogMessageId0Param.EXCEPTION_MATHML_COULD_NOT_REGISTER_FONT, e);
-                }
+            byte[] font = loadFont(entry);
+            if (font == null) {
+                continue;
+            }
+
+            try {
+                _fontFactory.registerFont(Font.TRUETYPE_FONT, new ByteArrayInputStream(font));
+            } catch (IOException | FontFormatException e) {
+                XRLog.log(Level.WARNING, LogMessageId.LogMessageId0Param.EXCEPTION_MATHML_COULD_NOT_REGISTER_FONT, e);
+                continue;
             }
+
+            List<String> registered = new ArrayList<>(_registeredFonts);
+            registered.add(FontCache.contentCacheKey(font));
+            _registeredFonts = Collections.unmodifiableList(registered);
         }
     }
 
+    private byte[] loadFont(FontEntry entry) {
+        if (entry.src != null) {
+            byte[] font = _sharedCtx.getUserAgentCallback().getBinaryResource(entry.src, ExternalResourceType.FONT);
+            if (font == null) {
+                XRLog.log(Level.WARNING, LogMessageId.LogMessageId1Param.EXCEPTION_COULD_NOT_LOAD_FONT, entry.src);
+            }
+            return font;
+        } else if (entry.file != null) {
+            try {
+                return Files.readAllBytes(entry.file.toPath());
+            } catch (IOException e) {
+                XRLog.log(Level.WARNING, LogMessageId.LogMessageId0Param.EXCEPTION_MATHML_COULD_NOT_REGISTER_FONT, e);
+            }
+        } else if (entry.supplier != null) {
+            try (InputStream is = entry.supplier.supply()) {
+                // A null stream means the supplier has already logged why.
+                return is != null ? OpenUtil.readAll(is) : null;
+            } catch (IOException e) {
+                XRLog.log(Level.WARNING, LogMessageId.LogMessageId0Param.EXCEPTION_MATHML_COULD_NOT_REGISTER_FONT, e);
+            }
+        }
+        return null;
+    }
+
 	@Override
 	public SVGImage buildSVGImage(Element mathMlElement, Box box, CssContext c, double cssWidth,
 			double cssHeight, double dotsPerPixel) {
 		
-		// Make sure the fonts this MathML object uses are loaded.
 		String[] fonts = box.getStyle().asStringArray(CSSName.FONT_FAMILY);
+		List<String> fontList = Arrays.asList(fonts);
+
+		// Make sure the fonts this MathML object uses are loaded, before looking for a
+		// layout with them.
 		for (String family : fonts) {
 			loadFamilyFonts(family);
 		}
-		
-		double cssMaxWidth = CalculatedStyle.getCSSMaxWidth(c, box);
-		double cssMaxHeight = CalculatedStyle.getCSSMaxHeight(c, box);
-		List<String> fontList = Arrays.asList(fonts);
 
-		MathMLImage img = new MathMLImage(mathMlElement, box, cssWidth, cssHeight, cssMaxWidth, cssMaxHeight, dotsPerPixel, fontList);
+		LayoutKey key = new LayoutKey(canonicalSource(mathMlElement), fontList, _registeredFonts, MathMLLayout.MATH_SIZE);
+
+		MathMLLayout layout = LAYOUTS.get(key);
+		if (layout == null) {
+			layout = MathMLLayout.layOut(mathMlElement, fontList);
+			LAYOUTS.put(key, layout);
+		}
+
+		return new MathMLImage(layout, box, dotsPerPixel);
+	}
 
-		return img;
+	/**
+	 * Writes the element as a string that is the same for elements that lay out the same,
+	 * whatever the order of their attributes.
+	 */
+	private static String canonicalSource(Element mathMlElement) {
+		StringBuilder sb = new StringBuilder();
+		appendCanonical(mathMlElement, sb);
+		return sb.toString();
+	}
+
+	private static void appendCanonical(Node node, StringBuilder sb) {
+		switch (node.getNodeType()) {
+		case Node.ELEMENT_NODE: {
+			sb.append('<').append(node.getNamespaceURI()).append('|').append(node.getLocalName() != null ? node.getLocalName() : node.getNodeName());
+
+			Map<String, String> attributes = new TreeMap<>();
+			NamedNodeMap attrs = node.getAttributes();
+			for (int i = 0; i < attrs.getLength(); i++) {
+				Attr attr = (Attr) attrs.item(i);
+				attributes.put(attr.getName(), attr.getValue());
+			}
+			for (Map.Entry<String, String> attr : attributes.entrySet()) {
+				sb.append(' ').append(attr.getKey()).append("=\"");
+				appendEscaped(attr.getValue(), sb);
+				sb.append('"');
+			}
+			sb.append('>');
+
+			for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+				appendCanonical(child, sb);
+			}
+			sb.append("</>");
+			break;
+		}
+		case Node.TEXT_NODE:
+		case Node.CDATA_SECTION_NODE:
+			appendEscaped(node.getNodeValue(), sb);
+			break;
+		default:
+			// Comments and processing instructions are not laid out.
+			break;
+		}
+	}
+
+	private static void appendEscaped(String text, StringBuilder sb) {
+		for (int i = 0; i < text.length(); i++) {
+			char ch = text.charAt(i);
+			if (ch == '<' || ch == '&' || ch == '"') {
+				sb.append('&').append((int) ch).append(';');
+			} else {
+				sb.append(ch);
+			}
+		}
 	}
 
 	@Override
@@ -4,12 +4,9 @@ import java.awt.Graphics2D;
 import java.awt.Rectangle;
 import java.awt.geom.AffineTransform;
 import java.util.List;
+import java.util.Objects;
 
-import net.sourceforge.jeuclid.DOMBuilder;
 import net.sourceforge.jeuclid.context.LayoutContextImpl;
-import net.sourceforge.jeuclid.context.Parameter;
-import net.sourceforge.jeuclid.elements.generic.DocumentElement;
-import net.sourceforge.jeuclid.layout.JEuclidView;
 
 import org.w3c.dom.Element;
 
@@ -21,41 +18,70 @@ import com.openhtmltopdf.render.RenderingContext;
 import com.openhtmltopdf.simple.extend.ReplacedElementScaleHelper;
 
 public class MathMLImage implements SVGImage {
-	private final JEuclidView _view;
-	private final DocumentElement _mathDoc;
+	private final MathMLLayout _layout;
 	private final double _dotsPerPixel;
 	private final Box _box;
-	private final MathLayoutContext _context = new MathLayoutContext();
 	
 	public static class MathLayoutContext extends LayoutContextImpl {
 		private static final long serialVersionUID = 1;
 	}
 
+	/**
+	 * Everything the form drawn for a layout depends on, so that the output device
+	 * can stamp the form drawn for the same expression at the same size again.
+	 */
+	private static final class FormKey {
+		private final MathMLLayout layout;
+		private final int width;
+		private final int height;
+		private final double dotsPerPixel;
+
+		private FormKey(MathMLLayout layout, int width, int height, double dotsPerPixel) {
+			this.layout = layout;
+			this.width = width;
+			this.height = height;
+			this.dotsPerPixel = dotsPerPixel;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof FormKey)) {
+				return false;
+			}
+			FormKey other = (FormKey) o;
+			return layout == other.layout &&
+				   width == other.width &&
+				   height == other.height &&
+				   Double.compare(dotsPerPixel, other.dotsPerPixel) == 0;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(System.identityHashCode(layout), width, height, dotsPerPixel);
+		}
+	}
+
     public MathMLImage(Element mathMlElement, Box box, double cssWidth,
 			double cssHeight, double cssMaxWidth, double cssMaxHeight,
 			double dotsPerPixel, List<String> fonts) {
-        this._box = box;
-		this._dotsPerPixel = dotsPerPixel;
-		this._mathDoc = DOMBuilder.getInstance().createJeuclidDom(mathMlElement);
-		
-		this._context.setParameter(Parameter.FONTS_SERIF, fonts);
-		this._context.setParameter(Parameter.FONTS_DOUBLESTRUCK, fonts);
-		this._context.setParameter(Parameter.FONTS_FRAKTUR, fonts);
-		this._context.setParameter(Parameter.FONTS_MONOSPACED, fonts);
-		this._context.setParameter(Parameter.FONTS_SANSSERIF, fonts);
-		this._context.setParameter(Parameter.FONTS_SCRIPT, fonts);
-		
-		
-		this._context.setParameter(Parameter.MATHSIZE, 16f); // TODO: Proper font size pickup from CSS.
-		this._view = new JEuclidView(this._mathDoc, this._context, null);
+        this(MathMLLayout.layOut(mathMlElement, fonts), box, dotsPerPixel);
 	}
+
+    MathMLImage(MathMLLayout layout, Box box, double dotsPerPixel) {
+        this._layout = layout;
+        this._box = box;
+        this._dotsPerPixel = dotsPerPixel;
+    }
 	
 	private double getViewWidthInOutputDeviceDots() {
-		return (this._view.getWidth() * _dotsPerPixel);
+		return (this._layout.getWidth() * _dotsPerPixel);
 	}
 	
 	private double getViewHeightInOutputDeviceDots() {
-		return ((this._view.getAscentHeight() + this._view.getDescentHeight()) * _dotsPerPixel);
+		return (this._layout.getHeight() * _dotsPerPixel);
 	}
 
 	@Override
@@ -72,20 +98,24 @@ public class MathMLImage implements SVGImage {
     public void drawSVG(OutputDevice outputDevice, RenderingContext ctx, double x, double y) {
         Rectangle contentBounds = _box.getContentAreaEdge(_box.getAbsX(), _box.getAbsY(), ctx);
 
-        final AffineTransform scale2 = ReplacedElementScaleHelper.createScaleTransform(_dotsPerPixel, contentBounds, this._view.getWidth(), this._view.getAscentHeight() + this._view.getDescentHeight());
+        final AffineTransform scale2 = ReplacedElementScaleHelper.createScaleTransform(_dotsPerPixel, contentBounds, this._layout.getWidth(), this._layout.getHeight());
         final AffineTransform inverse2 = ReplacedElementScaleHelper.inverseOrNull(scale2);
         final boolean transformed2 = scale2 != null && inverse2 != null;
 
+        // The same expression at the same size draws the same, so is drawn once per document.
+        FormKey reuseKey = new FormKey(_layout, contentBounds.width, contentBounds.height, _dotsPerPixel);
+
         outputDevice.drawWithGraphics((float) x, (float) y,
                 (float) (contentBounds.width / _dotsPerPixel),
                 (float) (contentBounds.height / _dotsPerPixel),
+                reuseKey,
                 new OutputDeviceGraphicsDrawer() {
             @Override
             public void render(Graphics2D g2d) {
                 if (transformed2) {
                     g2d.transform(scale2);
                 }
-                _view.draw(g2d, 0, _view.getAscentHeight());
+                _layout.draw(g2d);
                 if (transformed2) {
                     g2d.transform(inverse2);
                 }
@@ -0,0 +1,79 @@
+package com.openhtmltopdf.mathmlsupport;
+
+import java.awt.Graphics2D;
+import java.util.List;
+
+import net.sourceforge.jeuclid.DOMBuilder;
+import net.sourceforge.jeuclid.context.Parameter;
+import net.sourceforge.jeuclid.elements.generic.DocumentElement;
+import net.sourceforge.jeuclid.layout.JEuclidView;
+
+import org.w3c.dom.Element;
+
+import com.openhtmltopdf.mathmlsupport.MathMLImage.MathLayoutContext;
+import com.openhtmltopdf.render.RecordingGraphics2D;
+
+/**
+ * A MathML expression laid out by JEuclid: its size in CSS pixels and a recording
+ * of drawing it at that size. It holds nothing of the document it was laid out for,
+ * so it can be shared by renders.
+ */
+final class MathMLLayout {
+    static final float MATH_SIZE = 16f; // TODO: Proper font size pickup from CSS.
+
+    private final float _width;
+    private final float _ascentHeight;
+    private final float _descentHeight;
+    private final RecordingGraphics2D _drawing;
+
+    private MathMLLayout(float width, float ascentHeight, float descentHeight, RecordingGraphics2D drawing) {
+        this._width = width;
+        this._ascentHeight = ascentHeight;
+        this._descentHeight = descentHeight;
+        this._drawing = drawing;
+    }
+
+    /**
+     * Lays out the expression with the given font families, which must have been
+     * registered with the font factory of this thread.
+     */
+    static MathMLLayout layOut(Element mathMlElement, List<String> fonts) {
+        DocumentElement mathDoc = DOMBuilder.getInstance().createJeuclidDom(mathMlElement);
+        MathLayoutContext context = new MathLayoutContext();
+
+        context.setParameter(Parameter.FONTS_SERIF, fonts);
+        context.setParameter(Parameter.FONTS_DOUBLESTRUCK, fonts);
+        context.setParameter(Parameter.FONTS_FRAKTUR, fonts);
+        context.setParameter(Parameter.FONTS_MONOSPACED, fonts);
+        context.setParameter(Parameter.FONTS_SANSSERIF, fonts);
+        context.setParameter(Parameter.FONTS_SCRIPT, fonts);
+
+        context.setParameter(Parameter.MATHSIZE, MATH_SIZE);
+
+        JEuclidView view = new JEuclidView(mathDoc, context, null);
+
+        RecordingGraphics2D drawing = new RecordingGraphics2D();
+        view.draw(drawing, 0, view.getAscentHeight());
+        drawing.dispose();
+
+        return new MathMLLayout(view.getWidth(), view.getAscentHeight(), view.getDescentHeight(), drawing);
+    }
+
+    float getWidth() {
+        return _width;
+    }
+
+    float getHeight() {
+        return _ascentHeight + _descentHeight;
+    }
+
+    /**
+     * Draws the expression with its top left corner at the origin.
+     */
+    void draw(Graphics2D g2d) {
+        // The recorded glyph vectors compute their outlines lazily, so one replay at a time.
+        synchronized (this) {
+            _drawing.replay(g2d);
+        }
+    }
+}
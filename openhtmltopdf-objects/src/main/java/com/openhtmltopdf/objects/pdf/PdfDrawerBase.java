@@ -5,18 +5,13 @@ import com.openhtmltopdf.pdfboxout.PdfBoxOutputDevice;
 import com.openhtmltopdf.render.RenderingContext;
 import com.openhtmltopdf.util.LogMessageId;
 import com.openhtmltopdf.util.XRLog;
-import org.apache.pdfbox.io.RandomAccessReadBuffer;
 import org.apache.pdfbox.multipdf.LayerUtility;
-import org.apache.pdfbox.pdfparser.PDFParser;
-import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
 import org.w3c.dom.Element;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.lang.ref.SoftReference;
 import java.lang.ref.WeakReference;
-import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.HashMap;
 import java.util.Map;
@@ -34,20 +29,19 @@ public abstract class PdfDrawerBase implements FSObjectDrawer
         int pdfpage = getPageNumber(e);
         String pdfsrc = e.getAttribute("pdfsrc");
         String url = ctx.getUac().resolveURI(pdfsrc);
+        String key = url + '#' + pdfpage;
 
-        PDFormXObject pdFormXObject = map.get(url);
+        PDFormXObject pdFormXObject = map.get(key);
         if (pdFormXObject == null)
         {
-            try (InputStream inputStream = new URI(url).toURL().openStream())
+            try
             {
-                PDFParser pdfParser = new PDFParser(new RandomAccessReadBuffer(inputStream));
-                PDDocument pdfDocument = pdfParser.parse();
-                pdFormXObject = layerUtility.importPageAsForm(pdfDocument, pdfpage - 1);
-                pdfDocument.close();
+                // The source is parsed once for all documents, only the import is per document.
+                pdFormXObject = SourcePdfCache.INSTANCE.importPageAsForm(url, pdfpage - 1, layerUtility);
             } catch (URISyntaxException ex) {
                 XRLog.log(Level.WARNING, LogMessageId.LogMessageId1Param.EXCEPTION_MALFORMED_URL, url, ex);
             }
-            map.put(url, pdFormXObject);
+            map.put(key, pdFormXObject);
         }
         return pdFormXObject;
     }
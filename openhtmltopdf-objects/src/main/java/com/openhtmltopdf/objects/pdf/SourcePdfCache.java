@@ -0,0 +1,151 @@
+package com.openhtmltopdf.objects.pdf;
+
+import com.openhtmltopdf.outputdevice.helper.FontCache;
+import com.openhtmltopdf.util.OpenUtil;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.apache.pdfbox.multipdf.LayerUtility;
+import org.apache.pdfbox.pdfparser.PDFParser;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.SoftReference;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URLConnection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Source PDFs, such as letterheads, parsed once and shared by all documents that
+ * import pages of them. Keyed by the URL. A cached source is only used while the
+ * last modified time, length and ETag of the URL are unchanged, which are asked for
+ * without reading the source again. Sources that have none of these are read and
+ * compared by a hash of their content.
+ * <br><br>
+ * Parsed documents are softly referenced, as their size in memory is not known, and
+ * at most {@link #MAX_CACHED_SOURCES} are kept, the least recently used going first.
+ */
+final class SourcePdfCache
+{
+    private static final int MAX_CACHED_SOURCES = 32;
+
+    static final SourcePdfCache INSTANCE = new SourcePdfCache();
+
+    /*
+     * Evicted documents are not closed, as an import may still be using them. They were
+     * parsed from memory, so hold nothing but memory.
+     */
+    private final Map<String, SourcePdf> cache = new LinkedHashMap<String, SourcePdf>(16, 0.75f, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, SourcePdf> eldest)
+        {
+            return size() > MAX_CACHED_SOURCES;
+        }
+    };
+
+    private static final class SourcePdf
+    {
+        private final long lastModified;
+        private final long length;
+        private final String etag;
+        // Only for sources without a last modified time or ETag.
+        private final String contentHash;
+        private final SoftReference<PDDocument> document;
+
+        private SourcePdf(long lastModified, long length, String etag, String contentHash, PDDocument document)
+        {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.etag = etag;
+            this.contentHash = contentHash;
+            this.document = new SoftReference<PDDocument>(document);
+        }
+
+        private boolean isCurrent(URLConnection connection)
+        {
+            return contentHash == null &&
+                   lastModified == connection.getLastModified() &&
+                   length == connection.getContentLengthLong() &&
+                   Objects.equals(etag, connection.getHeaderField("ETag"));
+        }
+    }
+
+    private SourcePdfCache()
+    {
+    }
+
+    /**
+     * Imports a page of the PDF at the URL as a form of the document of the layer utility.
+     * Parsing is done once per source, the import once per document.
+     */
+    PDFormXObject importPageAsForm(String url, int pageIndex, LayerUtility layerUtility)
+            throws IOException, URISyntaxException
+    {
+        PDDocument document = getDocument(url);
+
+        /*
+         * Objects of a parsed document are loaded when first used, which is not thread safe,
+         * so one import at a time per source.
+         */
+        synchronized (document)
+        {
+            return layerUtility.importPageAsForm(document, pageIndex);
+        }
+    }
+
+    private PDDocument getDocument(String url) throws IOException, URISyntaxException
+    {
+        SourcePdf cached = get(url);
+        PDDocument cachedDocument = cached != null ? cached.document.get() : null;
+
+        URLConnection connection = new URI(url).toURL().openConnection();
+        if (cachedDocument != null && connection instanceof HttpURLConnection)
+        {
+            if (cached.etag != null)
+                connection.setRequestProperty("If-None-Match", cached.etag);
+            if (cached.lastModified != 0)
+                connection.setIfModifiedSince(cached.lastModified);
+        }
+
+        try (InputStream inputStream = connection.getInputStream())
+        {
+            if (cachedDocument != null && (isNotModified(connection) || cached.isCurrent(connection)))
+                return cachedDocument;
+
+            long lastModified = connection.getLastModified();
+            long length = connection.getContentLengthLong();
+            String etag = connection.getHeaderField("ETag");
+
+            byte[] content = OpenUtil.readAll(inputStream);
+            String contentHash = lastModified == 0 && etag == null ? FontCache.contentCacheKey(content) : null;
+
+            if (cachedDocument != null && contentHash != null && contentHash.equals(cached.contentHash))
+                return cachedDocument;
+
+            PDDocument document = new PDFParser(new RandomAccessReadBuffer(content)).parse();
+            put(url, new SourcePdf(lastModified, length, etag, contentHash, document));
+            return document;
+        }
+    }
+
+    private static boolean isNotModified(URLConnection connection) throws IOException
+    {
+        return connection instanceof HttpURLConnection &&
+               ((HttpURLConnection) connection).getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED;
+    }
+
+    private synchronized SourcePdf get(String url)
+    {
+        return cache.get(url);
+    }
+
+    private synchronized void put(String url, SourcePdf source)
+    {
+        cache.put(url, source);
+    }
+}
@@ -5,7 +5,6 @@ import com.google.zxing.EncodeHintType;
 import com.google.zxing.MultiFormatWriter;
 import com.google.zxing.WriterException;
 import com.google.zxing.client.j2se.MatrixToImageConfig;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
 import com.google.zxing.common.BitMatrix;
 import com.google.zxing.datamatrix.encoder.SymbolShapeHint;
 import com.google.zxing.pdf417.encoder.Dimensions;
@@ -19,14 +18,72 @@ import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 import java.awt.*;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
 import java.util.Arrays;
 import java.util.EnumMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.logging.Level;
 
 public class ZXingObjectDrawer implements FSObjectDrawer {
 
+    /**
+     * Everything the drawn barcode depends on, so that the output device can stamp
+     * the barcode drawn for an equal key rather than encoding and drawing it again.
+     */
+    private static final class BarcodeKey {
+        private final String value;
+        private final BarcodeFormat format;
+        private final float width;
+        private final float height;
+        private final int finalWidth;
+        private final int finalHeight;
+        // The hints as written, as some parsed hint values do not implement equals.
+        private final Map<EncodeHintType, String> hints;
+        private final int onColor;
+        private final int offColor;
+
+        private BarcodeKey(String value, BarcodeFormat format, float width, float height, int finalWidth, int finalHeight,
+                           Map<EncodeHintType, String> hints, int onColor, int offColor) {
+            this.value = value;
+            this.format = format;
+            this.width = width;
+            this.height = height;
+            this.finalWidth = finalWidth;
+            this.finalHeight = finalHeight;
+            this.hints = hints;
+            this.onColor = onColor;
+            this.offColor = offColor;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof BarcodeKey)) {
+                return false;
+            }
+            BarcodeKey other = (BarcodeKey) o;
+            return value.equals(other.value) &&
+                   format == other.format &&
+                   Float.compare(width, other.width) == 0 &&
+                   Float.compare(height, other.height) == 0 &&
+                   finalWidth == other.finalWidth &&
+                   finalHeight == other.finalHeight &&
+                   hints.equals(other.hints) &&
+                   onColor == other.onColor &&
+                   offColor == other.offColor;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(value, format, width, height, finalWidth, finalHeight, hints, onColor, offColor);
+        }
+    }
+
 
     private static Object handleValueForHint(EncodeHintType type, String value) {
         switch (type) {
@@ -82,6 +139,7 @@ public class ZXingObjectDrawer implements FSObjectDrawer {
         int offColor = e.hasAttribute("off-color") ? parseInt(e.getAttribute("off-color"), MatrixToImageConfig.WHITE) : MatrixToImageConfig.WHITE;
 
         Map<EncodeHintType, Object> encodeHints = new EnumMap<>(EncodeHintType.class);
+        Map<EncodeHintType, String> hintValues = new EnumMap<>(EncodeHintType.class);
         encodeHints.put(EncodeHintType.MARGIN, 0); // default
         NodeList childNodes = e.getChildNodes();
         int childNodesCount = childNodes.getLength();
@@ -97,6 +155,7 @@ public class ZXingObjectDrawer implements FSObjectDrawer {
             Object value = encodeHintType != null ? handleValueForHint(encodeHintType, eChild.getAttribute("value")) : null;
             if (encodeHintType != null && value != null) {
                 encodeHints.put(encodeHintType, value);
+                hintValues.put(encodeHintType, eChild.getAttribute("value"));
             }
         }
 
@@ -105,18 +164,85 @@ public class ZXingObjectDrawer implements FSObjectDrawer {
 
         int finalWidth = (int) (width / dotsPerPixel);
         int finalHeight = (int) (height / dotsPerPixel);
-        try {
-            BitMatrix bitMatrix = mfw.encode(value, barcodeFormat, finalWidth, finalHeight, encodeHints);
+        BarcodeKey key = new BarcodeKey(value, barcodeFormat, (float) width, (float) height,
+                finalWidth, finalHeight, hintValues, onColor, offColor);
 
-            outputDevice.drawWithGraphics((float) x, (float) y, (float) width, (float) height, graphics2D -> {
-                graphics2D.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        // Encoded when drawn, so a barcode already drawn in this document is neither encoded nor drawn again.
+        outputDevice.drawWithGraphics((float) x, (float) y, (float) width, (float) height, key, graphics2D -> {
+            BitMatrix bitMatrix;
+            try {
+                bitMatrix = mfw.encode(value, barcodeFormat, finalWidth, finalHeight, encodeHints);
+            } catch (WriterException we) {
+                XRLog.log(Level.WARNING, LogMessageId.LogMessageId1Param.GENERAL_MESSAGE, "Error while generating the barcode", we);
+                return;
+            }
 
-                //generating a vector from the bitmatrix don't seems to be straightforward, thus a bitmap image...
-                graphics2D.drawImage(MatrixToImageWriter.toBufferedImage(bitMatrix, new MatrixToImageConfig(onColor, offColor)), 0, 0, finalWidth, finalHeight, null);
-            });
-        } catch (WriterException we) {
-            XRLog.log(Level.WARNING, LogMessageId.LogMessageId1Param.GENERAL_MESSAGE, "Error while generating the barcode", we);
-        }
+            drawBitMatrix(graphics2D, bitMatrix, finalWidth, finalHeight, onColor, offColor);
+        });
         return null;
     }
+
+    /**
+     * Draws the modules of the barcode as filled rectangles over the off color, in a box of
+     * the given size. Each run of on modules in a row is one rectangle, taller where the
+     * rows below are the same, as all rows of a one dimensional barcode are.
+     */
+    private static void drawBitMatrix(Graphics2D graphics2D, BitMatrix bitMatrix, int width, int height, int onColor, int offColor) {
+        graphics2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+
+        if ((offColor >>> 24) != 0) {
+            graphics2D.setColor(new Color(offColor, true));
+            graphics2D.fill(new Rectangle2D.Double(0, 0, width, height));
+        }
+
+        if ((onColor >>> 24) == 0) {
+            return;
+        }
+
+        int columns = bitMatrix.getWidth();
+        int rows = bitMatrix.getHeight();
+        double moduleWidth = (double) width / columns;
+        double moduleHeight = (double) height / rows;
+
+        Path2D.Double path = new Path2D.Double();
+        int row = 0;
+
+        while (row < rows) {
+            int nextRow = row + 1;
+            while (nextRow < rows && sameRow(bitMatrix, row, nextRow)) {
+                nextRow++;
+            }
+
+            int column = 0;
+            while (column < columns) {
+                if (!bitMatrix.get(column, row)) {
+                    column++;
+                    continue;
+                }
+
+                int runEnd = column + 1;
+                while (runEnd < columns && bitMatrix.get(runEnd, row)) {
+                    runEnd++;
+                }
+
+                path.append(new Rectangle2D.Double(column * moduleWidth, row * moduleHeight,
+                        (runEnd - column) * moduleWidth, (nextRow - row) * moduleHeight), false);
+                column = runEnd;
+            }
+
+            row = nextRow;
+        }
+
+        graphics2D.setColor(new Color(onColor, true));
+        graphics2D.fill(path);
+    }
+
+    private static boolean sameRow(BitMatrix bitMatrix, int row, int otherRow) {
+        for (int column = 0; column < bitMatrix.getWidth(); column++) {
+            if (bitMatrix.get(column, row) != bitMatrix.get(column, otherRow)) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
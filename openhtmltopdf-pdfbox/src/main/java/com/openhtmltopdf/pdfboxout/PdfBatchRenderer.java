@@ -0,0 +1,131 @@
+package com.openhtmltopdf.pdfboxout;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.w3c.dom.Document;
+
+import com.openhtmltopdf.util.OpenUtil;
+
+/**
+ * Renders many documents, one after another, into a single PDF.
+ * <pre>
+ * try (PdfBatchRenderer batch = new PdfBatchRenderer(
+ *         () -&gt; new PdfRendererBuilder().useFont(fontFile, "Karla"))) {
+ *     for (String statement : statements) {
+ *         batch.addDocument(statement, baseUri);
+ *     }
+ *     batch.save(os);
+ * }
+ * </pre>
+ * Each document is laid out on its own, so page numbers and <code>counter(pages)</code>
+ * restart for each document, and its pages are appended to the one <code>PDDocument</code>.
+ * Unlike rendering the documents separately and merging the results, fonts are loaded
+ * once so that each font is embedded once with a subset covering all documents,
+ * images with the same resolved uri are embedded once and the bookmarks of all
+ * documents end up in the one outline.
+ * <br><br>
+ * Fonts are taken from the builder of the first document, later builders should be
+ * configured the same way. <code>@font-face</code> rules are resolved against the base uri
+ * of the document declaring them and only apply to that document, a font face used by
+ * several documents is still embedded once. The title and other metadata come from the
+ * first document.
+ * PDF/UA output is not supported as the structure tree is per document.
+ * <br><br>
+ * A batch renderer is not thread safe.
+ */
+public class PdfBatchRenderer implements Closeable {
+    private final Supplier<PdfRendererBuilder> _builderSupplier;
+    private final PDDocument _pdfDoc;
+    private final SharedResources _resources = new SharedResources();
+
+    /**
+     * Resources shared by the renderers of the documents in a batch.
+     */
+    static class SharedResources {
+        PdfBoxFontResolver fontResolver;
+        final Map<String, PdfBoxImage> images = new HashMap<>();
+    }
+
+    /**
+     * @param builderSupplier supplies a new builder configured with everything except
+     *                        the document, such as fonts and drawers.
+     */
+    public PdfBatchRenderer(Supplier<PdfRendererBuilder> builderSupplier) {
+        this(builderSupplier, new PDDocument());
+    }
+
+    /**
+     * @param builderSupplier supplies a new builder configured with everything except
+     *                        the document, such as fonts and drawers.
+     * @param doc an empty document to render into, for example one using a
+     *            temporary file for its memory.
+     */
+    public PdfBatchRenderer(Supplier<PdfRendererBuilder> builderSupplier, PDDocument doc) {
+        _builderSupplier = builderSupplier;
+        _pdfDoc = doc;
+    }
+
+    /**
+     * Lays out the html and appends its pages.
+     */
+    public PdfBatchRenderer addDocument(String html, String baseUri) throws IOException {
+        return addDocument(newBuilder().withHtmlContent(html, baseUri));
+    }
+
+    /**
+     * Lays out the document and appends its pages.
+     */
+    public PdfBatchRenderer addDocument(Document doc, String baseUri) throws IOException {
+        return addDocument(newBuilder().withW3cDocument(doc, baseUri));
+    }
+
+    private PdfRendererBuilder newBuilder() {
+        PdfRendererBuilder builder = _builderSupplier.get();
+
+        if (builder.getState()._pdfUaConform) {
+            throw new IllegalStateException("PDF/UA output is not supported when rendering a batch");
+        }
+
+        builder.usePDDocument(_pdfDoc);
+        builder.getState()._batchResources = _resources;
+
+        return builder;
+    }
+
+    private PdfBatchRenderer addDocument(PdfRendererBuilder builder) throws IOException {
+        try (PdfBoxRenderer renderer = builder.buildPdfRenderer()) {
+            renderer.createPDFWithoutClosing();
+        }
+        return this;
+    }
+
+    /**
+     * Returns the document with the pages of all documents added so far.
+     */
+    public PDDocument getPdfDocument() {
+        return _pdfDoc;
+    }
+
+    /**
+     * Saves the document with the pages of all documents added so far.
+     * The caller is required to close the output stream.
+     */
+    public void save(OutputStream os) throws IOException {
+        _pdfDoc.save(os, PdfBoxRenderer.compressParametersForVersion(_pdfDoc.getVersion()));
+    }
+
+    /**
+     * Closes the document and the fonts used by it.
+     */
+    @Override
+    public void close() {
+        OpenUtil.closeQuietly(_pdfDoc);
+        OpenUtil.closeQuietly(_resources.fontResolver);
+    }
+}
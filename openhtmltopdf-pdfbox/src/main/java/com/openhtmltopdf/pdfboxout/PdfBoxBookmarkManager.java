@@ -45,9 +45,9 @@ public class PdfBoxBookmarkManager {
 
     public void writeOutline(RenderingContext c, Box root) {
         if (_bookmarks.size() > 0) {
-            // Create a default destination to the top of the first page.
+            // Create a default destination to the top of the first page of this document.
             PDPageFitHeightDestination dest = new PDPageFitHeightDestination();
-            dest.setPage(_writer.getPage(0));
+            dest.setPage(_writer.getPage(_od.getStartPageNo()));
             _defaultDestination = dest;
 
             PDDocumentOutline outline = _writer.getDocumentCatalog().getDocumentOutline();
@@ -52,9 +52,13 @@ import org.apache.pdfbox.cos.COSName;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.PDPatternContentStream;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.pdmodel.font.PDFont;
 import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
 import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.pdmodel.graphics.pattern.PDTilingPattern;
 import org.apache.pdfbox.pdmodel.graphics.shading.PDShading;
 import org.apache.pdfbox.pdmodel.graphics.state.PDExtendedGraphicsState;
 import org.apache.pdfbox.pdmodel.graphics.state.RenderingMode;
@@ -101,6 +105,11 @@ public class PdfBoxFastOutputDevice extends AbstractOutputDevice implements Outp
         private float fillAlpha = 1f;
         private float strokeAlpha = 1f;
 
+        // The matrices applied on the PDF graphics stream with pushTransformLayer,
+        // from the default page space. Needed for patterns which are always
+        // positioned in the default page space.
+        private AffineTransform pdfMatrix = new AffineTransform();
+
         private PageState copy() {
             PageState ret = new PageState();
 
@@ -108,6 +117,7 @@ public class PdfBoxFastOutputDevice extends AbstractOutputDevice implements Outp
             ret.strokeColor = this.strokeColor;
             ret.fillAlpha = this.fillAlpha;
             ret.strokeAlpha = this.strokeAlpha;
+            ret.pdfMatrix = new AffineTransform(this.pdfMatrix);
 
             return ret;
         }
@@ -144,6 +154,10 @@ public class PdfBoxFastOutputDevice extends AbstractOutputDevice implements Outp
     // The page state stack
     private final Deque<PageState> _pageStateStack = new ArrayDeque<>();
 
+    // Tiling patterns for repeated background images, by image, interpolation and pattern matrix.
+    // A pattern is a document level object, so each is written once however many pages use it.
+    private final Map<List<Object>, PDTilingPattern> _tilingPatterns = new HashMap<>();
+
     // The currently set stroke. This will not yet be set on the PDF graphics stream.
     // This is already transformed to PDF points units.
     // Call setStrokeDiff to set this on the PDF graphics stream.
@@ -218,14 +232,18 @@ public class PdfBoxFastOutputDevice extends AbstractOutputDevice implements Outp
     private final Map<Float, PDExtendedGraphicsState> _strokeAlphaStates = new HashMap<>();
 
     /**
-     * Form objects that may be stamped more than once, by identity of what produced them.
-     * Used for content that is drawn repeatedly, such as a repeating SVG background image.
+     * Form objects that may be stamped more than once, by the reuse key of what produced them.
+     * Used for content that is drawn repeatedly, such as a repeating SVG background image
+     * or the same barcode on many lines.
      */
-    private final Map<Object, PDFormXObject> _reusableForms = new IdentityHashMap<>();
+    private final Map<Object, PDFormXObject> _reusableForms = new HashMap<>();
 
     // Whether we already warned that transparency is not allowed in PDF/A-1.
     private boolean _transparencyNotAllowedWarned;
 
+    // Whether to drop content stream operators that would not change the page.
+    private boolean _optimizeContentStreams = true;
+
     public PdfBoxFastOutputDevice(float dotsPerPoint, boolean testMode, boolean pdfUaConform, boolean pdfAConform) {
         // Without knowing the PDF/A part, conservatively assume PDF/A-1 which
         // does not allow transparency.
@@ -251,13 +269,18 @@ public class PdfBoxFastOutputDevice extends AbstractOutputDevice implements Outp
         return _writer;
     }
 
+    @Override
+    public void setOptimizeContentStreams(boolean optimize) {
+        _optimizeContentStreams = optimize;
+    }
+
     /**
      * Start a page. A new PDF page starts a new content stream so all graphics state has to be 
      * set back to default.
      */
     @Override
     public void initializePage(PDPageContentStream currentPage, PDPage page, float height) {
-        _cp = new PdfContentStreamAdapter(currentPage);
+        _cp = new PdfContentStreamAdapter(currentPage, _optimizeContentStreams);
         _page = page;
         _pageHeight = height;
         
@@ -907,7 +930,28 @@ public class PdfBoxFastOutputDevice extends AbstractOutputDevice implements Outp
         }
 
         PdfBoxImage img = (PdfBoxImage) fsImage;
+        PDImageXObject xobject = getImageXObject(img, interpolate);
+
+        double[] mx = new double[6];
+        imageMatrix(img, x, y).getMatrix(mx);
+
+        _cp.drawImage(xobject, (float) mx[4], (float) mx[5], (float) mx[0],
+                (float) mx[3]);
+    }
+
+    /**
+     * Returns the matrix that maps the unit square to the image drawn at x, y, in PDF user space.
+     */
+    private AffineTransform imageMatrix(PdfBoxImage img, int x, int y) {
+        AffineTransform transformer = (AffineTransform) getTransform().clone();
+        transformer.translate(x, y);
+        transformer.translate(0, img.getHeight());
+        AffineTransform normalized = normalizeMatrix(transformer);
+        normalized.scale(img.getWidth(), -img.getHeight());
+        return normalized;
+    }
 
+    private PDImageXObject getImageXObject(PdfBoxImage img, boolean interpolate) {
         PDImageXObject xobject = img.getXObject();
 		if (interpolate) {
 		    // PDF/A does not support setting the interpolate flag to true.
@@ -933,19 +977,73 @@ public class PdfBoxFastOutputDevice extends AbstractOutputDevice implements Outp
 				throw new RuntimeException(e);
 			}
 		}
-        
+        return xobject;
+    }
 
-        AffineTransform transformer = (AffineTransform) getTransform().clone();
-        transformer.translate(x, y);
-        transformer.translate(0, img.getHeight());
-        AffineTransform normalized = normalizeMatrix(transformer);
-        normalized.scale(img.getWidth(), -img.getHeight());
+    /**
+     * Fills the area with a tiling pattern of the image, so a repeated background is one
+     * fill instead of an image operator per tile. Patterns are positioned in the default
+     * page space, so the pattern matrix includes the matrices of any transform layers.
+     * A pattern is reused wherever the same image repeats with the same size and phase,
+     * such as the same background on every page.
+     */
+    @Override
+    protected boolean drawRepeatedImage(FSImage fsImage, Rectangle area, boolean interpolate) {
+        if (!(fsImage instanceof PdfBoxImage)) {
+            return false;
+        }
+
+        PdfBoxImage img = (PdfBoxImage) fsImage;
+        AffineTransform patternMatrix = new AffineTransform(currentState().pdfMatrix);
+        patternMatrix.concatenate(imageMatrix(img, area.x, area.y));
 
         double[] mx = new double[6];
-        normalized.getMatrix(mx);
+        patternMatrix.getMatrix(mx);
 
-        _cp.drawImage(xobject, (float) mx[4], (float) mx[5], (float) mx[0],
-                (float) mx[3]);
+        List<Object> key = Arrays.asList(img.getXObject().getCOSObject(), interpolate,
+                mx[0], mx[1], mx[2], mx[3], mx[4], mx[5]);
+
+        PDTilingPattern pattern = _tilingPatterns.get(key);
+        if (pattern == null) {
+            pattern = createImagePattern(getImageXObject(img, interpolate), patternMatrix);
+            _tilingPatterns.put(key, pattern);
+        }
+
+        COSName patternName = _page.getResources().add(pattern);
+
+        // Not through fill, which would set the fill color back from the pattern.
+        Rectangle2D bounds = _transform.createTransformedShape(area).getBounds2D();
+
+        _cp.saveGraphics();
+        _cp.setFillPattern(patternName);
+        _cp.addRect((float) bounds.getX(), normalizeY((float) bounds.getMaxY()),
+                (float) bounds.getWidth(), (float) bounds.getHeight());
+        _cp.fillNonZero();
+        _cp.restoreGraphics();
+
+        return true;
+    }
+
+    /**
+     * Creates a pattern with the image in the unit square cell, repeated every unit.
+     */
+    private PDTilingPattern createImagePattern(PDImageXObject xobject, AffineTransform matrix) {
+        PDTilingPattern pattern = new PDTilingPattern();
+        pattern.setPaintType(PDTilingPattern.PAINT_COLORED);
+        pattern.setTilingType(PDTilingPattern.TILING_CONSTANT_SPACING);
+        pattern.setBBox(new PDRectangle(0, 0, 1, 1));
+        pattern.setXStep(1);
+        pattern.setYStep(1);
+        pattern.setMatrix(matrix);
+        pattern.setResources(new PDResources());
+
+        try (PDPatternContentStream cs = new PDPatternContentStream(pattern)) {
+            cs.drawImage(xobject, 0, 0, 1, 1);
+        } catch (IOException e) {
+            throw new PdfContentStreamAdapter.PdfException("createImagePattern", e);
+        }
+
+        return pattern;
     }
     
     @Override
@@ -1364,6 +1462,7 @@ public class PdfBoxFastOutputDevice extends AbstractOutputDevice implements Outp
         pushState(currentState().copy());
         AffineTransform normalized = normalizeTransform(transform);
         _cp.applyPdfMatrix(normalized);
+        currentState().pdfMatrix.concatenate(normalized);
     }
 
     @Override
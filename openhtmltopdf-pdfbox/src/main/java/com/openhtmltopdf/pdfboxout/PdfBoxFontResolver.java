@@ -64,6 +64,7 @@ public class PdfBoxFontResolver implements FontResolver, Closeable {
         FINAL_FALLBACK;
     }
 
+    private final SharedContext _sharedContext;
     private final PDDocument _doc;
     private final MainFontStore _suppliedFonts;
     private final FallbackFontStore _preBuiltinFallbackFonts;
@@ -71,6 +72,7 @@ public class PdfBoxFontResolver implements FontResolver, Closeable {
     private final FallbackFontStore _finalFallbackFonts;
 
     public PdfBoxFontResolver(SharedContext sharedContext, PDDocument doc, FSCacheEx<String, FSCacheValue> pdfMetricsCache, PdfAConformance pdfAConformance, boolean pdfUaConform) {
+        this._sharedContext = sharedContext;
         this._doc = doc;
 
         this._suppliedFonts = new MainFontStore(sharedContext, doc, pdfMetricsCache);
@@ -103,6 +105,17 @@ public class PdfBoxFontResolver implements FontResolver, Closeable {
     }
 
     public void importFontFaces(List<FontFaceRule> fontFaces) {
+        importFontFaces(fontFaces, _sharedContext);
+    }
+
+    /**
+     * Imports the font face rules of the document of the given context, resolving
+     * their src against that document rather than the one this resolver was created for.
+     * The font faces of a document imported before are no longer matched.
+     */
+    public void importFontFaces(List<FontFaceRule> fontFaces, SharedContext ctx) {
+        this._suppliedFonts.clearFontFaceFonts();
+
         for (FontFaceRule rule : fontFaces) {
             CalculatedStyle style = rule.getCalculatedStyle();
 
@@ -132,7 +145,7 @@ public class PdfBoxFontResolver implements FontResolver, Closeable {
                 fontStyle = style.getIdent(CSSName.FONT_STYLE);
             }
 
-            this._suppliedFonts.addFontFaceFont(fontFamily, fontWeight, fontStyle, src.asString(), !noSubset);
+            this._suppliedFonts.addFontFaceFont(ctx, fontFamily, fontWeight, fontStyle, src.asString(), !noSubset);
         }
     }
 
@@ -45,6 +45,12 @@ public interface PdfBoxOutputDevice extends OutputDevice, Closeable {
     void initializePage(PDPageContentStream currentPage, PDPage page,
             float height);
 
+    /**
+     * Whether the content streams of pages started after this call drop
+     * operators that would not change the page, see {@link PdfContentStreamAdapter}.
+     */
+    void setOptimizeContentStreams(boolean optimize);
+
     void finishPage();
 
     @Override
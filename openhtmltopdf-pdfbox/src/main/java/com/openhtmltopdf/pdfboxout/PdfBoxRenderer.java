@@ -43,6 +43,7 @@ import com.openhtmltopdf.pdfboxout.PdfRendererBuilder.PdfAConformance;
 import com.openhtmltopdf.render.BlockBox;
 import com.openhtmltopdf.render.Box;
 import com.openhtmltopdf.render.PageBox;
+import com.openhtmltopdf.render.PaintedBoxReleaser;
 import com.openhtmltopdf.render.RenderingContext;
 import com.openhtmltopdf.render.ViewportBox;
 import com.openhtmltopdf.render.displaylist.DisplayListCollector;
@@ -124,6 +125,15 @@ public class PdfBoxRenderer implements Closeable, PageSupplier {
 
     private boolean _testMode;
 
+    private boolean _releasePaintedPages;
+
+    // Only set when rendering one of the documents of a PdfBatchRenderer.
+    private final PdfBatchRenderer.SharedResources _batchResources;
+
+    // Set when rendering a later document of a batch, with the font resolver
+    // of the first document.
+    private final boolean _continuesBatch;
+
     private PDFCreationListener _listener;
     
     private OutputStream _os;
@@ -154,6 +164,7 @@ public class PdfBoxRenderer implements Closeable, PageSupplier {
 
         PdfBoxFontResolver fontResolver = null;
         _pdfDoc = state.pddocument != null ? state.pddocument : new PDDocument();
+        _batchResources = state._batchResources;
 
         try {
             _diagnosticConsumer = diagnosticConsumer;
@@ -177,15 +188,21 @@ public class PdfBoxRenderer implements Closeable, PageSupplier {
 
             _dotsPerPoint = DEFAULT_DOTS_PER_POINT;
             _testMode = state._testMode;
+            _releasePaintedPages = state._releasePaintedPages && !state._pdfUaConform;
             _outputDevice =
                     new PdfBoxFastOutputDevice(DEFAULT_DOTS_PER_POINT, _testMode,
                             state._pdfUaConform || state._pdfAConformance.getConformanceValue().equals("A"),
                             state._pdfAConformance);
             _outputDevice.setWriter(_pdfDoc);
             _outputDevice.setStartPageNo(_pdfDoc.getNumberOfPages());
+            _outputDevice.setOptimizeContentStreams(state._optimizeContentStreams);
 
             PdfBoxUserAgent userAgent = new PdfBoxUserAgent(_outputDevice);
 
+            if (_batchResources != null) {
+                userAgent.setSharedImages(_batchResources.images);
+            }
+
             if (_svgImpl != null) {
                 _svgImpl.withUserAgent(userAgent);
                 // So that SVGs used as CSS images, such as a background-image, can be drawn too.
@@ -209,11 +226,27 @@ public class PdfBoxRenderer implements Closeable, PageSupplier {
 
             _sharedContext.setUserAgentCallback(userAgent);
             _sharedContext.setCss(new StyleReference(userAgent));
+            if (state._stylesheetCache != null) {
+                _sharedContext.getCss().setStylesheetCache(state._stylesheetCache);
+            }
+            if (state._styleDeclarationCache != null) {
+                _sharedContext.getCss().setStyleDeclarationCache(state._styleDeclarationCache);
+            }
             userAgent.setSharedContext(_sharedContext);
             _outputDevice.setSharedContext(_sharedContext);
 
-            fontResolver = new PdfBoxFontResolver(_sharedContext, _pdfDoc, state._caches.get(CacheStore.PDF_FONT_METRICS), state._pdfAConformance, state._pdfUaConform);
-            _sharedContext.setFontResolver(fontResolver);
+            _continuesBatch = _batchResources != null && _batchResources.fontResolver != null;
+
+            if (_continuesBatch) {
+                _sharedContext.setFontResolver(_batchResources.fontResolver);
+            } else {
+                fontResolver = new PdfBoxFontResolver(_sharedContext, _pdfDoc, state._caches.get(CacheStore.PDF_FONT_METRICS), state._pdfAConformance, state._pdfUaConform);
+                _sharedContext.setFontResolver(fontResolver);
+
+                if (_batchResources != null) {
+                    _batchResources.fontResolver = fontResolver;
+                }
+            }
 
             PdfBoxReplacedElementFactory replacedElementFactory = new PdfBoxReplacedElementFactory(_outputDevice, state._svgImpl, state._objectDrawerFactory, state._mathmlImpl);
             _sharedContext.setReplacedElementFactory(replacedElementFactory);
@@ -294,7 +327,9 @@ public class PdfBoxRenderer implements Closeable, PageSupplier {
                 OpenUtil.closeQuietly(_pdfDoc);
             }
 
-            OpenUtil.closeQuietly(fontResolver);
+            if (_batchResources == null) {
+                OpenUtil.closeQuietly(fontResolver);
+            }
 
             throw e;
         }
@@ -318,6 +353,14 @@ public class PdfBoxRenderer implements Closeable, PageSupplier {
         return (PdfBoxFontResolver) _sharedContext.getFontResolver();
     }
 
+    /**
+     * Whether this renderer is for a later document of a batch and so
+     * shares the font resolver, with its fonts already added, of the first.
+     */
+    boolean isContinuingBatch() {
+        return _continuesBatch;
+    }
+
     private Document loadDocument(String uri) {
         return _sharedContext.getUserAgentCallback().getXMLResource(uri, ExternalResourceType.XML_XHTML).getDocument();
     }
@@ -353,7 +396,7 @@ public class PdfBoxRenderer implements Closeable, PageSupplier {
         _sharedContext.setBaseURL(url);
         _sharedContext.setNamespaceHandler(nsh);
         _sharedContext.getCss().setDocumentContext(_sharedContext, _sharedContext.getNamespaceHandler(), doc, new NullUserInterface());
-        getFontResolver().importFontFaces(_sharedContext.getCss().getFontFaceRules());
+        getFontResolver().importFontFaces(_sharedContext.getCss().getFontFaceRules(), _sharedContext);
         
         if (_svgImpl != null) {
             _svgImpl.importFontFaceRules(_sharedContext.getCss().getFontFaceRules(), _sharedContext);
@@ -373,7 +416,7 @@ public class PdfBoxRenderer implements Closeable, PageSupplier {
      * and silently raise the document's PDF version. Output tied to an earlier version
      * - PDF/A-1 is PDF 1.4 - must forgo compression to stay conformant.
      */
-    private static CompressParameters compressParametersForVersion(float pdfVersion) {
+    static CompressParameters compressParametersForVersion(float pdfVersion) {
         return pdfVersion < COSWriterCompressionPool.MINIMUM_SUPPORTED_VERSION
                 ? CompressParameters.NO_COMPRESSION
                 : CompressParameters.DEFAULT_COMPRESSION;
@@ -591,21 +634,26 @@ public class PdfBoxRenderer implements Closeable, PageSupplier {
             try (PDPageContentStream cs = initPage(doc, nextW, nextH, i, -1)) {
                 if (i == 0) {
                     firePreWrite(pageCount); // opportunity to adjust meta data
-                    setDidValues(doc);       // set PDF header fields from meta data
 
-                    if (_pdfUaConformance || _pdfAConformance != PdfAConformance.NONE) {
-                        addPdfASchema(doc, _pdfAConformance, _pdfUaConformance);
-                    }
+                    // The later documents of a batch are appended to a document
+                    // which already has its header fields set.
+                    if (!_continuesBatch) {
+                        setDidValues(doc);   // set PDF header fields from meta data
 
-                    if (_colorProfile != null) {
-                        addColorProfileOutputIntent(doc);
+                        if (_pdfUaConformance || _pdfAConformance != PdfAConformance.NONE) {
+                            addPdfASchema(doc, _pdfAConformance, _pdfUaConformance);
+                        }
+
+                        if (_colorProfile != null) {
+                            addColorProfileOutputIntent(doc);
+                        }
                     }
 
                     DisplayListCollector dlCollector = new DisplayListCollector(_root.getLayer().getPages());
                     dlPages = dlCollector.collectRoot(c, _root.getLayer());
                 }
 
-                page.setBasePagePdfPageIndex(pdfPageIndex);
+                page.setBasePagePdfPageIndex(_outputDevice.getStartPageNo() + pdfPageIndex);
 
                 pageOperations = dlPages.getPageInstructions(i);
 
@@ -625,11 +673,28 @@ public class PdfBoxRenderer implements Closeable, PageSupplier {
 
                 pdfPageIndex += pageOperations.shadowPages().size();
             }
+
+            if (_releasePaintedPages) {
+                releasePaintedPage(c, pages, i, pageOperations);
+            }
         }
 
         _outputDevice.finish(c, _root);
     }
 
+    /**
+     * Drops the display list of a page once it has been painted, along with the
+     * boxes that end above the next page so that they can be garbage collected.
+     */
+    private void releasePaintedPage(
+            RenderingContext c, List<PageBox> pages, int pageIndex, DisplayListPageContainer pageOperations) {
+        pageOperations.clear();
+
+        if (pageIndex + 1 < pages.size()) {
+            PaintedBoxReleaser.releaseAbove(c, _root, pages.get(pageIndex + 1).getTop());
+        }
+    }
+
     /**
      * Shadow pages are an opt-in feature that allows cut off content beyond
      * the right edge (or left edge for RTL mode) of the main page to be
@@ -972,9 +1037,9 @@ public class PdfBoxRenderer implements Closeable, PageSupplier {
         OpenUtil.closeQuietly(_diagnosticConsumer);
         OpenUtil.tryQuietly(ThreadCtx::cleanup);
 
-        // Close all still open font files
+        // Close all still open font files, unless they are still needed by later documents of a batch
         FontResolver fontResolver = getSharedContext().getFontResolver();
-        if (fontResolver instanceof Closeable) {
+        if (fontResolver instanceof Closeable && _batchResources == null) {
             OpenUtil.closeQuietly((Closeable) fontResolver);
         }
 
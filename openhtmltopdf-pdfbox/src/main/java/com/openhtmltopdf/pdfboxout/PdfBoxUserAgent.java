@@ -24,6 +24,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Locale;
+import java.util.Map;
 import java.util.logging.Level;
 
 import com.openhtmltopdf.extend.FSImage;
@@ -42,11 +43,22 @@ public class PdfBoxUserAgent extends NaiveUserAgent {
 
     private final PdfBoxOutputDevice _outputDevice;
 
+    // Images already embedded in the document by earlier documents of a batch.
+    private Map<String, PdfBoxImage> _sharedImages;
+
     public PdfBoxUserAgent(PdfBoxOutputDevice outputDevice) {
 		super();
 		_outputDevice = outputDevice;
     }
 
+    /**
+     * Uses the images in the map, keyed by resolved uri, instead of loading them
+     * again and adds images loaded by this user agent to it.
+     */
+    void setSharedImages(Map<String, PdfBoxImage> sharedImages) {
+        _sharedImages = sharedImages;
+    }
+
     private byte[] readStream(InputStream is) throws IOException {
         ByteArrayOutputStream out = new ByteArrayOutputStream(is.available());
         byte[] buf = new byte[10240];
@@ -77,6 +89,11 @@ public class PdfBoxUserAgent extends NaiveUserAgent {
 
         ImageResource resource = _imageCache.get(uriResolved);
 
+        if (resource == null && _sharedImages != null && _sharedImages.containsKey(uriResolved)) {
+            resource = new ImageResource(uriResolved, _sharedImages.get(uriResolved));
+            _imageCache.put(uriResolved, resource);
+        }
+
         if (resource != null && resource.getImage() instanceof PdfBoxImage) {
             // Make copy of PdfBoxImage so we don't stuff up the cache.
             PdfBoxImage original = (PdfBoxImage) resource.getImage();
@@ -133,6 +150,10 @@ public class PdfBoxUserAgent extends NaiveUserAgent {
                     scaleToOutputResolution(fsImage);
                     _outputDevice.realizeImage(fsImage);
                     resource = new ImageResource(uriResolved, fsImage);
+
+                    if (_sharedImages != null) {
+                        _sharedImages.put(uriResolved, fsImage);
+                    }
                 }
                 _imageCache.put(uriResolved, resource);
             } catch (Exception e) {
@@ -8,20 +8,123 @@ import org.apache.pdfbox.cos.COSName;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
 import org.apache.pdfbox.pdmodel.documentinterchange.markedcontent.PDPropertyList;
 import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.graphics.color.PDColor;
+import org.apache.pdfbox.pdmodel.graphics.color.PDPattern;
 import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
 import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
 import org.apache.pdfbox.pdmodel.graphics.shading.PDShading;
 import org.apache.pdfbox.pdmodel.graphics.state.PDExtendedGraphicsState;
 import org.apache.pdfbox.pdmodel.graphics.state.RenderingMode;
-import org.apache.pdfbox.util.Matrix;
+import org.apache.pdfbox.util.NumberFormatUtil;
 
 import java.awt.geom.AffineTransform;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.text.NumberFormat;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Locale;
 import java.util.logging.Level;
 
+/**
+ * Writes the operators of the output device to a page content stream, only
+ * throwing runtime exceptions.
+ * <br><br>
+ * Path, color, transform and text position operators are written to a reusable
+ * buffer, formatted as the content stream would, without allocating. The buffer
+ * is handed to the content stream in one go before anything the content stream
+ * has to write itself, such as text, images and operators naming a resource.
+ * <br><br>
+ * When optimizing, which is the default, operators that would not change
+ * the page are dropped:
+ * <ul>
+ * <li>consecutive text draws share one text object (BT/ET pair);</li>
+ * <li>a save and restore (q/Q) with nothing painted between them is dropped,
+ * along with the clips, transforms and state changes inside it;</li>
+ * <li>graphics state operators that set the value already in effect are dropped,
+ * the graphics state being tracked across saves and restores;</li>
+ * <li>the line width and text rendering mode are only written before something
+ * is painted, so that a value that is set and then reset in between is not written.</li>
+ * </ul>
+ */
 public class PdfContentStreamAdapter {
+    // The fraction digits PDPageContentStream writes operands with.
+    private static final int OPERAND_FRACTION_DIGITS = 5;
+
     private final PDPageContentStream cs;
+    private final boolean optimize;
+
+    // Operators not yet handed to the content stream.
+    private byte[] buffer = new byte[4096];
+    private int size;
+    private final byte[] numberBuffer = new byte[32];
+    // For operands too large to be formatted fast, created when first needed.
+    private NumberFormat numberFormat;
+
+    // Consecutive text draws share one text object (BT/ET pair). It is left open after
+    // a text draw and closed by the next operator that may not appear inside it.
+    private boolean textOpen;
+
+    // The text line matrix in the open text object as a reader has it, null if unknown.
+    private float[] lineMatrix;
+
+    // The graphics state as written to the content stream, with a copy for each save.
+    private GraphicsState state = new GraphicsState();
+    private final Deque<GraphicsState> stateStack = new ArrayDeque<>();
 
+    // The size of the buffer at each save that is held back, outermost first. Operators
+    // after a save are held back in the buffer until something is painted, so that a save
+    // and restore with nothing painted between them can be dropped with everything inside it.
+    private int[] heldBackSaves = new int[8];
+    private int heldBackSaveCount;
+
+    /**
+     * The part of the graphics state that is tracked to drop redundant operators.
+     * Null or NaN means not known, for example when the page already had content.
+     */
+    private static class GraphicsState {
+        private PDFont font;
+        private float fontSize;
+
+        // The operands of the last rg or k operator, told apart by their number.
+        private float[] fillColor;
+        private float[] strokeColor;
+
+        private PDExtendedGraphicsState extGState;
+        private int lineCap = -1;
+        private int lineJoin = -1;
+        private float miterLimit = Float.NaN;
+        private float[] dash;
+        private float dashPhase;
+
+        // Written before the next paint, if different from the value in effect.
+        private float lineWidth = Float.NaN;
+        private float wantedLineWidth = Float.NaN;
+        private RenderingMode renderingMode;
+        private RenderingMode wantedRenderingMode;
+
+        private GraphicsState copy() {
+            GraphicsState ret = new GraphicsState();
+
+            ret.font = this.font;
+            ret.fontSize = this.fontSize;
+            ret.fillColor = this.fillColor;
+            ret.strokeColor = this.strokeColor;
+            ret.extGState = this.extGState;
+            ret.lineCap = this.lineCap;
+            ret.lineJoin = this.lineJoin;
+            ret.miterLimit = this.miterLimit;
+            ret.dash = this.dash;
+            ret.dashPhase = this.dashPhase;
+            ret.lineWidth = this.lineWidth;
+            ret.wantedLineWidth = this.wantedLineWidth;
+            ret.renderingMode = this.renderingMode;
+            ret.wantedRenderingMode = this.wantedRenderingMode;
+
+            return ret;
+        }
+    }
 
     public static class PdfException extends RuntimeException {
         private static final long serialVersionUID = 1L;
@@ -37,65 +140,184 @@ public class PdfContentStreamAdapter {
     }
 
     public PdfContentStreamAdapter(PDPageContentStream cs) {
+        this(cs, true);
+    }
+
+    /**
+     * @param optimize whether to drop operators that would not change the page, false
+     *                 to write every operator, for example to compare output byte for byte.
+     */
+    public PdfContentStreamAdapter(PDPageContentStream cs, boolean optimize) {
         this.cs = cs;
+        this.optimize = optimize;
     }
 
-    public void fillRect(float x, float y, float w, float h) {
-        try {
-            cs.addRect(x, y, w, h);
-            cs.fill();
-        } catch (IOException e) {
-            logAndThrow("fillRect", e);
+    private void ensureCapacity(int length) {
+        if (size + length > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + length));
         }
     }
 
-    public void addRect(float x, float y, float w, float h) {
-        try {
-            cs.addRect(x, y, w, h);
-        } catch (IOException e) {
-            logAndThrow("addRect", e);
+    private void writeByte(int b) {
+        ensureCapacity(1);
+        buffer[size++] = (byte) b;
+    }
+
+    private void writeAscii(String s) {
+        int length = s.length();
+        ensureCapacity(length);
+        for (int i = 0; i < length; i++) {
+            buffer[size++] = (byte) s.charAt(i);
+        }
+    }
+
+    private void writeOperator(String operator) {
+        writeAscii(operator);
+        writeByte('\n');
+    }
+
+    private void writeOperand(float value) {
+        if (!Float.isFinite(value)) {
+            throw new IllegalArgumentException(value + " is not a finite number");
+        }
+
+        int length = NumberFormatUtil.formatFloatFast(value, OPERAND_FRACTION_DIGITS, numberBuffer);
+
+        if (length < 0) {
+            if (numberFormat == null) {
+                numberFormat = NumberFormat.getNumberInstance(Locale.US);
+                numberFormat.setMaximumFractionDigits(OPERAND_FRACTION_DIGITS);
+                numberFormat.setGroupingUsed(false);
+            }
+            writeAscii(numberFormat.format(value));
+        } else {
+            ensureCapacity(length);
+            System.arraycopy(numberBuffer, 0, buffer, size, length);
+            size += length;
+        }
+
+        writeByte(' ');
+    }
+
+    private void writeOperand(int value) {
+        if (value >= 0 && value <= 9) {
+            writeByte('0' + value);
+        } else {
+            writeAscii(Integer.toString(value));
+        }
+        writeByte(' ');
+    }
+
+    private void writeMatrix(float a, float b, float c, float d, float e, float f) {
+        writeOperand(a);
+        writeOperand(b);
+        writeOperand(c);
+        writeOperand(d);
+        writeOperand(e);
+        writeOperand(f);
+    }
+
+    /**
+     * Hands the buffer to the content stream, before writing to the content stream directly.
+     */
+    @SuppressWarnings("deprecation")
+    private void flush() throws IOException {
+        if (size > 0) {
+            // Deprecated, but PDPageContentStream is final and has no other way to append bytes.
+            cs.appendRawCommands(Arrays.copyOf(buffer, size));
+            size = 0;
+        }
+    }
+
+    /**
+     * Writes the held back operators and the line width and rendering mode wanted,
+     * before an operator that paints.
+     */
+    private void beforePaint() {
+        heldBackSaveCount = 0;
+
+        if (!Float.isNaN(state.wantedLineWidth) && state.wantedLineWidth != state.lineWidth) {
+            writeOperand(state.wantedLineWidth);
+            writeOperator("w");
+            state.lineWidth = state.wantedLineWidth;
+        }
+        if (state.wantedRenderingMode != null && state.wantedRenderingMode != state.renderingMode) {
+            writeOperand(state.wantedRenderingMode.intValue());
+            writeOperator("Tr");
+            state.renderingMode = state.wantedRenderingMode;
         }
     }
 
+    public void fillRect(float x, float y, float w, float h) {
+        closeText();
+        beforePaint();
+        addRect(x, y, w, h);
+        writeOperator("f");
+    }
+
+    public void addRect(float x, float y, float w, float h) {
+        closeText();
+        writeOperand(x);
+        writeOperand(y);
+        writeOperand(w);
+        writeOperand(h);
+        writeOperator("re");
+    }
+
     public void newPath() {
         // I think PDF-BOX does this automatically.
     }
 
     public void setExtGState(PDExtendedGraphicsState gs) {
+        if (optimize && gs == state.extGState) {
+            return;
+        }
         try {
+            // The content stream adds the state to the resources, so it is not held back.
+            heldBackSaveCount = 0;
+            flush();
             cs.setGraphicsStateParameters(gs);
+            state.extGState = gs;
         } catch (IOException e) {
             logAndThrow("setExtGState", e);
         }
     }
 
     public void closeSubpath() {
-        try {
-            cs.closePath();
-        } catch (IOException e) {
-            logAndThrow("closeSubpath", e);
-        }
+        closeText();
+        writeOperator("h");
     }
 
     public void curveTo(float x1, float y1, float x2, float y2, float x3,
             float y3) {
-        try {
-            cs.curveTo(x1, y1, x2, y2, x3, y3);
-        } catch (IOException e) {
-            logAndThrow("curveTo(6)", e);
-        }
+        closeText();
+        writeOperand(x1);
+        writeOperand(y1);
+        writeOperand(x2);
+        writeOperand(y2);
+        writeOperand(x3);
+        writeOperand(y3);
+        writeOperator("c");
     }
 
     public void curveTo(float x1, float y1, float x3, float y3) {
-        try {
-            cs.curveTo1(x1, y1, x3, y3);
-        } catch (IOException e) {
-            logAndThrow("curveTo(4)", e);
-        }
+        closeText();
+        writeOperand(x1);
+        writeOperand(y1);
+        writeOperand(x3);
+        writeOperand(y3);
+        writeOperator("y");
     }
 
     public void closeContent() {
         try {
+            closeText();
+            // Anything still held back or wanted would not change the page, as nothing follows.
+            if (heldBackSaveCount > 0) {
+                size = heldBackSaves[0];
+                heldBackSaveCount = 0;
+            }
+            flush();
             cs.close();
         } catch (IOException e) {
             logAndThrow("closeContent", e);
@@ -103,165 +325,250 @@ public class PdfContentStreamAdapter {
     }
 
     public void lineTo(float x1, float y1) {
-        try {
-            cs.lineTo(x1, y1);
-        } catch (IOException e) {
-            logAndThrow("lineTo", e);
-        }
+        closeText();
+        writeOperand(x1);
+        writeOperand(y1);
+        writeOperator("l");
     }
 
     public void moveTo(float x1, float y1) {
-        try {
-            cs.moveTo(x1, y1);
-        } catch (IOException e) {
-            logAndThrow("moveTo", e);
-        }
+        closeText();
+        writeOperand(x1);
+        writeOperand(y1);
+        writeOperator("m");
     }
 
     public void fillEvenOdd() {
-        try {
-            cs.fillEvenOdd();
-        } catch (IOException e) {
-            logAndThrow("fillEvenOdd", e);
-        }
+        closeText();
+        beforePaint();
+        writeOperator("f*");
     }
 
     public void fillNonZero() {
-        try {
-            cs.fill();
-        } catch (IOException e) {
-            logAndThrow("fillNonZero", e);
-        }
+        closeText();
+        beforePaint();
+        writeOperator("f");
     }
 
     public void stroke() {
-        try {
-            cs.stroke();
-        } catch (IOException e) {
-            logAndThrow("stroke", e);
-        }
+        closeText();
+        beforePaint();
+        writeOperator("S");
     }
 
     public void clipNonZero() {
-        try {
-            cs.clip();
-        } catch (IOException e) {
-            logAndThrow("clipNonZero", e);
-        }
+        closeText();
+        writeOperator("W");
+        writeOperator("n");
     }
 
     public void clipEvenOdd() {
+        closeText();
+        writeOperator("W*");
+        writeOperator("n");
+    }
+
+    /**
+     * Sets the fill color to the pattern, which must be in the resources of the page.
+     */
+    public void setFillPattern(COSName patternName) {
         try {
-            cs.clipEvenOdd();
+            // The content stream adds the color space to the resources, so it is not held back.
+            heldBackSaveCount = 0;
+            flush();
+            cs.setNonStrokingColor(new PDColor(patternName, new PDPattern(null)));
+            state.fillColor = null;
         } catch (IOException e) {
-            logAndThrow("clipEvenOdd", e);
+            logAndThrow("setFillPattern", e);
+        }
+    }
+
+    /**
+     * Returns whether the color is the one in effect, otherwise makes it so.
+     */
+    private boolean sameColor(float[] color, boolean fill) {
+        if (optimize && Arrays.equals(color, fill ? state.fillColor : state.strokeColor)) {
+            return true;
+        }
+        if (fill) {
+            state.fillColor = color;
+        } else {
+            state.strokeColor = color;
+        }
+        return false;
+    }
+
+    private void writeColor(float[] color, String operator) {
+        for (float component : color) {
+            writeOperand(component);
         }
+        writeOperator(operator);
     }
 
     public void setStrokingColor(int r, int g, int b) {
-        try {
-            cs.setStrokingColor(r / 255f, g / 255f, b / 255f);
-        } catch (IOException e) {
-            logAndThrow("setStrokingColor", e);
+        float[] rgb = { r / 255f, g / 255f, b / 255f };
+        if (!sameColor(rgb, false)) {
+            writeColor(rgb, "RG");
         }
     }
 
     public void setStrokingColor(float c, float m, float y, float k) {
-        try {
-            cs.setStrokingColor(c, m, y, k);
-        } catch (IOException e) {
-            logAndThrow("setStrokingColor(CMYK)", e);
+        float[] cmyk = { c, m, y, k };
+        if (!sameColor(cmyk, false)) {
+            writeColor(cmyk, "K");
         }
     }
 
     public void setFillColor(int r, int g, int b) {
-        try {
-            cs.setNonStrokingColor(r / 255f, g / 255f, b / 255f);
-        } catch (IOException e) {
-            logAndThrow("setFillColor", e);
+        float[] rgb = { r / 255f, g / 255f, b / 255f };
+        if (!sameColor(rgb, true)) {
+            writeColor(rgb, "rg");
         }
     }
 
     public void setFillColor(float c, float m, float y, float k) {
-        try {
-            cs.setNonStrokingColor(c, m, y, k);
-        } catch (IOException e) {
-            logAndThrow("setFillColor(CMYK)", e);
+        float[] cmyk = { c, m, y, k };
+        if (!sameColor(cmyk, true)) {
+            writeColor(cmyk, "k");
         }
     }
 
     public void setLineWidth(float width) {
-        try {
-            cs.setLineWidth(width);
-        } catch (IOException e) {
-            logAndThrow("setLineWidth", e);
+        if (optimize) {
+            // Only the width in effect when painting matters.
+            state.wantedLineWidth = width;
+            return;
         }
+        writeOperand(width);
+        writeOperator("w");
     }
 
     public void setLineCap(int capStyle) {
-        try {
-            cs.setLineCapStyle(capStyle);
-        } catch (IOException e) {
-            logAndThrow("setLineCap", e);
+        if (optimize && capStyle == state.lineCap) {
+            return;
         }
+        closeText();
+        state.lineCap = capStyle;
+        writeOperand(capStyle);
+        writeOperator("J");
     }
 
     public void setLineJoin(int joinStyle) {
-        try {
-            cs.setLineJoinStyle(joinStyle);
-        } catch (IOException e) {
-            logAndThrow("setLineJoin", e);
+        if (optimize && joinStyle == state.lineJoin) {
+            return;
         }
+        closeText();
+        state.lineJoin = joinStyle;
+        writeOperand(joinStyle);
+        writeOperator("j");
     }
 
     public void setLineDash(float[] dash, float phase) {
-        try {
-            cs.setLineDashPattern(dash, phase);
-        } catch (IOException e) {
-            logAndThrow("setLineDash", e);
+        if (optimize && phase == state.dashPhase && Arrays.equals(dash, state.dash)) {
+            return;
+        }
+        closeText();
+        state.dash = dash.clone();
+        state.dashPhase = phase;
+
+        writeByte('[');
+        for (float value : dash) {
+            writeOperand(value);
         }
+        writeByte(']');
+        writeByte(' ');
+        writeOperand(phase);
+        writeOperator("d");
     }
 
     public void restoreGraphics() {
-        try {
-            saveGraphicsCounter--;
-            cs.restoreGraphicsState();
-			if (saveGraphicsCounter < 0)
-				throw new IllegalStateException("Invalid save/restore pairing!");
-        } catch (IOException e) {
-            logAndThrow("restoreGraphics", e);
+        closeText();
+        saveGraphicsCounter--;
+		if (saveGraphicsCounter < 0)
+			throw new IllegalStateException("Invalid save/restore pairing!");
+
+        GraphicsState inner = state;
+        state = stateStack.pop();
+
+        if (inner.font != state.font || inner.fontSize != state.fontSize) {
+            // The content stream shows text in the font it last set, which
+            // a restore written here does not change, so set it again.
+            state.font = null;
+        }
+
+        if (heldBackSaveCount > 0) {
+            // Nothing painted since the save, so drop it and everything after it.
+            size = heldBackSaves[--heldBackSaveCount];
+        } else {
+            writeOperator("Q");
         }
     }
 
     private int saveGraphicsCounter = 0;
     public void saveGraphics() {
-        try {
-            saveGraphicsCounter++;
-            cs.saveGraphicsState();
-        } catch (IOException e) {
-            logAndThrow("saveGraphics", e);
+        closeText();
+        saveGraphicsCounter++;
+        stateStack.push(state.copy());
+
+        if (optimize) {
+            if (heldBackSaveCount == heldBackSaves.length) {
+                heldBackSaves = Arrays.copyOf(heldBackSaves, heldBackSaveCount * 2);
+            }
+            heldBackSaves[heldBackSaveCount++] = size;
         }
+        writeOperator("q");
     }
 
     public void beginText() {
+        if (textOpen) {
+            // Continue the text object left open by endText.
+            return;
+        }
         try {
+            beforePaint();
+            flush();
             cs.beginText();
+            textOpen = true;
+            // BT resets the text matrix, so the next one is written in full.
+            lineMatrix = null;
         } catch (IOException e) {
             logAndThrow("beginText", e);
         }
     }
 
+    /**
+     * Ends a text draw. When optimizing the text object is left open, so that
+     * the next text draw can continue in it, and is closed before the next operator
+     * that is not allowed in a text object.
+     */
     public void endText() {
+        if (!optimize) {
+            closeText();
+        }
+    }
+
+    private void closeText() {
+        if (!textOpen) {
+            return;
+        }
         try {
+            flush();
             cs.endText();
+            textOpen = false;
         } catch (IOException e) {
             logAndThrow("endText", e);
         }
     }
 
     public void setFont(PDFont font, float size) {
+        if (optimize && font == state.font && size == state.fontSize) {
+            return;
+        }
         try {
+            flush();
             cs.setFont(font, size);
+            state.font = font;
+            state.fontSize = size;
         } catch (IOException e) {
             logAndThrow("setFont", e);
         }
@@ -269,24 +576,80 @@ public class PdfContentStreamAdapter {
 
     public void setTextMatrix(float a, float b, float c, float d, float e,
             float f) {
-        try {
-            Matrix mtrx = new Matrix(a, b, c, d, e, f);
-            cs.setTextMatrix(mtrx);
-        } catch (IOException e1) {
-            logAndThrow("setTextMatrix", e1);
+        if (optimize && lineMatrix != null &&
+            lineMatrix[0] == a && lineMatrix[1] == b && lineMatrix[2] == c && lineMatrix[3] == d &&
+            moveTextLine(a, b, c, d, e, f)) {
+            return;
+        }
+
+        writeMatrix(a, b, c, d, e, f);
+        writeOperator("Tm");
+
+        if (!optimize) {
+            return;
+        }
+
+        float e0 = readBack(e);
+        float f0 = readBack(f);
+        lineMatrix = Float.isNaN(e0) || Float.isNaN(f0) ? null : new float[] { a, b, c, d, e0, f0 };
+    }
+
+    /**
+     * Moves the origin of the text line matrix to (e, f) with a Td operator, if a reader
+     * ends up on exactly the origin it would read from a Tm operator. Offsets are written
+     * rounded, so an offset that is not exact would move the text by a fraction of a point.
+     */
+    private boolean moveTextLine(float a, float b, float c, float d, float e, float f) {
+        double det = (double) a * d - (double) b * c;
+        if (det == 0) {
+            return false;
         }
+
+        // (tx, ty) * [a b c d] = (e - e0, f - f0)
+        double dx = (double) e - lineMatrix[4];
+        double dy = (double) f - lineMatrix[5];
+        float tx = readBack((float) ((dx * d - dy * c) / det));
+        float ty = readBack((float) ((dy * a - dx * b) / det));
+
+        // The reader computes the new origin as translate(tx, ty) times the line matrix, in floats.
+        float e1 = tx * a + ty * c + lineMatrix[4];
+        float f1 = tx * b + ty * d + lineMatrix[5];
+
+        if (e1 != readBack(e) || f1 != readBack(f)) {
+            return false;
+        }
+
+        writeOperand(tx);
+        writeOperand(ty);
+        writeOperator("Td");
+        lineMatrix[4] = e1;
+        lineMatrix[5] = f1;
+        return true;
+    }
+
+    /**
+     * Returns the value a reader parses from the content stream for an operand,
+     * or NaN if it can not be worked out.
+     */
+    private float readBack(float value) {
+        int length = NumberFormatUtil.formatFloatFast(value, OPERAND_FRACTION_DIGITS, numberBuffer);
+        return length < 0 ? Float.NaN : Float.parseFloat(new String(numberBuffer, 0, length, StandardCharsets.US_ASCII));
     }
 
     public void setRenderingMode(RenderingMode rm) {
-        try {
-            cs.setRenderingMode(rm);
-        } catch (IOException e) {
-            logAndThrow("setRenderingMode", e);
+        if (optimize) {
+            // Only the mode in effect when showing text matters.
+            state.wantedRenderingMode = rm;
+            return;
         }
+        writeOperand(rm.intValue());
+        writeOperator("Tr");
     }
 
     public void drawString(String s) {
         try {
+            beforePaint();
+            flush();
             cs.showText(s);
         } catch (IOException e) {
             logAndThrow("drawString", e);
@@ -296,14 +659,20 @@ public class PdfContentStreamAdapter {
     public void drawImage(PDImageXObject xobject, float x, float y, float w,
             float h) {
         try {
+            closeText();
+            beforePaint();
+            flush();
             cs.drawImage(xobject, x, y, w, h);
         } catch (IOException e) {
             logAndThrow("drawImage", e);
         }
     }
-    
+
     public void drawXForm(PDFormXObject xObject) {
         try {
+            closeText();
+            beforePaint();
+            flush();
             cs.drawForm(xObject);
         } catch (IOException e) {
             logAndThrow("drawXForm", e);
@@ -311,25 +680,28 @@ public class PdfContentStreamAdapter {
     }
 
     public void setMiterLimit(float miterLimit) {
-        try {
-            /*
-             * Only set the miter limit if it is > 0, as 0 is a invalid
-             * value which causes Acrobat Reader to stop drawing anything.
-             */
-        	if( miterLimit > 0.0)
-                cs.setMiterLimit(miterLimit);
-        } catch (IOException e) {
-            logAndThrow("setMiterLimit", e);
+        /*
+         * Only set the miter limit if it is > 0, as 0 is a invalid
+         * value which causes Acrobat Reader to stop drawing anything.
+         */
+        if (!(miterLimit > 0.0) || (optimize && miterLimit == state.miterLimit)) {
+            return;
         }
+        closeText();
+        state.miterLimit = miterLimit;
+        writeOperand(miterLimit);
+        writeOperator("M");
     }
-    
+
     /**
-     * 
+     *
      * @param str MUST consist of a array of strings optionally interspersed with
      * Float values specifying additional spacing.
      */
     public void drawStringWithPositioning(Object[] str) {
         try {
+            beforePaint();
+            flush();
             cs.showTextWithPositioning(str);
         } catch (IOException e) {
             logAndThrow("drawStringWithPositioning", e);
@@ -337,34 +709,44 @@ public class PdfContentStreamAdapter {
     }
 
     public void applyPdfMatrix(AffineTransform transform) {
-        try {
-           cs.transform(new Matrix(transform));
-        } catch (IOException e) {
-            logAndThrow("applyPdfMatrix", e);
-        }
+        closeText();
+        writeMatrix((float) transform.getScaleX(), (float) transform.getShearY(),
+                (float) transform.getShearX(), (float) transform.getScaleY(),
+                (float) transform.getTranslateX(), (float) transform.getTranslateY());
+        writeOperator("cm");
     }
 
     public void placeXForm(float x, float y, PDFormXObject xFormObject) {
         try {
-			cs.saveGraphicsState();
-			cs.transform(new Matrix(AffineTransform.getTranslateInstance(x, y)));
-			cs.drawForm(xFormObject);
-			cs.restoreGraphicsState();
+            closeText();
+            beforePaint();
+            writeOperator("q");
+            writeMatrix(1, 0, 0, 1, x, y);
+            writeOperator("cm");
+            flush();
+            cs.drawForm(xFormObject);
+            writeOperator("Q");
         } catch (IOException e) {
             logAndThrow("placeXForm", e);
         }
     }
-    
+
     public void beginMarkedContent(COSName tag, COSDictionary dict) {
         try {
+            closeText();
+            beforePaint();
+            flush();
             cs.beginMarkedContent(tag, PDPropertyList.create(dict));
         } catch (IOException e) {
             logAndThrow("beginMarkedContent", e);
         }
     }
-    
+
     public void endMarkedContent() {
         try {
+            closeText();
+            beforePaint();
+            flush();
             cs.endMarkedContent();
         } catch (IOException e) {
             logAndThrow("endMarkedContent", e);
@@ -373,6 +755,9 @@ public class PdfContentStreamAdapter {
 
     public void paintGradient(PDShading shading) {
         try {
+            closeText();
+            beforePaint();
+            flush();
             cs.shadingFill(shading);
         } catch (IOException e) {
             logAndThrow("paintGradient", e);
@@ -0,0 +1,208 @@
+package com.openhtmltopdf.pdfboxout;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.w3c.dom.Document;
+
+import com.openhtmltopdf.css.sheet.Ruleset;
+import com.openhtmltopdf.css.sheet.Stylesheet;
+import com.openhtmltopdf.extend.FSCacheEx;
+import com.openhtmltopdf.extend.FSCacheValue;
+import com.openhtmltopdf.extend.impl.FSDefaultCacheStore;
+import com.openhtmltopdf.extend.impl.FSNoOpCacheStore;
+import com.openhtmltopdf.pdfboxout.PdfRendererBuilder.CacheStore;
+
+/**
+ * Renders many documents with the same configuration, keeping what does not
+ * depend on the document between renders: parsed stylesheets, parsed
+ * <code>style</code> attributes and font metrics.
+ * <pre>
+ * PdfRenderEngine engine = new PdfRenderEngine(
+ *     () -&gt; new PdfRendererBuilder().useFont(fontFile, "Karla"));
+ *
+ * engine.render(invoiceHtml, baseUri, os);
+ * </pre>
+ * Everything tied to the output document (the <code>PDDocument</code>, fonts loaded
+ * into it, the box tree and the user agent with its image cache) is still created for
+ * each render, as PDFBox objects can not be shared between documents.
+ * <br><br>
+ * An engine may be used from multiple threads provided the builder supplier
+ * returns a new builder each time it is called. Linked stylesheets are loaded
+ * once and not reloaded until {@link #clearCaches()} is called, unless they drop
+ * out of the cache, which keeps the most recently used 256 stylesheets.
+ */
+public class PdfRenderEngine {
+    private static final int MAX_CACHED_STYLESHEETS = 256;
+    private static final int MAX_CACHED_STYLE_DECLARATIONS = 4096;
+    private static final int WARM_UP_RENDERS = 20;
+
+    private static final String WARM_UP_HTML =
+        "<html><head><title>Warm up</title><style>" +
+          "@page { size: A4; margin: 20mm; " +
+            "@top-center { content: 'Warm up'; } " +
+            "@bottom-right { content: counter(page) ' of ' counter(pages); } }" +
+          "body { font-family: sans-serif; font-size: 11pt; }" +
+          "h1 { font-family: serif; border-bottom: 1px solid #888; }" +
+          "table { border-collapse: collapse; width: 100%; -fs-table-paginate: paginate; }" +
+          "td, th { border: 1px solid black; padding: 2px 4px; }" +
+          "tr:nth-child(even) { background-color: #eee; }" +
+          ".box { float: right; width: 30%; margin: 0 0 5px 5px; padding: 5px; " +
+            "border: 2px dashed #36c; border-radius: 5px; background-color: #def; }" +
+          ".abs { position: absolute; top: 0; right: 0; transform: rotate(10deg); }" +
+        "</style></head><body>" +
+        "<div class=\"abs\">Draft</div>" +
+        "<h1 id=\"top\">Heading</h1>" +
+        "<div class=\"box\">Floated <b>box</b> with <i>styled</i> text.</div>" +
+        "<p>Paragraph with <b>bold</b>, <i>italic</i>, <span style=\"color: red; text-decoration: underline;\">inline styled</span>, " +
+          "<code>monospace</code> and <a href=\"#top\">linked</a> text that is long enough to wrap " +
+          "over several lines when laid out on the page so that line breaking is exercised.</p>" +
+        "<ol><li>First</li><li>Second<ul><li>Nested</li></ul></li></ol>" +
+        "<table><thead><tr><th>Item</th><th style=\"text-align: right;\">Amount</th></tr></thead><tbody>" +
+          "<tr><td>One</td><td style=\"text-align: right;\">1.00</td></tr>" +
+          "<tr><td>Two</td><td style=\"text-align: right;\">2.00</td></tr>" +
+          "<tr><td colspan=\"2\" style=\"font-weight: bold;\">Total 3.00</td></tr>" +
+        "</tbody></table>" +
+        "<p style=\"page-break-before: always;\">Second page.</p>" +
+        "</body></html>";
+
+    private final Supplier<PdfRendererBuilder> _builderSupplier;
+    private final Map<String, Stylesheet> _stylesheets = Collections.synchronizedMap(
+            new LinkedHashMap<String, Stylesheet>(64, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Stylesheet> eldest) {
+                    // Inline style elements are keyed by their content, which may be
+                    // different for every document if it is generated.
+                    return size() > MAX_CACHED_STYLESHEETS;
+                }
+            });
+    private final Map<String, Ruleset> _styleDeclarations = Collections.synchronizedMap(
+            new LinkedHashMap<String, Ruleset>(64, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Ruleset> eldest) {
+                    // Documents may have style attributes that are only used once.
+                    return size() > MAX_CACHED_STYLE_DECLARATIONS;
+                }
+            });
+    private volatile FSCacheEx<String, FSCacheValue> _fontMetrics = new FSDefaultCacheStore();
+
+    /**
+     * @param builderSupplier supplies a new builder configured with everything except
+     *                        the document and output stream, such as fonts and drawers.
+     */
+    public PdfRenderEngine(Supplier<PdfRendererBuilder> builderSupplier) {
+        _builderSupplier = builderSupplier;
+    }
+
+    /**
+     * Renders the html to the output stream.
+     * The caller is required to close the output stream.
+     */
+    public void render(String html, String baseUri, OutputStream os) throws IOException {
+        newBuilder()
+          .withHtmlContent(html, baseUri)
+          .toStream(os)
+          .run();
+    }
+
+    /**
+     * Renders the document to the output stream.
+     * The caller is required to close the output stream.
+     */
+    public void render(Document doc, String baseUri, OutputStream os) throws IOException {
+        newBuilder()
+          .withW3cDocument(doc, baseUri)
+          .toStream(os)
+          .run();
+    }
+
+    /**
+     * Builds a renderer for the html, for further customization.
+     * Remember to call {@link PdfBoxRenderer#close()} after use.
+     */
+    public PdfBoxRenderer buildPdfRenderer(String html, String baseUri) {
+        return newBuilder()
+                 .withHtmlContent(html, baseUri)
+                 .buildPdfRenderer();
+    }
+
+    /**
+     * Returns a new builder from the supplier, set up to use the caches of this
+     * engine unless it was given its own. Add the document and output to it.
+     */
+    public PdfRendererBuilder newBuilder() {
+        PdfRendererBuilder builder = _builderSupplier.get();
+        PdfRendererBuilderState state = builder.getState();
+
+        if (state._caches.get(CacheStore.PDF_FONT_METRICS) == FSNoOpCacheStore.INSTANCE) {
+            builder.useCacheStore(CacheStore.PDF_FONT_METRICS, _fontMetrics);
+        }
+        if (state._stylesheetCache == null) {
+            builder.useStylesheetCache(_stylesheets);
+        }
+        if (state._styleDeclarationCache == null) {
+            builder.useStyleDeclarationCache(_styleDeclarations);
+        }
+
+        return builder;
+    }
+
+    /**
+     * Renders a synthetic document, exercising the main layout and PDF output paths,
+     * {@value #WARM_UP_RENDERS} times and discards the output. This loads and
+     * initializes the CSS property and value tables, the default stylesheet and the
+     * PDFBox standard fonts and gives the JIT compiler a chance to compile the hot
+     * code so that the first real render after startup is not several times slower
+     * than the following ones. Fonts given to the builder are only loaded when a
+     * document uses them, so render a representative document of your own with
+     * {@link #render(String, String, OutputStream)} to also warm those up.
+     * <br><br>
+     * Class loading can be further reduced with an application class data sharing
+     * archive created from a run of your application that calls this method at startup:
+     * <pre>
+     * # JDK 13+
+     * java -XX:ArchiveClassesAtExit=app.jsa -cp app.jar com.example.App
+     *
+     * # JDK 10+, class list then static archive
+     * java -XX:DumpLoadedClassList=app.classlist -cp app.jar com.example.App
+     * java -Xshare:dump -XX:SharedClassListFile=app.classlist -XX:SharedArchiveFile=app.jsa -cp app.jar
+     *
+     * # Then at deploy
+     * java -XX:SharedArchiveFile=app.jsa -cp app.jar com.example.App
+     * </pre>
+     * Only classes loaded from jar files are archived and the class path at deploy
+     * must match the one used to create the archive.
+     */
+    public void warmUp() throws IOException {
+        warmUp(WARM_UP_RENDERS);
+    }
+
+    /**
+     * Renders the warm up document the given number of times.
+     * See {@link #warmUp()}.
+     */
+    public void warmUp(int renders) throws IOException {
+        for (int i = 0; i < renders; i++) {
+            render(WARM_UP_HTML, null, new ByteArrayOutputStream(8192));
+        }
+    }
+
+    /**
+     * Drops cached stylesheets, style attributes and font metrics, for example
+     * after linked stylesheets have changed.
+     */
+    public void clearCaches() {
+        _stylesheets.clear();
+        _styleDeclarations.clear();
+        _fontMetrics = new FSDefaultCacheStore();
+    }
+}
@@ -1,6 +1,8 @@
 package com.openhtmltopdf.pdfboxout;
 
 import com.openhtmltopdf.css.constants.IdentValue;
+import com.openhtmltopdf.css.sheet.Ruleset;
+import com.openhtmltopdf.css.sheet.Stylesheet;
 import com.openhtmltopdf.extend.FSCacheEx;
 import com.openhtmltopdf.extend.FSCacheValue;
 import com.openhtmltopdf.extend.FSSupplier;
@@ -20,6 +22,7 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.EnumSet;
+import java.util.Map;
 import java.util.logging.Level;
 
 @SuppressWarnings({"UnusedReturnValue", "unused"}) // Return values are used by clients
@@ -35,6 +38,10 @@ public class PdfRendererBuilder extends BaseRendererBuilder<PdfRendererBuilder,
         }
     }
 
+    PdfRendererBuilderState getState() {
+        return state;
+    }
+
     /**
      * Run the XHTML/XML to PDF conversion and output to an output stream set by
      * toStream.
@@ -86,9 +93,10 @@ public class PdfRendererBuilder extends BaseRendererBuilder<PdfRendererBuilder,
                     addFontToDrawer(state._mathmlImpl, font);
                 }
 
-                if (font.usedFor.contains(FSFontUseCase.DOCUMENT) ||
+                if (!renderer.isContinuingBatch() &&
+                       (font.usedFor.contains(FSFontUseCase.DOCUMENT) ||
                         font.usedFor.contains(FSFontUseCase.FALLBACK_PRE) ||
-                        font.usedFor.contains(FSFontUseCase.FALLBACK_FINAL)) {
+                        font.usedFor.contains(FSFontUseCase.FALLBACK_FINAL))) {
                     IdentValue fontStyle = null;
 
                     if (font.style != null) {
@@ -304,6 +312,33 @@ public class PdfRendererBuilder extends BaseRendererBuilder<PdfRendererBuilder,
         return this;
     }
 
+    /**
+     * Use a cache of parsed stylesheets, keyed by origin, media and uri (and content
+     * for inline style elements). Linked stylesheets in the cache are not reloaded, so
+     * this is intended for rendering documents that share stylesheets, see {@link PdfRenderEngine}.
+     * The map must be thread safe if it is used across threads.
+     *
+     * @return this for method chaining.
+     */
+    public PdfRendererBuilder useStylesheetCache(Map<String, Stylesheet> cache) {
+        state._stylesheetCache = cache;
+        return this;
+    }
+
+    /**
+     * Use a cache of parsed <code>style</code> attributes, keyed by their text,
+     * instead of one that is used only by this render. This is intended for
+     * rendering many similar documents, see {@link PdfRenderEngine}.
+     * The map must be thread safe if it is used across threads and is not
+     * bounded by the renderer.
+     *
+     * @return this for method chaining.
+     */
+    public PdfRendererBuilder useStyleDeclarationCache(Map<String, Ruleset> cache) {
+        state._styleDeclarationCache = cache;
+        return this;
+    }
+
     /**
      * Set a PageSupplier that is called whenever a new page is needed.
      *
@@ -315,6 +350,40 @@ public class PdfRendererBuilder extends BaseRendererBuilder<PdfRendererBuilder,
         return this;
     }
 
+    /**
+     * Whether to free each page's display list and the box subtrees that can not
+     * be painted on any later page once the page has been written, so that peak
+     * memory use of very long documents is lower. False by default.
+     * <br><br>
+     * NOTE: With this enabled, the box tree returned by {@link PdfBoxRenderer#getRootBox()}
+     * is incomplete after the PDF has been created. It is ignored in PDF/UA mode,
+     * which needs the complete box tree to build the structure tree.
+     *
+     * @param releasePaintedPages whether to release painted pages
+     * @return this for method chaining.
+     */
+    public PdfRendererBuilder useReleasePaintedPages(boolean releasePaintedPages) {
+        state._releasePaintedPages = releasePaintedPages;
+        return this;
+    }
+
+    /**
+     * Whether to drop content stream operators that would not change the page,
+     * such as a color that is already set or a save and restore of the graphics
+     * state with nothing painted in between, and to write consecutive text draws
+     * into one text object. True by default.
+     * <br><br>
+     * Turning this off writes every operator of the renderer as is, which is
+     * useful for comparing the output of two versions byte for byte.
+     *
+     * @param optimizeContentStreams whether to optimize the page content streams
+     * @return this for method chaining.
+     */
+    public PdfRendererBuilder useOptimizedContentStreams(boolean optimizeContentStreams) {
+        state._optimizeContentStreams = optimizeContentStreams;
+        return this;
+    }
+
     /**
      * Customize the {@link NamespaceHandler}.
      *
@@ -1,5 +1,7 @@
 package com.openhtmltopdf.pdfboxout;
 
+import com.openhtmltopdf.css.sheet.Ruleset;
+import com.openhtmltopdf.css.sheet.Stylesheet;
 import com.openhtmltopdf.extend.FSCacheEx;
 import com.openhtmltopdf.extend.FSCacheValue;
 import com.openhtmltopdf.extend.NamespaceHandler;
@@ -31,4 +33,9 @@ public class PdfRendererBuilderState extends BaseRendererBuilder.BaseRendererBui
 	public byte[] _colorProfile;
 	public PageSupplier _pageSupplier;
 	public NamespaceHandler _namespaceHandler;
+	public Map<String, Stylesheet> _stylesheetCache;
+	public Map<String, Ruleset> _styleDeclarationCache;
+	public boolean _releasePaintedPages = false;
+	public boolean _optimizeContentStreams = true;
+	PdfBatchRenderer.SharedResources _batchResources;
 }
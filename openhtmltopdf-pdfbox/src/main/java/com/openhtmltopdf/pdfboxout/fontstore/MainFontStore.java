@@ -3,7 +3,9 @@ package com.openhtmltopdf.pdfboxout.fontstore;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
@@ -20,6 +22,7 @@ import com.openhtmltopdf.extend.FSCacheEx;
 import com.openhtmltopdf.extend.FSCacheValue;
 import com.openhtmltopdf.extend.FSSupplier;
 import com.openhtmltopdf.layout.SharedContext;
+import com.openhtmltopdf.outputdevice.helper.FontCache;
 import com.openhtmltopdf.outputdevice.helper.FontFaceFontSupplier;
 import com.openhtmltopdf.outputdevice.helper.FontFamily;
 import com.openhtmltopdf.outputdevice.helper.FontResolverHelper;
@@ -38,6 +41,10 @@ public class MainFontStore extends AbstractFontStore implements Closeable {
     private final PDDocument _doc;
     private final SharedContext _sharedContext;
     private final List<TrueTypeCollection> _collectionsToClose = new ArrayList<>();
+    // The font face fonts already loaded, keyed on their descriptors and resolved uri, so
+    // that a font face imported again, such as by each document of a batch, does not load
+    // and embed the font a second time.
+    private final Map<String, FontDescription> _fontFaces = new HashMap<>();
 
     public MainFontStore(
        SharedContext sharedContext,
@@ -103,10 +110,51 @@ public class MainFontStore extends AbstractFontStore implements Closeable {
     }
 
     public void addFontFaceFont(String fontFamilyName, IdentValue fontWeight, IdentValue fontStyle, String uri, boolean subset) {
-        FSSupplier<InputStream> fontSupplier = new FontFaceFontSupplier(_sharedContext, uri);
+        addFontFaceFont(_sharedContext, fontFamilyName, fontWeight, fontStyle, uri, subset);
+    }
+
+    /**
+     * Removes the font face fonts of the previous document from the font families, so
+     * that a document of a batch only sees its own font faces. The fonts stay loaded
+     * for reuse by later documents.
+     */
+    public void clearFontFaceFonts() {
+        for (FontFamily<FontDescription> family : _fontFamilies.values()) {
+            family.getFontDescriptions().removeIf(FontDescription::isFromFontFace);
+        }
+    }
+
+    /**
+     * Adds a font face font declared by the document of the given context. The uri is
+     * resolved against that document and loaded with its user agent, as the documents of
+     * a batch share this font store but may each have their own base uri.
+     */
+    public void addFontFaceFont(SharedContext ctx, String fontFamilyName, IdentValue fontWeight, IdentValue fontStyle, String uri, boolean subset) {
+        String resolved = ctx.getUserAgentCallback().resolveURI(uri);
+
+        if (resolved == null) {
+            // Can not be loaded, FontFaceFontSupplier logs the failure if the font is used.
+            resolved = uri;
+        } else if (resolved.startsWith("data:")) {
+            // A data uri carries the font itself, so key on its content instead of holding
+            // on to a string that can be megabytes long for the rest of the batch.
+            resolved = FontCache.contentCacheKey(resolved.getBytes(StandardCharsets.UTF_8));
+        }
+
+        String key = fontFamilyName + ':' + fontWeight + ':' + fontStyle + ':' + subset + ':' + resolved;
         FontFamily<FontDescription> fontFamily = getFontFamily(fontFamilyName);
+        FontDescription description = _fontFaces.get(key);
+
+        if (description != null) {
+            if (!fontFamily.getFontDescriptions().contains(description)) {
+                fontFamily.addFontDescription(description);
+            }
+            return;
+        }
 
-        FontDescription description = new FontDescription(
+        FSSupplier<InputStream> fontSupplier = new FontFaceFontSupplier(ctx, uri);
+
+        description = new FontDescription(
                     _doc,
                     fontSupplier,
                     FontUtil.normalizeFontWeight(fontWeight),
@@ -116,7 +164,9 @@ public class MainFontStore extends AbstractFontStore implements Closeable {
                     subset,
                     _fontMetricsCache);
 
-        addFontToFamily(subset, fontFamily, description);
+        if (addFontToFamily(subset, fontFamily, description)) {
+            _fontFaces.put(key, description);
+        }
     }
 
     public void addFont(
@@ -179,14 +229,13 @@ public class MainFontStore extends AbstractFontStore implements Closeable {
         return null;
     }
 
-    private void addFontToFamily(boolean subset, FontFamily<FontDescription> fontFamily, FontDescription descr) {
-        if (!subset) {
-            if (descr.realizeFont()) {
-                fontFamily.addFontDescription(descr);
-            }
-        } else {
-            fontFamily.addFontDescription(descr);
+    private boolean addFontToFamily(boolean subset, FontFamily<FontDescription> fontFamily, FontDescription descr) {
+        if (!subset && !descr.realizeFont()) {
+            return false;
         }
+
+        fontFamily.addFontDescription(descr);
+        return true;
     }
 
     private FontFamily<FontDescription> getFontFamily(String fontFamilyName) {